@@ -8,6 +8,9 @@ import net.minecraft.client.option.KeyBinding;
 import org.lwjgl.glfw.GLFW;
 import com.emperium.neoporiumscanner.commands.CommandRegistry;
 import com.emperium.neoporiumscanner.config.ConfigManager;
+import com.emperium.neoporiumscanner.core.AutoScanner;
+import com.emperium.neoporiumscanner.core.ScanScheduler;
+import com.emperium.neoporiumscanner.events.ChunkEventHandler;
 import com.emperium.neoporiumscanner.events.WorldRenderHandler;
 import com.emperium.neoporiumscanner.gui.AdvancedGuiScreen;
 
@@ -38,11 +41,18 @@ public class NeoporiumScanner implements ClientModInitializer {
         // Register render handler
         WorldRenderHandler.register();
 
+        // Register chunk load/unload handler
+        ChunkEventHandler.register();
+
         // Register client tick event
         ClientTickEvents.END_CLIENT_TICK.register(client -> {
             if (openGuiKeyBinding.wasPressed()) {
                 openGui();
             }
+
+            // Queue chunks the player walked into, then copy queued chunks for the scan workers
+            AutoScanner.getInstance().tick(client);
+            ScanScheduler.getInstance().tick(client);
         });
 
         System.out.println("[" + MOD_NAME + "] Initialized successfully!");
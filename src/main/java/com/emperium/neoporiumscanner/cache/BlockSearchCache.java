@@ -2,55 +2,268 @@ package com.emperium.neoporiumscanner.cache;
 
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
+import com.emperium.neoporiumscanner.core.HitList;
+import com.emperium.neoporiumscanner.utils.LongHashSet;
 
-import java.util.*;
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
+// Found block positions per chunk, as packed longs in open-addressing sets.
+// Copy-on-write: every change builds a new CachedChunk and swaps it in, so readers get a
+// consistent snapshot of a chunk with a plain map lookup and never wait for a writer.
+// Single-block changes are queued per chunk instead of copying the chunk each time. The queue
+// is folded into a new snapshot with one copy when a reader next asks for the chunk, or once it
+// holds as many changes as the chunk has hits, so a copy costs O(1) per change amortized.
+// Writers to the same chunk are serialized by one of SHARDS striped locks; writers to chunks
+// in other shards don't contend. Every change bumps the chunk's generation, so a reader can
+// tell whether what it read earlier is still current.
+// Mirrors the positions in the result index for readers off the client thread, such as commands
+// on the server thread; the client thread publishes to it wherever results land or change.
 public class BlockSearchCache {
+    private static final int SHARDS = 16;
+    // Queues this short are folded no matter how few hits the chunk has
+    private static final int MIN_FOLD = 16;
+
     private static BlockSearchCache instance;
-    private final Map<ChunkPos, Set<BlockPos>> cache;
-    private final Set<ChunkPos> scannedChunks;
+    private final Map<Long, CachedChunk> chunks = new ConcurrentHashMap<>();
+    // Guarded by the chunk's lock; concurrent only so readers can check for a queue without it
+    private final Map<Long, PendingChanges> pending = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[SHARDS];
+    private final AtomicLong blockCount = new AtomicLong();
 
     private BlockSearchCache() {
-        this.cache = new ConcurrentHashMap<>();
-        this.scannedChunks = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < SHARDS; i++) {
+            locks[i] = new Object();
+        }
     }
 
-    public static BlockSearchCache getInstance() {
+    public static synchronized BlockSearchCache getInstance() {
         if (instance == null) {
             instance = new BlockSearchCache();
         }
         return instance;
     }
 
+    private Object lockFor(long chunkPos) {
+        long h = chunkPos * 0x9E3779B97F4A7C15L;
+        return locks[(int) (h >>> 60) & (SHARDS - 1)];
+    }
+
+    // Replaces everything known about a chunk, e.g. with the results of a fresh scan
+    public void putChunk(long chunkPos, HitList hits) {
+        LongHashSet set = new LongHashSet(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            set.add(hits.getPos(i));
+        }
+        synchronized (lockFor(chunkPos)) {
+            CachedChunk old = chunks.get(chunkPos);
+            publish(chunkPos, old, set);
+        }
+    }
+
     public void addBlocks(ChunkPos chunkPos, Collection<BlockPos> blocks) {
-        cache.computeIfAbsent(chunkPos, k -> ConcurrentHashMap.newKeySet()).addAll(blocks);
-        scannedChunks.add(chunkPos);
+        long key = chunkPos.toLong();
+        synchronized (lockFor(key)) {
+            CachedChunk old = chunks.get(key);
+            LongHashSet set = old != null ? old.positions.copy() : new LongHashSet(blocks.size());
+            PendingChanges changes = pending.get(key);
+            if (changes != null) {
+                changes.applyTo(set);
+            }
+            for (BlockPos pos : blocks) {
+                set.add(pos.asLong());
+            }
+            publish(key, old, set);
+        }
+    }
+
+    // A single block changed. Ignored for chunks that were never scanned.
+    // The block count moves right away; the snapshot only when the queue is folded.
+    public void onBlockChanged(BlockPos pos, boolean found) {
+        long key = ChunkPos.toLong(pos);
+        long packed = pos.asLong();
+        synchronized (lockFor(key)) {
+            CachedChunk old = chunks.get(key);
+            if (old == null) {
+                return;
+            }
+            PendingChanges changes = pending.get(key);
+            boolean present = changes != null ? changes.contains(old, packed) : old.contains(packed);
+            if (present == found) {
+                return;
+            }
+
+            if (changes == null) {
+                changes = new PendingChanges();
+                pending.put(key, changes);
+            }
+            changes.set(packed, found);
+            blockCount.addAndGet(found ? 1 : -1);
+            if (changes.count() >= Math.max(MIN_FOLD, old.size())) {
+                fold(key, old, changes);
+            }
+        }
+    }
+
+    // Caller holds the chunk's lock
+    private CachedChunk fold(long chunkPos, CachedChunk old, PendingChanges changes) {
+        LongHashSet set = old.positions.copy();
+        changes.applyTo(set);
+        return publish(chunkPos, old, set);
     }
 
-    public Set<BlockPos> getBlocks(ChunkPos chunkPos) {
-        return cache.getOrDefault(chunkPos, Collections.emptySet());
+    // Caller holds the chunk's lock. The new set takes the place of the old one and its queue.
+    private CachedChunk publish(long chunkPos, CachedChunk old, LongHashSet set) {
+        PendingChanges changes = pending.remove(chunkPos);
+        long generation = old != null ? old.generation + 1 : 0;
+        CachedChunk chunk = new CachedChunk(generation, set);
+        chunks.put(chunkPos, chunk);
+        blockCount.addAndGet(set.size() - sizeOf(old, changes));
+        return chunk;
+    }
+
+    private static int sizeOf(CachedChunk chunk, PendingChanges changes) {
+        if (chunk == null) {
+            return 0;
+        }
+        return chunk.size() + (changes != null ? changes.delta : 0);
+    }
+
+    // Snapshot of the chunk, null if it was never scanned. Never changes once returned.
+    // Lock-free unless changes are queued for the chunk, which are folded in first.
+    public CachedChunk getChunk(ChunkPos chunkPos) {
+        long key = chunkPos.toLong();
+        if (!pending.containsKey(key)) {
+            return chunks.get(key);
+        }
+        synchronized (lockFor(key)) {
+            CachedChunk chunk = chunks.get(key);
+            PendingChanges changes = pending.get(key);
+            return changes != null ? fold(key, chunk, changes) : chunk;
+        }
     }
 
     public boolean isChunkScanned(ChunkPos chunkPos) {
-        return scannedChunks.contains(chunkPos);
+        return chunks.containsKey(chunkPos.toLong());
     }
 
     public void markChunkScanned(ChunkPos chunkPos) {
-        scannedChunks.add(chunkPos);
+        long key = chunkPos.toLong();
+        synchronized (lockFor(key)) {
+            if (!chunks.containsKey(key)) {
+                publish(key, null, new LongHashSet(4));
+            }
+        }
     }
 
-    public void clear() {
-        cache.clear();
-        scannedChunks.clear();
+    // True while nothing changed the chunk since the given generation was read
+    public boolean isCurrent(ChunkPos chunkPos, long generation) {
+        long key = chunkPos.toLong();
+        CachedChunk chunk = chunks.get(key);
+        return chunk != null && chunk.generation == generation && !pending.containsKey(key);
     }
 
     public void removeChunk(ChunkPos chunkPos) {
-        cache.remove(chunkPos);
-        scannedChunks.remove(chunkPos);
+        long key = chunkPos.toLong();
+        synchronized (lockFor(key)) {
+            CachedChunk old = chunks.remove(key);
+            PendingChanges changes = pending.remove(key);
+            blockCount.addAndGet(-sizeOf(old, changes));
+        }
+    }
+
+    // Takes every lock, so no writer is halfway through a chunk while the map is emptied
+    public void clear() {
+        clear(0);
+    }
+
+    private void clear(int shard) {
+        if (shard == SHARDS) {
+            chunks.clear();
+            pending.clear();
+            blockCount.set(0);
+            return;
+        }
+        synchronized (locks[shard]) {
+            clear(shard + 1);
+        }
+    }
+
+    // Kept up to date by every change, O(1)
+    public long getCachedBlockCount() {
+        return blockCount.get();
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    // Changes since the chunk's snapshot; a position is in at most one of the two sets
+    private static final class PendingChanges {
+        private final LongHashSet added = new LongHashSet();
+        private final LongHashSet removed = new LongHashSet();
+        private int delta = 0;
+
+        boolean contains(CachedChunk chunk, long pos) {
+            return added.contains(pos) || (!removed.contains(pos) && chunk.contains(pos));
+        }
+
+        // Only called when the change flips the position
+        void set(long pos, boolean found) {
+            if (found) {
+                if (!removed.remove(pos)) {
+                    added.add(pos);
+                }
+            } else if (!added.remove(pos)) {
+                removed.add(pos);
+            }
+            delta += found ? 1 : -1;
+        }
+
+        int count() {
+            return added.size() + removed.size();
+        }
+
+        void applyTo(LongHashSet set) {
+            added.forEach(set::add);
+            removed.forEach(set::remove);
+        }
     }
 
-    public int getCachedBlockCount() {
-        return cache.values().stream().mapToInt(Set::size).sum();
+    public static final class CachedChunk {
+        private final long generation;
+        private final LongHashSet positions;
+
+        private CachedChunk(long generation, LongHashSet positions) {
+            this.generation = generation;
+            this.positions = positions;
+        }
+
+        public long getGeneration() {
+            return generation;
+        }
+
+        public int size() {
+            return positions.size();
+        }
+
+        public boolean contains(BlockPos pos) {
+            return positions.contains(pos.asLong());
+        }
+
+        public boolean contains(long pos) {
+            return positions.contains(pos);
+        }
+
+        public void forEach(LongConsumer action) {
+            positions.forEach(action);
+        }
+
+        public long[] toArray() {
+            return positions.toArray();
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,67 +1,267 @@
 package com.emperium.neoporiumscanner.cache;
 
 import net.minecraft.util.math.ChunkPos;
-import net.minecraft.world.chunk.WorldChunk;
+import com.emperium.neoporiumscanner.config.ConfigManager;
+import com.emperium.neoporiumscanner.core.HitList;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
 
+// Scan results of recently scanned chunks, so rescanning an unchanged chunk is a lookup.
+// Bounded by weight (estimated bytes) with LRU eviction; entries not used for the TTL expire.
+// Expiry runs on a timing wheel: an entry sits in the slot of the second it expires in and
+// each call only visits the slots whose second has passed, so there are no full sweeps.
+// Every entry carries the stamp of the settings it was scanned with and only matches an equal stamp.
+// Called from the client thread and the scan workers; every operation is O(1) under the lock.
 public class ChunkCache {
+    private static final long TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 64;
+
     private static ChunkCache instance;
-    private final Map<ChunkPos, WorldChunk> chunkCache;
-    private final Map<ChunkPos, Long> lastAccessTime;
 
-    private static final long CACHE_DURATION = 60000; // 1 minute
+    // Settings a result depends on: the matcher it was scanned with, the Y window and the filter
+    public record Stamp(long matcherGeneration, int minY, int maxY, boolean exposedOnly) {
+    }
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Entry lru = new Entry(0, null, null, 0);
+    private final Entry[] wheel = new Entry[WHEEL_SIZE];
+    private final ToLongFunction<HitList> weigher;
+    private final LongSupplier clock;
+    private long maxWeight;
+    private long ttlMillis;
+    private long weight = 0;
+    private long lastTick;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long expirations = 0;
 
-    private ChunkCache() {
-        this.chunkCache = new HashMap<>();
-        this.lastAccessTime = new HashMap<>();
+    public ChunkCache(long maxWeight, long ttlMillis, ToLongFunction<HitList> weigher) {
+        this(maxWeight, ttlMillis, weigher, System::currentTimeMillis);
+    }
+
+    // The clock gives the current time in milliseconds
+    public ChunkCache(long maxWeight, long ttlMillis, ToLongFunction<HitList> weigher, LongSupplier clock) {
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+        this.clock = clock;
+        this.lastTick = clock.getAsLong() / TICK_MS;
+        lru.linkLru(lru);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new Entry(0, null, null, 0);
+            wheel[i].linkWheel(wheel[i]);
+        }
     }
 
-    public static ChunkCache getInstance() {
+    public static synchronized ChunkCache getInstance() {
         if (instance == null) {
-            instance = new ChunkCache();
+            instance = new ChunkCache(ConfigManager.getCacheMaxMb() * 1024L * 1024L,
+                    ConfigManager.getCacheTtlSeconds() * 1000L, HitList::estimateBytes);
         }
         return instance;
     }
 
-    public void cacheChunk(WorldChunk chunk) {
-        if (chunk == null) return;
+    // Null when the chunk isn't cached or was scanned with other settings. Do not modify.
+    public synchronized HitList get(long chunkPos, Stamp stamp) {
+        long now = clock.getAsLong();
+        expire(now);
+
+        Entry entry = entries.get(chunkPos);
+        if (entry == null || !entry.stamp.equals(stamp)) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        entry.unlinkLru();
+        entry.linkLru(lru);
+        schedule(entry, now);
+        return entry.blocks;
+    }
+
+    // Takes the list as is; it must not change while cached
+    public synchronized void put(long chunkPos, Stamp stamp, HitList blocks) {
+        long now = clock.getAsLong();
+        expire(now);
+        remove(chunkPos);
+
+        long entryWeight = weigher.applyAsLong(blocks);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+
+        Entry entry = new Entry(chunkPos, blocks, stamp, entryWeight);
+        entries.put(chunkPos, entry);
+        entry.linkLru(lru);
+        schedule(entry, now);
+        weight += entryWeight;
 
-        ChunkPos pos = chunk.getPos();
-        chunkCache.put(pos, chunk);
-        lastAccessTime.put(pos, System.currentTimeMillis());
+        // Least recently used first
+        while (weight > maxWeight) {
+            remove(lru.lruPrev.chunkPos);
+            evictions++;
+        }
+    }
 
-        // Clean old entries
-        cleanOldEntries();
+    public synchronized void removeChunk(ChunkPos pos) {
+        remove(pos.toLong());
     }
 
-    public WorldChunk getChunk(ChunkPos pos) {
-        WorldChunk chunk = chunkCache.get(pos);
-        if (chunk != null) {
-            lastAccessTime.put(pos, System.currentTimeMillis());
+    private void remove(long chunkPos) {
+        Entry entry = entries.remove(chunkPos);
+        if (entry != null) {
+            entry.unlinkLru();
+            entry.unlinkWheel();
+            weight -= entry.weight;
         }
-        return chunk;
     }
 
-    public void removeChunk(ChunkPos pos) {
-        chunkCache.remove(pos);
-        lastAccessTime.remove(pos);
+    private void schedule(Entry entry, long now) {
+        entry.unlinkWheel();
+        if (ttlMillis <= 0) {
+            return;
+        }
+        entry.expiresAt = now + ttlMillis;
+        entry.linkWheel(wheel[(int) ((entry.expiresAt / TICK_MS) & (WHEEL_SIZE - 1))]);
     }
 
-    private void cleanOldEntries() {
-        long currentTime = System.currentTimeMillis();
-        lastAccessTime.entrySet().removeIf(entry -> {
-            if (currentTime - entry.getValue() > CACHE_DURATION) {
-                chunkCache.remove(entry.getKey());
-                return true;
+    // Visits the slots of every second since the last call. Entries more than a turn of the wheel
+    // ahead stay in their slot until a later turn.
+    private void expire(long now) {
+        long tick = now / TICK_MS;
+        long from = Math.max(lastTick + 1, tick - WHEEL_SIZE + 1);
+        for (long t = from; t <= tick; t++) {
+            Entry head = wheel[(int) (t & (WHEEL_SIZE - 1))];
+            Entry entry = head.wheelNext;
+            while (entry != head) {
+                Entry next = entry.wheelNext;
+                if (entry.expiresAt <= now) {
+                    remove(entry.chunkPos);
+                    expirations++;
+                }
+                entry = next;
             }
-            return false;
-        });
+        }
+        lastTick = Math.max(lastTick, tick);
+    }
+
+    // Applies to new entries; shrinking evicts right away
+    public synchronized void setLimits(long maxWeight, long ttlMillis) {
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+        while (weight > maxWeight && !entries.isEmpty()) {
+            remove(lru.lruPrev.chunkPos);
+            evictions++;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        lru.linkLru(lru);
+        for (Entry head : wheel) {
+            head.linkWheel(head);
+        }
+        weight = 0;
     }
 
-    public void clear() {
-        chunkCache.clear();
-        lastAccessTime.clear();
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    public synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+        expirations = 0;
+    }
+
+    // Node of two intrusive rings: recency order and one wheel slot. Heads are empty nodes.
+    private static final class Entry {
+        final long chunkPos;
+        final HitList blocks;
+        final Stamp stamp;
+        final long weight;
+        long expiresAt;
+        Entry lruPrev, lruNext;
+        Entry wheelPrev, wheelNext;
+
+        Entry(long chunkPos, HitList blocks, Stamp stamp, long weight) {
+            this.chunkPos = chunkPos;
+            this.blocks = blocks;
+            this.stamp = stamp;
+            this.weight = weight;
+        }
+
+        // Inserts right after head; a head linked to itself is an empty ring
+        void linkLru(Entry head) {
+            if (head == this) {
+                lruPrev = this;
+                lruNext = this;
+                return;
+            }
+            lruPrev = head;
+            lruNext = head.lruNext;
+            head.lruNext.lruPrev = this;
+            head.lruNext = this;
+        }
+
+        void unlinkLru() {
+            if (lruNext != null) {
+                lruPrev.lruNext = lruNext;
+                lruNext.lruPrev = lruPrev;
+                lruPrev = null;
+                lruNext = null;
+            }
+        }
+
+        void linkWheel(Entry head) {
+            if (head == this) {
+                wheelPrev = this;
+                wheelNext = this;
+                return;
+            }
+            wheelPrev = head;
+            wheelNext = head.wheelNext;
+            head.wheelNext.wheelPrev = this;
+            head.wheelNext = this;
+        }
+
+        void unlinkWheel() {
+            if (wheelNext != null) {
+                wheelPrev.wheelNext = wheelNext;
+                wheelNext.wheelPrev = wheelPrev;
+                wheelPrev = null;
+                wheelNext = null;
+            }
+        }
     }
-}
\ No newline at end of file
+}
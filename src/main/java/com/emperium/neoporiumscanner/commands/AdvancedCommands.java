@@ -4,18 +4,55 @@ import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
 import net.minecraft.command.CommandRegistryAccess;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import com.emperium.neoporiumscanner.NeoporiumScanner;
+import com.emperium.neoporiumscanner.cache.BlockSearchCache;
+import com.emperium.neoporiumscanner.cache.ChunkCache;
 import com.emperium.neoporiumscanner.config.ConfigManager;
+import com.emperium.neoporiumscanner.config.ScanProfile;
+import com.emperium.neoporiumscanner.config.StateSettings;
 import com.emperium.neoporiumscanner.xray.render.RenderManager;
 import com.emperium.neoporiumscanner.core.ScanController;
+import com.emperium.neoporiumscanner.core.ScanEngine;
+import com.emperium.neoporiumscanner.core.QuerySet;
+import com.emperium.neoporiumscanner.core.ScanJob;
+import com.emperium.neoporiumscanner.core.ScanQuery;
+import com.emperium.neoporiumscanner.core.SnapshotPool;
+import com.emperium.neoporiumscanner.core.ScanScheduler;
+import com.emperium.neoporiumscanner.core.ScanResultIndex;
+import com.emperium.neoporiumscanner.core.ResultArchive;
+import com.emperium.neoporiumscanner.core.DecoderBenchmark;
+import com.emperium.neoporiumscanner.core.DensityMap;
+import com.emperium.neoporiumscanner.core.HitList;
+import com.emperium.neoporiumscanner.core.SectionDecoders;
+import com.emperium.neoporiumscanner.core.Vein;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class AdvancedCommands {
+    private static final SuggestionProvider<ServerCommandSource> PROFILE_SUGGESTIONS = (context, builder) -> {
+        ConfigManager.getScanProfiles().keySet().forEach(builder::suggest);
+        return builder.buildFuture();
+    };
+
+    private static final SuggestionProvider<ServerCommandSource> DENSITY_SUGGESTIONS = (context, builder) -> {
+        DensityMap.getInstance().getTypeIds().forEach(builder::suggest);
+        return builder.buildFuture();
+    };
 
     public static void registerCommands(CommandDispatcher<ServerCommandSource> dispatcher,
                                         CommandRegistryAccess registryAccess,
@@ -36,6 +73,11 @@ public class AdvancedCommands {
                         .then(CommandManager.literal("range")
                                 .then(CommandManager.argument("distance", IntegerArgumentType.integer(1, 512))
                                         .executes(context -> setXRayRange(context))))
+                        .then(CommandManager.literal("merge")
+                                .then(CommandManager.literal("on")
+                                        .executes(context -> setXRayMerge(context, true)))
+                                .then(CommandManager.literal("off")
+                                        .executes(context -> setXRayMerge(context, false))))
                         .executes(context -> showXRayStatus(context)))
                 .then(CommandManager.literal("esp")
                         .then(CommandManager.literal("on")
@@ -73,7 +115,141 @@ public class AdvancedCommands {
                         .then(CommandManager.literal("range")
                                 .then(CommandManager.argument("distance", IntegerArgumentType.integer(1, 512))
                                         .executes(context -> setScanRange(context))))
+                        .then(CommandManager.literal("threads")
+                                .then(CommandManager.argument("count", IntegerArgumentType.integer(1, 64))
+                                        .executes(context -> setScanThreads(context))))
+                        .then(CommandManager.literal("stream")
+                                .then(CommandManager.literal("on")
+                                        .executes(context -> setStreamingScan(context, true)))
+                                .then(CommandManager.literal("off")
+                                        .executes(context -> setStreamingScan(context, false))))
+                        .then(CommandManager.literal("bias")
+                                .then(CommandManager.argument("value", IntegerArgumentType.integer(0, 100))
+                                        .executes(context -> setScanLookBias(context))))
+                        .then(CommandManager.literal("grain")
+                                .then(CommandManager.argument("chunks", IntegerArgumentType.integer(1, 64))
+                                        .executes(context -> setScanGrain(context))))
+                        .then(CommandManager.literal("maxblocks")
+                                .then(CommandManager.argument("blocks", IntegerArgumentType.integer(4096, 1 << 24))
+                                        .executes(context -> setMaxBlocksPerTick(context))))
+                        .then(CommandManager.literal("archive")
+                                .then(CommandManager.argument("blocks", IntegerArgumentType.integer(0, 10000000))
+                                        .executes(context -> setArchiveMaxBlocks(context))))
+                        .then(CommandManager.literal("cache")
+                                .then(CommandManager.argument("mb", IntegerArgumentType.integer(0, 1024))
+                                        .executes(context -> setCacheMaxMb(context))))
+                        .then(CommandManager.literal("cachettl")
+                                .then(CommandManager.argument("seconds", IntegerArgumentType.integer(0, 3600))
+                                        .executes(context -> setCacheTtl(context))))
+                        .then(CommandManager.literal("budget")
+                                .then(CommandManager.argument("micros", IntegerArgumentType.integer(100, 20000))
+                                        .executes(context -> setSnapshotBudget(context))))
                         .executes(context -> toggleScan(context)))
+                .then(CommandManager.literal("profile")
+                        .then(CommandManager.literal("list")
+                                .executes(context -> listProfiles(context)))
+                        .then(CommandManager.literal("set")
+                                .then(CommandManager.argument("name", StringArgumentType.word())
+                                        .suggests(PROFILE_SUGGESTIONS)
+                                        .executes(context -> setProfile(context))))
+                        .then(CommandManager.literal("create")
+                                .then(CommandManager.argument("name", StringArgumentType.word())
+                                        .executes(context -> createProfile(context))))
+                        .then(CommandManager.literal("delete")
+                                .then(CommandManager.argument("name", StringArgumentType.word())
+                                        .suggests(PROFILE_SUGGESTIONS)
+                                        .executes(context -> deleteProfile(context))))
+                        .then(CommandManager.literal("radius")
+                                .then(CommandManager.argument("blocks", IntegerArgumentType.integer(0, 512))
+                                        .executes(context -> setProfileRadius(context))))
+                        .then(CommandManager.literal("targets")
+                                .then(CommandManager.argument("blocks", StringArgumentType.greedyString())
+                                        .executes(context -> setProfileTargets(context))))
+                        .executes(context -> showProfile(context)))
+                .then(CommandManager.literal("query")
+                        .then(CommandManager.literal("add")
+                                .then(CommandManager.argument("profile", StringArgumentType.word())
+                                        .suggests(PROFILE_SUGGESTIONS)
+                                        .then(CommandManager.literal("log")
+                                                .executes(context -> addQuery(context, ScanQuery.Action.LOG)))
+                                        .then(CommandManager.literal("alert")
+                                                .executes(context -> addQuery(context, ScanQuery.Action.ALERT)))))
+                        .then(CommandManager.literal("remove")
+                                .then(CommandManager.argument("profile", StringArgumentType.word())
+                                        .suggests(PROFILE_SUGGESTIONS)
+                                        .executes(context -> removeQuery(context))))
+                        .then(CommandManager.literal("clear")
+                                .executes(context -> clearQueries(context)))
+                        .executes(context -> listQueries(context)))
+                .then(CommandManager.literal("yrange")
+                        .then(CommandManager.argument("min", IntegerArgumentType.integer(-2048, 2048))
+                                .then(CommandManager.argument("max", IntegerArgumentType.integer(-2048, 2048))
+                                        .executes(context -> setYRange(context,
+                                                IntegerArgumentType.getInteger(context, "min"),
+                                                IntegerArgumentType.getInteger(context, "max")))))
+                        .then(CommandManager.literal("clear")
+                                .executes(context -> clearYRange(context))))
+                .then(CommandManager.literal("ylevel")
+                        .then(CommandManager.argument("y", IntegerArgumentType.integer(-2048, 2048))
+                                .then(CommandManager.argument("spread", IntegerArgumentType.integer(0, 64))
+                                        .executes(context -> setYLevel(context, IntegerArgumentType.getInteger(context, "spread"))))
+                                .executes(context -> setYLevel(context, 2))))
+                .then(CommandManager.literal("exposed")
+                        .then(CommandManager.literal("on")
+                                .executes(context -> setExposedOnly(context, true)))
+                        .then(CommandManager.literal("off")
+                                .executes(context -> setExposedOnly(context, false))))
+                .then(CommandManager.literal("auto")
+                        .then(CommandManager.literal("on")
+                                .executes(context -> setAutoScan(context, true)))
+                        .then(CommandManager.literal("off")
+                                .executes(context -> setAutoScan(context, false)))
+                        .then(CommandManager.literal("hysteresis")
+                                .then(CommandManager.argument("chunks", IntegerArgumentType.integer(0, 16))
+                                        .executes(context -> setAutoScanHysteresis(context)))))
+                .then(CommandManager.literal("vein")
+                        .then(CommandManager.literal("on")
+                                .executes(context -> setVeinMode(context, true)))
+                        .then(CommandManager.literal("off")
+                                .executes(context -> setVeinMode(context, false)))
+                        .then(CommandManager.literal("diagonal")
+                                .then(CommandManager.literal("on")
+                                        .executes(context -> setVeinDiagonal(context, true)))
+                                .then(CommandManager.literal("off")
+                                        .executes(context -> setVeinDiagonal(context, false))))
+                        .then(CommandManager.literal("list")
+                                .executes(context -> listVeins(context))))
+                .then(CommandManager.literal("density")
+                        .then(CommandManager.literal("hud")
+                                .then(CommandManager.literal("on")
+                                        .executes(context -> setDensityHud(context, true)))
+                                .then(CommandManager.literal("off")
+                                        .executes(context -> setDensityHud(context, false))))
+                        .then(CommandManager.argument("block", StringArgumentType.greedyString())
+                                .suggests(DENSITY_SUGGESTIONS)
+                                .executes(context -> showDensity(context, StringArgumentType.getString(context, "block"))))
+                        .executes(context -> showDensity(context, "")))
+                .then(CommandManager.literal("nearest")
+                        .then(CommandManager.argument("count", IntegerArgumentType.integer(1, 50))
+                                .then(CommandManager.argument("block", StringArgumentType.greedyString())
+                                        .suggests(DENSITY_SUGGESTIONS)
+                                        .executes(context -> showNearest(context, IntegerArgumentType.getInteger(context, "count"),
+                                                StringArgumentType.getString(context, "block"))))
+                                .executes(context -> showNearest(context, IntegerArgumentType.getInteger(context, "count"), null)))
+                        .executes(context -> showNearest(context, 5, null)))
+                .then(CommandManager.literal("chunk")
+                        .executes(context -> showChunkHits(context)))
+                .then(CommandManager.literal("instancing")
+                        .then(CommandManager.literal("on")
+                                .executes(context -> setInstancing(context, true)))
+                        .then(CommandManager.literal("off")
+                                .executes(context -> setInstancing(context, false))))
+                .then(CommandManager.literal("stats")
+                        .then(CommandManager.literal("reset")
+                                .executes(context -> resetStats(context)))
+                        .executes(context -> showStats(context)))
+                .then(CommandManager.literal("bench")
+                        .executes(context -> runBenchmark(context)))
                 .then(CommandManager.literal("reload")
                         .executes(context -> reloadConfig(context)))
                 .then(CommandManager.literal("help")
@@ -160,6 +336,30 @@ public class AdvancedCommands {
         return 1;
     }
 
+    private static int setXRayMerge(CommandContext<ServerCommandSource> context, boolean enabled) {
+        ConfigManager.setXRayMergeFaces(enabled);
+        context.getSource().sendMessage(
+                Text.literal("XRay face merging " + (enabled ? "enabled" : "disabled")).formatted(
+                        enabled ? Formatting.GREEN : Formatting.RED)
+        );
+        return 1;
+    }
+
+    private static int setInstancing(CommandContext<ServerCommandSource> context, boolean enabled) {
+        ConfigManager.setInstancedRendering(enabled);
+        context.getSource().sendMessage(
+                Text.literal("Instanced rendering " + (enabled ? "enabled" : "disabled")).formatted(
+                        enabled ? Formatting.GREEN : Formatting.RED)
+        );
+        // A merged quad spans several blocks, so it can't be an instance of the unit block
+        if (enabled && ConfigManager.isXRayMergeFaces()) {
+            context.getSource().sendMessage(
+                    Text.literal("  Faces stay baked while face merging is on; outlines are instanced").formatted(Formatting.GRAY)
+            );
+        }
+        return 1;
+    }
+
     private static int setESPFade(CommandContext<ServerCommandSource> context, boolean enabled) {
         ConfigManager.setESPFadeEnabled(enabled);
         context.getSource().sendMessage(
@@ -178,11 +378,115 @@ public class AdvancedCommands {
         return 1;
     }
 
+    private static int setScanThreads(CommandContext<ServerCommandSource> context) {
+        int count = IntegerArgumentType.getInteger(context, "count");
+        ConfigManager.setScanThreads(count);
+        context.getSource().sendMessage(
+                Text.literal("Scan threads set to " + count + " (applies to the next scan)").formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setMaxBlocksPerTick(CommandContext<ServerCommandSource> context) {
+        int blocks = IntegerArgumentType.getInteger(context, "blocks");
+        StateSettings.setMaxBlocksPerTick(blocks);
+        context.getSource().sendMessage(
+                Text.literal("Scanning at most " + blocks + " blocks per tick").formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setArchiveMaxBlocks(CommandContext<ServerCommandSource> context) {
+        int blocks = IntegerArgumentType.getInteger(context, "blocks");
+        ConfigManager.setArchiveMaxBlocks(blocks);
+        context.getSource().sendMessage(
+                Text.literal(blocks > 0 ? "Keeping up to " + blocks + " results of unloaded chunks" : "Results of unloaded chunks are dropped")
+                        .formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setCacheMaxMb(CommandContext<ServerCommandSource> context) {
+        int mb = IntegerArgumentType.getInteger(context, "mb");
+        ConfigManager.setCacheMaxMb(mb);
+        context.getSource().sendMessage(
+                Text.literal(mb > 0 ? "Result cache limited to " + mb + " MB" : "Result cache disabled")
+                        .formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setCacheTtl(CommandContext<ServerCommandSource> context) {
+        int seconds = IntegerArgumentType.getInteger(context, "seconds");
+        ConfigManager.setCacheTtlSeconds(seconds);
+        context.getSource().sendMessage(
+                Text.literal(seconds > 0 ? "Cached results expire after " + seconds + " s unused" : "Cached results never expire")
+                        .formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setSnapshotBudget(CommandContext<ServerCommandSource> context) {
+        int micros = IntegerArgumentType.getInteger(context, "micros");
+        ConfigManager.setSnapshotBudgetMicros(micros);
+        context.getSource().sendMessage(
+                Text.literal("Scan budget set to " + micros + " µs per tick (lowered automatically on slow frames)").formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setScanGrain(CommandContext<ServerCommandSource> context) {
+        int chunks = IntegerArgumentType.getInteger(context, "chunks");
+        ConfigManager.setScanChunksPerTask(chunks);
+        context.getSource().sendMessage(
+                Text.literal("Scan task size set to " + chunks + " chunks").formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setScanLookBias(CommandContext<ServerCommandSource> context) {
+        int bias = IntegerArgumentType.getInteger(context, "value");
+        ConfigManager.setScanLookBias(bias / 100.0f);
+        context.getSource().sendMessage(
+                Text.literal("Scan look-direction bias set to " + bias + "%").formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setStreamingScan(CommandContext<ServerCommandSource> context, boolean enabled) {
+        ConfigManager.setStreamingScan(enabled);
+        context.getSource().sendMessage(
+                Text.literal("Streaming scan " + (enabled ? "enabled" : "disabled")).formatted(
+                        enabled ? Formatting.GREEN : Formatting.RED)
+        );
+
+        // Chunks that are already loaded won't fire a load event, so cover them once
+        if (enabled) {
+            ScanController.startScan();
+        }
+        return 1;
+    }
+
     private static int startScan(CommandContext<ServerCommandSource> context) {
-        ScanController.startScan();
+        ScanJob job = ScanController.startScan();
+        if (job == null) {
+            context.getSource().sendMessage(
+                    Text.literal("Cannot scan outside a world").formatted(Formatting.RED)
+            );
+            return 0;
+        }
+
         context.getSource().sendMessage(
-                Text.literal("Scan started").formatted(Formatting.GREEN)
+                Text.literal("Scan started (" + job.getChunksTotal() + " chunks)").formatted(Formatting.GREEN)
         );
+
+        // Report back once the job ends; cancelled jobs complete exceptionally and stay quiet
+        ServerCommandSource source = context.getSource();
+        job.getCompletion().thenAccept(finished -> MinecraftClient.getInstance().execute(() ->
+                source.sendMessage(Text.literal(String.format("Scan finished in %s - %d sections scanned, %d skipped, %s",
+                        ScanJob.formatDuration(finished.getElapsedMillis()),
+                        finished.getSectionsScanned(), finished.getSectionsSkipped(),
+                        ScanJob.formatRate(finished.getBlocksPerSecond()))).formatted(Formatting.GREEN))));
         return 1;
     }
 
@@ -202,6 +506,472 @@ public class AdvancedCommands {
         }
     }
 
+    private static int showProfile(CommandContext<ServerCommandSource> context) {
+        ScanProfile profile = ConfigManager.getActiveProfile();
+        context.getSource().sendMessage(
+                Text.literal("Profile: ").formatted(Formatting.YELLOW)
+                        .append(Text.literal(profile.getName()).formatted(Formatting.GREEN))
+                        .append(Text.literal(" (" + profile.describe() + ")").formatted(Formatting.GRAY))
+        );
+        for (String target : profile.getTargets()) {
+            context.getSource().sendMessage(Text.literal("  " + target).formatted(Formatting.GRAY));
+        }
+        return 1;
+    }
+
+    private static int listProfiles(CommandContext<ServerCommandSource> context) {
+        String active = ConfigManager.getActiveProfile().getName();
+        context.getSource().sendMessage(
+                Text.literal("=== Scan Profiles ===").formatted(Formatting.GOLD)
+        );
+        for (ScanProfile profile : ConfigManager.getScanProfiles().values()) {
+            boolean isActive = profile.getName().equals(active);
+            context.getSource().sendMessage(
+                    Text.literal((isActive ? "> " : "  ") + profile.getName())
+                            .formatted(isActive ? Formatting.GREEN : Formatting.YELLOW)
+                            .append(Text.literal(" - " + profile.describe()).formatted(Formatting.GRAY))
+            );
+        }
+        return 1;
+    }
+
+    private static int setProfile(CommandContext<ServerCommandSource> context) {
+        String name = StringArgumentType.getString(context, "name");
+        if (!ConfigManager.setActiveProfile(name)) {
+            context.getSource().sendMessage(
+                    Text.literal("Unknown profile: " + name).formatted(Formatting.RED)
+            );
+            return 0;
+        }
+
+        ScanController.getInstance().onProfileChanged();
+        context.getSource().sendMessage(
+                Text.literal("Active profile: " + name).formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    // New profiles start as a copy of the active one
+    private static int createProfile(CommandContext<ServerCommandSource> context) {
+        String name = StringArgumentType.getString(context, "name");
+        if (ConfigManager.getScanProfile(name) != null) {
+            context.getSource().sendMessage(
+                    Text.literal("Profile already exists: " + name).formatted(Formatting.RED)
+            );
+            return 0;
+        }
+
+        ConfigManager.saveScanProfile(ConfigManager.getActiveProfile().copy(name));
+        ConfigManager.setActiveProfile(name);
+        ScanController.getInstance().onProfileChanged();
+        context.getSource().sendMessage(
+                Text.literal("Created and selected profile " + name).formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int deleteProfile(CommandContext<ServerCommandSource> context) {
+        String name = StringArgumentType.getString(context, "name");
+        if (!ConfigManager.removeScanProfile(name)) {
+            context.getSource().sendMessage(
+                    Text.literal("Cannot delete profile: " + name).formatted(Formatting.RED)
+            );
+            return 0;
+        }
+
+        ScanController.getInstance().onProfileChanged();
+        context.getSource().sendMessage(
+                Text.literal("Deleted profile " + name).formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setProfileRadius(CommandContext<ServerCommandSource> context) {
+        int radius = IntegerArgumentType.getInteger(context, "blocks");
+        ScanProfile profile = ConfigManager.getActiveProfile();
+        profile.setRadius(radius);
+        ConfigManager.saveScanProfile(profile);
+        context.getSource().sendMessage(
+                Text.literal("Profile " + profile.getName() + " radius: "
+                        + (radius > 0 ? radius + " blocks" : "scan range")).formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    // Space or comma separated ids, "minecraft:" may be left out. "clear" goes back to the tracked blocks.
+    private static int setProfileTargets(CommandContext<ServerCommandSource> context) {
+        String input = StringArgumentType.getString(context, "blocks").trim();
+        Set<String> targets = new LinkedHashSet<>();
+        if (!input.equalsIgnoreCase("clear")) {
+            for (String id : input.split("[,\\s]+")) {
+                if (!id.isEmpty()) {
+                    targets.add(id.contains(":") ? id : "minecraft:" + id);
+                }
+            }
+        }
+
+        ScanProfile profile = ConfigManager.getActiveProfile();
+        profile.setTargets(targets);
+        ConfigManager.saveScanProfile(profile);
+        ScanController.getInstance().onProfileChanged();
+        context.getSource().sendMessage(
+                Text.literal("Profile " + profile.getName() + " targets: "
+                        + (targets.isEmpty() ? "tracked blocks" : String.join(", ", targets))).formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int listQueries(CommandContext<ServerCommandSource> context) {
+        Map<String, ScanQuery.Action> queries = ConfigManager.getScanQueries();
+        context.getSource().sendMessage(
+                Text.literal("=== Scan Queries (" + queries.size() + "/" + QuerySet.MAX_QUERIES + ") ===").formatted(Formatting.GOLD)
+        );
+        if (queries.isEmpty()) {
+            context.getSource().sendMessage(
+                    Text.literal("None - add one with /neoscanner query add <profile> <log|alert>").formatted(Formatting.GRAY)
+            );
+        }
+        queries.forEach((name, action) -> {
+            ScanProfile profile = ConfigManager.getScanProfile(name);
+            context.getSource().sendMessage(
+                    Text.literal(name + " -> " + action.name().toLowerCase()).formatted(Formatting.YELLOW)
+                            .append(Text.literal(profile != null ? " (" + profile.describe() + ")" : " (missing profile)")
+                                    .formatted(Formatting.GRAY))
+            );
+        });
+        return 1;
+    }
+
+    // Queries ride along with every scan, answered in the same pass over each section
+    private static int addQuery(CommandContext<ServerCommandSource> context, ScanQuery.Action action) {
+        String name = StringArgumentType.getString(context, "profile");
+        if (ConfigManager.getScanProfile(name) == null) {
+            context.getSource().sendMessage(
+                    Text.literal("Unknown profile: " + name).formatted(Formatting.RED)
+            );
+            return 0;
+        }
+        if (!ConfigManager.getScanQueries().containsKey(name)
+                && ConfigManager.getScanQueries().size() >= QuerySet.MAX_QUERIES) {
+            context.getSource().sendMessage(
+                    Text.literal("At most " + QuerySet.MAX_QUERIES + " queries").formatted(Formatting.RED)
+            );
+            return 0;
+        }
+
+        ConfigManager.setScanQuery(name, action);
+        ScanController.getInstance().onQueriesChanged();
+        context.getSource().sendMessage(
+                Text.literal("Query " + name + " will " + action.name().toLowerCase() + " its hits").formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int removeQuery(CommandContext<ServerCommandSource> context) {
+        String name = StringArgumentType.getString(context, "profile");
+        if (!ConfigManager.removeScanQuery(name)) {
+            context.getSource().sendMessage(
+                    Text.literal("No query for profile " + name).formatted(Formatting.RED)
+            );
+            return 0;
+        }
+
+        ScanController.getInstance().onQueriesChanged();
+        context.getSource().sendMessage(
+                Text.literal("Removed query " + name).formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int clearQueries(CommandContext<ServerCommandSource> context) {
+        ConfigManager.clearScanQueries();
+        ScanController.getInstance().onQueriesChanged();
+        context.getSource().sendMessage(
+                Text.literal("All queries removed").formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setYRange(CommandContext<ServerCommandSource> context, int minY, int maxY) {
+        ScanProfile profile = ConfigManager.getActiveProfile();
+        profile.setYWindow(minY, maxY);
+        ConfigManager.saveScanProfile(profile);
+        ScanController.getInstance().onProfileChanged();
+        context.getSource().sendMessage(
+                Text.literal("Profile " + profile.getName() + " scans Y " + profile.getMinY() + ".." + profile.getMaxY())
+                        .formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setYLevel(CommandContext<ServerCommandSource> context, int spread) {
+        int y = IntegerArgumentType.getInteger(context, "y");
+        return setYRange(context, y - spread, y + spread);
+    }
+
+    private static int clearYRange(CommandContext<ServerCommandSource> context) {
+        ScanProfile profile = ConfigManager.getActiveProfile();
+        profile.clearYWindow();
+        ConfigManager.saveScanProfile(profile);
+        ScanController.getInstance().onProfileChanged();
+        context.getSource().sendMessage(
+                Text.literal("Profile " + profile.getName() + " scans around the player again").formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setExposedOnly(CommandContext<ServerCommandSource> context, boolean enabled) {
+        ConfigManager.setExposedOnly(enabled);
+        // Cached and archived results were filtered the other way
+        ScanController.getInstance().onProfileChanged();
+        context.getSource().sendMessage(
+                Text.literal(enabled ? "Only blocks touching air are reported" : "Buried blocks are reported again")
+                        .formatted(enabled ? Formatting.GREEN : Formatting.RED)
+        );
+        return 1;
+    }
+
+    private static int setAutoScan(CommandContext<ServerCommandSource> context, boolean enabled) {
+        ConfigManager.setAutoScan(enabled);
+        context.getSource().sendMessage(
+                Text.literal("Auto-scan " + (enabled ? "enabled" : "disabled")).formatted(
+                        enabled ? Formatting.GREEN : Formatting.RED)
+        );
+        return 1;
+    }
+
+    private static int setAutoScanHysteresis(CommandContext<ServerCommandSource> context) {
+        int chunks = IntegerArgumentType.getInteger(context, "chunks");
+        ConfigManager.setAutoScanHysteresis(chunks);
+        context.getSource().sendMessage(
+                Text.literal("Auto-scan keeps results " + chunks + " chunks past the radius").formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int setVeinMode(CommandContext<ServerCommandSource> context, boolean enabled) {
+        ConfigManager.setVeinMode(enabled);
+        context.getSource().sendMessage(
+                Text.literal("Vein mode " + (enabled ? "enabled" : "disabled")).formatted(
+                        enabled ? Formatting.GREEN : Formatting.RED)
+        );
+        return 1;
+    }
+
+    private static int setVeinDiagonal(CommandContext<ServerCommandSource> context, boolean enabled) {
+        ConfigManager.setVeinDiagonal(enabled);
+        context.getSource().sendMessage(
+                Text.literal("Veins join " + (enabled ? "touching edges and corners" : "shared faces only"))
+                        .formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    // The result index belongs to the client thread
+    private static int listVeins(CommandContext<ServerCommandSource> context) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        client.execute(() -> {
+            if (client.player == null) {
+                return;
+            }
+            List<Vein> veins = new ArrayList<>(ScanResultIndex.getInstance().getVeins());
+            double x = client.player.getX(), y = client.player.getY(), z = client.player.getZ();
+            veins.sort(Comparator.comparingDouble(vein -> vein.squaredDistanceTo(x, y, z)));
+
+            context.getSource().sendMessage(
+                    Text.literal("=== Veins (" + veins.size() + ") ===").formatted(Formatting.GOLD)
+            );
+            for (Vein vein : veins.subList(0, Math.min(10, veins.size()))) {
+                context.getSource().sendMessage(
+                        Text.literal(vein.toString()).formatted(Formatting.YELLOW)
+                                .append(Text.literal(String.format(" (%.0f m)", Math.sqrt(vein.squaredDistanceTo(x, y, z))))
+                                        .formatted(Formatting.GRAY))
+                );
+            }
+        });
+        return 1;
+    }
+
+    private static int setDensityHud(CommandContext<ServerCommandSource> context, boolean enabled) {
+        ConfigManager.setDensityHud(enabled);
+        context.getSource().sendMessage(
+                Text.literal("Density minimap " + (enabled ? "shown" : "hidden")).formatted(
+                        enabled ? Formatting.GREEN : Formatting.RED)
+        );
+        return 1;
+    }
+
+    // Where the most hits are: by Y band overall, then by direction within the best bands.
+    // The density map belongs to the client thread.
+    private static int showDensity(CommandContext<ServerCommandSource> context, String blockId) {
+        ServerCommandSource source = context.getSource();
+        ConfigManager.setDensityBlock(blockId);
+        MinecraftClient client = MinecraftClient.getInstance();
+        client.execute(() -> {
+            if (client.player == null) {
+                return;
+            }
+
+            DensityMap density = DensityMap.getInstance();
+            int type = blockId.isEmpty() ? -1 : density.getTypeIndex(blockId);
+            if (!blockId.isEmpty() && type < 0) {
+                source.sendMessage(Text.literal("No " + blockId + " counted yet").formatted(Formatting.RED));
+                return;
+            }
+
+            long[] bands = density.getBandTotals(type);
+            long total = 0;
+            int best = 0;
+            for (int band = 0; band < bands.length; band++) {
+                total += bands[band];
+                if (bands[band] > bands[best]) {
+                    best = band;
+                }
+            }
+            source.sendMessage(Text.literal("=== Density of " + (blockId.isEmpty() ? "all targets" : blockId) + " ===")
+                    .formatted(Formatting.GOLD));
+            source.sendMessage(Text.literal(total + " hits over " + density.getChunkCount() + " chunks").formatted(Formatting.YELLOW));
+            if (total == 0) {
+                return;
+            }
+
+            // Richest bands, highest count first
+            Integer[] order = new Integer[bands.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(bands[b], bands[a]));
+            for (int i = 0; i < Math.min(4, order.length) && bands[order[i]] > 0; i++) {
+                int minY = density.getBandMinY(order[i]);
+                source.sendMessage(Text.literal(String.format("  Y %d..%d: %d", minY, minY + 15, bands[order[i]]))
+                        .formatted(Formatting.YELLOW));
+            }
+
+            // Directions around the player within the best band and its neighbours
+            int minBand = Math.max(0, best - 1);
+            int maxBand = Math.min(bands.length - 1, best + 1);
+            ChunkPos center = client.player.getChunkPos();
+            long[] directions = density.getDirectionTotals(center.x, center.z, type, minBand, maxBand);
+            StringBuilder line = new StringBuilder();
+            Integer[] directionOrder = {0, 1, 2, 3, 4, 5, 6, 7};
+            Arrays.sort(directionOrder, (a, b) -> Long.compare(directions[b], directions[a]));
+            for (int sector : directionOrder) {
+                if (directions[sector] > 0) {
+                    line.append(line.length() > 0 ? ", " : "").append(DensityMap.DIRECTIONS[sector]).append(' ').append(directions[sector]);
+                }
+            }
+            source.sendMessage(Text.literal(String.format("  Around Y %d..%d: ", density.getBandMinY(minBand), density.getBandMinY(maxBand) + 15))
+                    .formatted(Formatting.YELLOW)
+                    .append(Text.literal(line.length() > 0 ? line.toString() : "nothing nearby").formatted(Formatting.GRAY)));
+        });
+        return 1;
+    }
+
+    // The result index belongs to the client thread
+    private static int showNearest(CommandContext<ServerCommandSource> context, int count, String blockId) {
+        ServerCommandSource source = context.getSource();
+        MinecraftClient client = MinecraftClient.getInstance();
+        client.execute(() -> {
+            if (client.player == null) {
+                return;
+            }
+
+            double x = client.player.getX(), y = client.player.getY(), z = client.player.getZ();
+            HitList nearest = ScanResultIndex.getInstance().nearest(x, y, z, count, blockId);
+            if (nearest.isEmpty()) {
+                source.sendMessage(Text.literal("No " + (blockId != null ? blockId : "hits") + " found").formatted(Formatting.RED));
+                return;
+            }
+
+            source.sendMessage(Text.literal("=== Nearest " + (blockId != null ? blockId : "hits") + " ===").formatted(Formatting.GOLD));
+            for (int i = 0; i < nearest.size(); i++) {
+                source.sendMessage(
+                        Text.literal(nearest.getBlockId(i) + " at " + nearest.getX(i) + " " + nearest.getY(i) + " " + nearest.getZ(i))
+                                .formatted(Formatting.YELLOW)
+                                .append(Text.literal(String.format(" (%.0f m)", Math.sqrt(nearest.squaredDistanceTo(i, x, y, z))))
+                                        .formatted(Formatting.GRAY))
+                );
+            }
+        });
+        return 1;
+    }
+
+    // Reads the search cache snapshot, so unlike nearest it doesn't hop to the client thread
+    private static int showChunkHits(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        BlockPos origin = BlockPos.ofFloored(source.getPosition());
+        ChunkPos chunkPos = new ChunkPos(origin);
+        BlockSearchCache.CachedChunk chunk = BlockSearchCache.getInstance().getChunk(chunkPos);
+        if (chunk == null || chunk.size() == 0) {
+            source.sendMessage(Text.literal("No hits in chunk " + chunkPos.x + ", " + chunkPos.z).formatted(Formatting.RED));
+            return 0;
+        }
+
+        List<BlockPos> hits = new ArrayList<>(chunk.size());
+        chunk.forEach(pos -> hits.add(BlockPos.fromLong(pos)));
+        hits.sort(Comparator.comparingDouble(pos -> pos.getSquaredDistance(origin)));
+
+        source.sendMessage(Text.literal("=== " + hits.size() + " hits in chunk " + chunkPos.x + ", " + chunkPos.z + " ===")
+                .formatted(Formatting.GOLD));
+        for (int i = 0; i < Math.min(10, hits.size()); i++) {
+            BlockPos pos = hits.get(i);
+            source.sendMessage(
+                    Text.literal(pos.getX() + " " + pos.getY() + " " + pos.getZ()).formatted(Formatting.YELLOW)
+                            .append(Text.literal(String.format(" (%.0f m)", Math.sqrt(pos.getSquaredDistance(origin))))
+                                    .formatted(Formatting.GRAY))
+            );
+        }
+        if (hits.size() > 10) {
+            source.sendMessage(Text.literal("  ..." + (hits.size() - 10) + " more").formatted(Formatting.GRAY));
+        }
+        return 1;
+    }
+
+    private static int showStats(CommandContext<ServerCommandSource> context) {
+        ChunkCache cache = ChunkCache.getInstance();
+        long hits = cache.getHits();
+        long lookups = hits + cache.getMisses();
+        context.getSource().sendMessage(
+                Text.literal("=== Neoporium Scanner Stats ===").formatted(Formatting.GOLD)
+        );
+        context.getSource().sendMessage(
+                Text.literal(String.format("Result cache: %d chunks, %.1f/%.0f MB", cache.size(),
+                        cache.getWeight() / (1024.0 * 1024.0), cache.getMaxWeight() / (1024.0 * 1024.0))).formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal(String.format("  %d hits, %d misses (%.0f%% hit rate)", hits, cache.getMisses(),
+                        lookups > 0 ? hits * 100.0 / lookups : 0.0)).formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("  " + cache.getEvictions() + " evicted for size, " + cache.getExpirations() + " expired")
+                        .formatted(Formatting.YELLOW)
+        );
+        return 1;
+    }
+
+    private static int resetStats(CommandContext<ServerCommandSource> context) {
+        ChunkCache.getInstance().resetStats();
+        context.getSource().sendMessage(
+                Text.literal("Stats reset").formatted(Formatting.GREEN)
+        );
+        return 1;
+    }
+
+    private static int runBenchmark(CommandContext<ServerCommandSource> context) {
+        context.getSource().sendMessage(
+                Text.literal("Benchmarking section decoders...").formatted(Formatting.YELLOW)
+        );
+
+        // Takes a couple of seconds, keep it off the game threads
+        ServerCommandSource source = context.getSource();
+        CompletableFuture.supplyAsync(DecoderBenchmark::run).thenAccept(lines -> MinecraftClient.getInstance().execute(() -> {
+            for (String line : lines) {
+                source.sendMessage(Text.literal(line).formatted(Formatting.GREEN));
+            }
+        }));
+        return 1;
+    }
+
     private static int reloadConfig(CommandContext<ServerCommandSource> context) {
         ConfigManager.load();
         context.getSource().sendMessage(
@@ -251,6 +1021,11 @@ public class AdvancedCommands {
                         .append(Text.literal(ConfigManager.isXRaySeeThrough() ? "YES" : "NO")
                                 .formatted(ConfigManager.isXRaySeeThrough() ? Formatting.GREEN : Formatting.RED))
         );
+        context.getSource().sendMessage(
+                Text.literal("Merge Faces: ").formatted(Formatting.YELLOW)
+                        .append(Text.literal(ConfigManager.isXRayMergeFaces() ? "YES" : "NO")
+                                .formatted(ConfigManager.isXRayMergeFaces() ? Formatting.GREEN : Formatting.RED))
+        );
         return 1;
     }
 
@@ -286,10 +1061,44 @@ public class AdvancedCommands {
         );
 
         // Scanning status
+        ScanJob job = ScanController.getInstance().getCurrentJob();
+        if (job != null && !job.isDone()) {
+            context.getSource().sendMessage(
+                    Text.literal("Scanning: ").formatted(Formatting.YELLOW)
+                            .append(Text.literal(progressBar(job.getProgress(), 20)).formatted(Formatting.GREEN))
+                            .append(Text.literal(String.format(" %d%%", (int) (job.getProgress() * 100))).formatted(Formatting.GREEN))
+            );
+            context.getSource().sendMessage(
+                    Text.literal(String.format("  %d/%d chunks, %d sections skipped, %s, ETA %s",
+                            job.getChunksDone(), job.getChunksTotal(), job.getSectionsSkipped(),
+                            ScanJob.formatRate(job.getBlocksPerSecond()),
+                            ScanJob.formatDuration(job.getEtaMillis()))).formatted(Formatting.GRAY)
+            );
+        } else {
+            context.getSource().sendMessage(
+                    Text.literal("Scanning: ").formatted(Formatting.YELLOW)
+                            .append(Text.literal("IDLE").formatted(Formatting.RED))
+            );
+            if (job != null) {
+                context.getSource().sendMessage(
+                        Text.literal(String.format("  Last scan: %s%s, %s",
+                                ScanJob.formatDuration(job.getElapsedMillis()),
+                                job.isCancelled() ? " (cancelled)" : "",
+                                ScanJob.formatRate(job.getBlocksPerSecond()))).formatted(Formatting.GRAY)
+                );
+            }
+        }
+
         context.getSource().sendMessage(
-                Text.literal("Scanning: ").formatted(Formatting.YELLOW)
-                        .append(Text.literal(ScanController.isScanning() ? "ACTIVE" : "INACTIVE")
-                                .formatted(ScanController.isScanning() ? Formatting.GREEN : Formatting.RED))
+                Text.literal("Streaming: ").formatted(Formatting.YELLOW)
+                        .append(Text.literal(ConfigManager.isStreamingScan() ? "ON" : "OFF")
+                                .formatted(ConfigManager.isStreamingScan() ? Formatting.GREEN : Formatting.RED))
+        );
+
+        BlockSearchCache searchCache = BlockSearchCache.getInstance();
+        context.getSource().sendMessage(
+                Text.literal("Results: " + searchCache.getCachedBlockCount() + " hits in " + searchCache.getChunkCount() + " chunks")
+                        .formatted(Formatting.YELLOW)
         );
 
         // XRay status
@@ -312,6 +1121,62 @@ public class AdvancedCommands {
                 Text.literal("Scan Range: " + ConfigManager.getScanRange() + " blocks").formatted(Formatting.YELLOW)
         );
 
+        // Profile info
+        ScanProfile profile = ConfigManager.getActiveProfile();
+        context.getSource().sendMessage(
+                Text.literal("Profile: " + profile.getName()).formatted(Formatting.YELLOW)
+                        .append(Text.literal(" (" + profile.describe() + ")").formatted(Formatting.GRAY))
+        );
+
+        if (!ConfigManager.getScanQueries().isEmpty()) {
+            context.getSource().sendMessage(
+                    Text.literal("Queries: " + String.join(", ", ConfigManager.getScanQueries().keySet())).formatted(Formatting.YELLOW)
+            );
+        }
+
+        // Scan engine info
+        ScanEngine engine = ScanEngine.getInstance();
+        context.getSource().sendMessage(
+                Text.literal("Scan Threads: " + ConfigManager.getScanThreads()).formatted(Formatting.YELLOW)
+                        .append(Text.literal(" (pool " + engine.getParallelism()
+                                + ", active " + engine.getActiveThreadCount()
+                                + ", " + ConfigManager.getScanChunksPerTask() + " chunks/task"
+                                + ", " + engine.getStealCount() + " steals)").formatted(Formatting.GRAY))
+        );
+        context.getSource().sendMessage(
+                Text.literal("Exposed only: ").formatted(Formatting.YELLOW)
+                        .append(Text.literal(ConfigManager.isExposedOnly() ? "ON" : "OFF")
+                                .formatted(ConfigManager.isExposedOnly() ? Formatting.GREEN : Formatting.RED))
+        );
+        context.getSource().sendMessage(
+                Text.literal("Auto-scan: ").formatted(Formatting.YELLOW)
+                        .append(Text.literal(ConfigManager.isAutoScan() ? "ON" : "OFF")
+                                .formatted(ConfigManager.isAutoScan() ? Formatting.GREEN : Formatting.RED))
+                        .append(Text.literal(" (hysteresis " + ConfigManager.getAutoScanHysteresis() + " chunks)").formatted(Formatting.GRAY))
+        );
+        context.getSource().sendMessage(
+                Text.literal("Veins: ").formatted(Formatting.YELLOW)
+                        .append(Text.literal(ConfigManager.isVeinMode() ? "ON" : "OFF")
+                                .formatted(ConfigManager.isVeinMode() ? Formatting.GREEN : Formatting.RED))
+                        .append(Text.literal(ConfigManager.isVeinDiagonal() ? " (diagonal)" : " (faces)").formatted(Formatting.GRAY))
+        );
+        ResultArchive archive = ResultArchive.getInstance();
+        context.getSource().sendMessage(
+                Text.literal("Archive: " + archive.getBlockCount() + "/" + ConfigManager.getArchiveMaxBlocks() + " blocks").formatted(Formatting.YELLOW)
+                        .append(Text.literal(" (" + archive.getChunkCount() + " chunks in " + archive.getWorldCount() + " worlds)").formatted(Formatting.GRAY))
+        );
+        context.getSource().sendMessage(
+                Text.literal("Decoder: " + SectionDecoders.get().getName()).formatted(Formatting.YELLOW)
+        );
+        ScanScheduler scheduler = ScanScheduler.getInstance();
+        context.getSource().sendMessage(
+                Text.literal("Scheduler: " + scheduler.size() + " chunks queued").formatted(Formatting.YELLOW)
+                        .append(Text.literal(String.format(" (budget %d/%d µs, max %d blocks/tick, frame %.1f ms, %d spikes, %d pooled buffers)",
+                                scheduler.getLastBudgetNanos() / 1000, ConfigManager.getSnapshotBudgetMicros(),
+                                StateSettings.getMaxBlocksPerTick(), scheduler.getAverageFrameMillis(),
+                                scheduler.getSpikeCount(), SnapshotPool.getPooledCount())).formatted(Formatting.GRAY))
+        );
+
         // Help hint
         context.getSource().sendMessage(
                 Text.literal("Use /neoscanner help for commands").formatted(Formatting.GRAY)
@@ -320,6 +1185,15 @@ public class AdvancedCommands {
         return 1;
     }
 
+    private static String progressBar(float progress, int width) {
+        int filled = Math.round(progress * width);
+        StringBuilder bar = new StringBuilder("[");
+        for (int i = 0; i < width; i++) {
+            bar.append(i < filled ? '|' : '.');
+        }
+        return bar.append(']').toString();
+    }
+
     private static int showHelp(CommandContext<ServerCommandSource> context) {
         context.getSource().sendMessage(
                 Text.literal("=== Neoporium Scanner Commands ===").formatted(Formatting.GOLD)
@@ -328,13 +1202,49 @@ public class AdvancedCommands {
                 Text.literal("/neoscanner gui - Open GUI").formatted(Formatting.YELLOW)
         );
         context.getSource().sendMessage(
-                Text.literal("/neoscanner xray <on|off|opacity|range> - XRay controls").formatted(Formatting.YELLOW)
+                Text.literal("/neoscanner xray <on|off|opacity|range|merge> - XRay controls").formatted(Formatting.YELLOW)
         );
         context.getSource().sendMessage(
                 Text.literal("/neoscanner esp <on|off|mode|thickness|range|fade|colors> - ESP controls").formatted(Formatting.YELLOW)
         );
         context.getSource().sendMessage(
-                Text.literal("/neoscanner scan <start|stop|range> - Scanning controls").formatted(Formatting.YELLOW)
+                Text.literal("/neoscanner scan <start|stop|range|stream|bias|threads|grain|budget|maxblocks|archive|cache|cachettl> - Scanning controls").formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("/neoscanner profile <list|set|create|delete|radius|targets> - Scan profiles").formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("/neoscanner query <add|remove|clear> - Extra queries answered by every scan").formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("/neoscanner yrange <min> <max|clear>, ylevel <y> [spread] - Profile Y window").formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("/neoscanner exposed <on|off> - Only show blocks touching air").formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("/neoscanner auto <on|off|hysteresis> - Keep the area around you scanned").formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("/neoscanner vein <on|off|diagonal|list> - Group adjacent hits into veins").formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("/neoscanner density [block|hud <on|off>] - Hits by Y band and direction").formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("/neoscanner nearest [count] [block] - Closest hits to you").formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("/neoscanner chunk - Hits in the chunk you're standing in").formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("/neoscanner instancing <on|off> - Draw boxes as instances of one unit mesh (faces only unmerged)").formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("/neoscanner stats [reset] - Result cache hits, misses and evictions").formatted(Formatting.YELLOW)
+        );
+        context.getSource().sendMessage(
+                Text.literal("/neoscanner bench - Compare scalar and vector section decoding").formatted(Formatting.YELLOW)
         );
         context.getSource().sendMessage(
                 Text.literal("/neoscanner reload - Reload configuration").formatted(Formatting.YELLOW)
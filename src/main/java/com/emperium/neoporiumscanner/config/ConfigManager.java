@@ -1,5 +1,9 @@
 package com.emperium.neoporiumscanner.config;
 
+import com.emperium.neoporiumscanner.cache.ChunkCache;
+import com.emperium.neoporiumscanner.core.BlockMatcher;
+import com.emperium.neoporiumscanner.core.ScanQuery;
+import com.emperium.neoporiumscanner.core.ScanResultIndex;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
@@ -10,6 +14,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -22,6 +27,7 @@ public class ConfigManager {
     private static float xrayOpacity = 0.5f;
     private static boolean xraySeeThrough = true;
     private static int xrayDistance = 64;
+    private static boolean xrayMergeFaces = true;
 
     // ESP settings
     private static boolean espEnabled = false;
@@ -35,6 +41,32 @@ public class ConfigManager {
     private static int scanRange = 96;
     private static Set<String> trackedBlocks = new HashSet<>();
 
+    // Scan engine settings
+    private static int scanThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static int scanChunksPerTask = 4;
+    private static boolean streamingScan = false;
+    private static float scanLookBias = 0.5f; // 0 = pure rings, 1 = strongly favour the look direction
+    private static int scanPublishInterval = 25; // ms between result hand-offs to the renderers
+    private static int snapshotBudgetMicros = 2000; // client thread time per tick for copying chunk sections
+    private static int archiveMaxBlocks = 250000; // results kept for unloaded chunks, 0 = none
+    private static int cacheMaxMb = 32; // memory for cached chunk results, 0 = no cache
+    private static int cacheTtlSeconds = 60; // cached results unused this long are dropped, 0 = never
+    private static boolean densityHud = false; // chunk density minimap in the corner
+    private static boolean instancedRendering = true; // one unit mesh drawn per hit where the driver allows; faces only when not merged
+    private static String densityBlock = ""; // block the minimap counts, empty = all targets
+    private static boolean exposedOnly = false; // only report blocks touching air
+    private static boolean autoScan = false; // keep the area around the player scanned while walking
+    private static int autoScanHysteresis = 2; // chunks past the radius before results are evicted
+
+    // Vein clustering
+    private static boolean veinMode = false; // render and log one box per vein instead of per block
+    private static boolean veinDiagonal = false; // also join blocks touching at edges and corners
+
+    // Scan profiles
+    private static Map<String, ScanProfile> scanProfiles = new LinkedHashMap<>();
+    private static String activeProfile = "default";
+    private static Map<String, ScanQuery.Action> scanQueries = new LinkedHashMap<>(); // profile name -> action
+
     static {
         // Default ESP colors
         espColors.put("minecraft:diamond_ore", new int[]{85, 255, 255}); // Cyan
@@ -48,6 +80,26 @@ public class ConfigManager {
 
         // Default tracked blocks
         trackedBlocks.addAll(espColors.keySet());
+
+        addDefaultProfiles();
+    }
+
+    private static void addDefaultProfiles() {
+        scanProfiles.putIfAbsent("default", new ScanProfile("default"));
+
+        if (!scanProfiles.containsKey("diamonds")) {
+            ScanProfile diamonds = new ScanProfile("diamonds");
+            diamonds.setYWindow(-64, 16);
+            diamonds.setTargets(Set.of("minecraft:diamond_ore", "minecraft:deepslate_diamond_ore"));
+            scanProfiles.put("diamonds", diamonds);
+        }
+
+        if (!scanProfiles.containsKey("debris")) {
+            ScanProfile debris = new ScanProfile("debris");
+            debris.setYWindow(8, 24);
+            debris.setTargets(Set.of("minecraft:ancient_debris"));
+            scanProfiles.put("debris", debris);
+        }
     }
 
     public static void load() {
@@ -64,6 +116,7 @@ public class ConfigManager {
                 xrayOpacity = getFloat(config, "xrayOpacity", xrayOpacity);
                 xraySeeThrough = getBoolean(config, "xraySeeThrough", xraySeeThrough);
                 xrayDistance = getInt(config, "xrayDistance", xrayDistance);
+                xrayMergeFaces = getBoolean(config, "xrayMergeFaces", xrayMergeFaces);
 
                 espEnabled = getBoolean(config, "espEnabled", espEnabled);
                 espMode = getString(config, "espMode", espMode);
@@ -90,10 +143,53 @@ public class ConfigManager {
                         System.err.println("Failed to load tracked blocks: " + e.getMessage());
                     }
                 }
+
+                scanThreads = getInt(config, "scanThreads", scanThreads);
+                scanChunksPerTask = getInt(config, "scanChunksPerTask", scanChunksPerTask);
+                streamingScan = getBoolean(config, "streamingScan", streamingScan);
+                scanLookBias = getFloat(config, "scanLookBias", scanLookBias);
+                scanPublishInterval = getInt(config, "scanPublishInterval", scanPublishInterval);
+                snapshotBudgetMicros = getInt(config, "snapshotBudgetMicros", snapshotBudgetMicros);
+                archiveMaxBlocks = getInt(config, "archiveMaxBlocks", archiveMaxBlocks);
+                cacheMaxMb = getInt(config, "cacheMaxMb", cacheMaxMb);
+                cacheTtlSeconds = getInt(config, "cacheTtlSeconds", cacheTtlSeconds);
+                densityHud = getBoolean(config, "densityHud", densityHud);
+                instancedRendering = getBoolean(config, "instancedRendering", instancedRendering);
+                densityBlock = getString(config, "densityBlock", densityBlock);
+                exposedOnly = getBoolean(config, "exposedOnly", exposedOnly);
+                autoScan = getBoolean(config, "autoScan", autoScan);
+                autoScanHysteresis = getInt(config, "autoScanHysteresis", autoScanHysteresis);
+                veinMode = getBoolean(config, "veinMode", veinMode);
+                veinDiagonal = getBoolean(config, "veinDiagonal", veinDiagonal);
+
+                if (config.containsKey("scanProfiles")) {
+                    try {
+                        scanProfiles = GSON.fromJson(GSON.toJson(config.get("scanProfiles")),
+                                new TypeToken<LinkedHashMap<String, ScanProfile>>(){}.getType());
+                        scanProfiles.forEach((name, profile) -> profile.setName(name));
+                    } catch (Exception e) {
+                        System.err.println("Failed to load scan profiles: " + e.getMessage());
+                        scanProfiles = new LinkedHashMap<>();
+                    }
+                    addDefaultProfiles();
+                }
+                activeProfile = getString(config, "activeProfile", activeProfile);
+
+                if (config.containsKey("scanQueries")) {
+                    try {
+                        scanQueries = GSON.fromJson(GSON.toJson(config.get("scanQueries")),
+                                new TypeToken<LinkedHashMap<String, ScanQuery.Action>>(){}.getType());
+                    } catch (Exception e) {
+                        System.err.println("Failed to load scan queries: " + e.getMessage());
+                    }
+                }
             }
         } catch (IOException e) {
             System.err.println("Failed to load config: " + e.getMessage());
         }
+
+        // Tracked blocks and colors may have changed
+        BlockMatcher.invalidate();
     }
 
     public static void save() {
@@ -104,6 +200,7 @@ public class ConfigManager {
         config.put("xrayOpacity", xrayOpacity);
         config.put("xraySeeThrough", xraySeeThrough);
         config.put("xrayDistance", xrayDistance);
+        config.put("xrayMergeFaces", xrayMergeFaces);
 
         // ESP settings
         config.put("espEnabled", espEnabled);
@@ -117,6 +214,30 @@ public class ConfigManager {
         config.put("scanRange", scanRange);
         config.put("trackedBlocks", trackedBlocks);
 
+        // Scan engine settings
+        config.put("scanThreads", scanThreads);
+        config.put("scanChunksPerTask", scanChunksPerTask);
+        config.put("streamingScan", streamingScan);
+        config.put("scanLookBias", scanLookBias);
+        config.put("scanPublishInterval", scanPublishInterval);
+        config.put("snapshotBudgetMicros", snapshotBudgetMicros);
+        config.put("archiveMaxBlocks", archiveMaxBlocks);
+        config.put("cacheMaxMb", cacheMaxMb);
+        config.put("cacheTtlSeconds", cacheTtlSeconds);
+        config.put("densityHud", densityHud);
+        config.put("instancedRendering", instancedRendering);
+        config.put("densityBlock", densityBlock);
+        config.put("exposedOnly", exposedOnly);
+        config.put("autoScan", autoScan);
+        config.put("autoScanHysteresis", autoScanHysteresis);
+        config.put("veinMode", veinMode);
+        config.put("veinDiagonal", veinDiagonal);
+
+        // Scan profiles
+        config.put("scanProfiles", scanProfiles);
+        config.put("activeProfile", activeProfile);
+        config.put("scanQueries", scanQueries);
+
         try (FileWriter writer = new FileWriter(CONFIG_PATH.toFile())) {
             GSON.toJson(config, writer);
         } catch (IOException e) {
@@ -164,6 +285,10 @@ public class ConfigManager {
     public static int getXRayDistance() { return xrayDistance; }
     public static void setXRayDistance(int distance) { xrayDistance = Math.max(1, Math.min(512, distance)); save(); }
 
+    // Greedy merging of coplanar faces; meshes are rebuilt when this changes
+    public static boolean isXRayMergeFaces() { return xrayMergeFaces; }
+    public static void setXRayMergeFaces(boolean merge) { xrayMergeFaces = merge; save(); }
+
     // ESP Getters and Setters
     public static boolean isESPEnabled() { return espEnabled; }
     public static void setESPEnabled(boolean enabled) { espEnabled = enabled; save(); }
@@ -188,10 +313,12 @@ public class ConfigManager {
     public static Map<String, int[]> getESPColors() { return new HashMap<>(espColors); }
     public static void setESPColor(String blockId, int r, int g, int b) {
         espColors.put(blockId, new int[]{r, g, b});
+        BlockMatcher.invalidate();
         save();
     }
     public static void removeESPColor(String blockId) {
         espColors.remove(blockId);
+        BlockMatcher.invalidate();
         save();
     }
 
@@ -200,7 +327,120 @@ public class ConfigManager {
     public static void setScanRange(int range) { scanRange = Math.max(1, Math.min(512, range)); save(); }
 
     public static Set<String> getTrackedBlocks() { return new HashSet<>(trackedBlocks); }
-    public static void addTrackedBlock(String blockId) { trackedBlocks.add(blockId); save(); }
-    public static void removeTrackedBlock(String blockId) { trackedBlocks.remove(blockId); save(); }
-    public static void clearTrackedBlocks() { trackedBlocks.clear(); save(); }
+    public static void addTrackedBlock(String blockId) { trackedBlocks.add(blockId); BlockMatcher.invalidate(); save(); }
+    public static void removeTrackedBlock(String blockId) { trackedBlocks.remove(blockId); BlockMatcher.invalidate(); save(); }
+    public static void clearTrackedBlocks() { trackedBlocks.clear(); BlockMatcher.invalidate(); save(); }
+
+    // Scan Engine Getters and Setters
+    public static int getScanThreads() { return scanThreads; }
+    public static void setScanThreads(int threads) { scanThreads = Math.max(1, Math.min(64, threads)); save(); }
+
+    public static int getScanChunksPerTask() { return scanChunksPerTask; }
+    public static void setScanChunksPerTask(int chunks) { scanChunksPerTask = Math.max(1, Math.min(64, chunks)); save(); }
+
+    public static boolean isStreamingScan() { return streamingScan; }
+    public static void setStreamingScan(boolean enabled) { streamingScan = enabled; save(); }
+
+    public static float getScanLookBias() { return scanLookBias; }
+    public static void setScanLookBias(float bias) { scanLookBias = Math.max(0, Math.min(1, bias)); save(); }
+
+    public static int getScanPublishInterval() { return scanPublishInterval; }
+    public static void setScanPublishInterval(int millis) { scanPublishInterval = Math.max(5, Math.min(1000, millis)); save(); }
+
+    public static int getSnapshotBudgetMicros() { return snapshotBudgetMicros; }
+    public static void setSnapshotBudgetMicros(int micros) { snapshotBudgetMicros = Math.max(100, Math.min(20000, micros)); save(); }
+
+    public static int getArchiveMaxBlocks() { return archiveMaxBlocks; }
+    public static void setArchiveMaxBlocks(int blocks) { archiveMaxBlocks = Math.max(0, Math.min(10000000, blocks)); save(); }
+
+    public static int getCacheMaxMb() { return cacheMaxMb; }
+    public static void setCacheMaxMb(int mb) {
+        cacheMaxMb = Math.max(0, Math.min(1024, mb));
+        ChunkCache.getInstance().setLimits(cacheMaxMb * 1024L * 1024L, cacheTtlSeconds * 1000L);
+        save();
+    }
+
+    public static int getCacheTtlSeconds() { return cacheTtlSeconds; }
+    public static void setCacheTtlSeconds(int seconds) {
+        cacheTtlSeconds = Math.max(0, Math.min(3600, seconds));
+        ChunkCache.getInstance().setLimits(cacheMaxMb * 1024L * 1024L, cacheTtlSeconds * 1000L);
+        save();
+    }
+
+    public static boolean isDensityHud() { return densityHud; }
+    public static void setDensityHud(boolean enabled) { densityHud = enabled; save(); }
+
+    public static String getDensityBlock() { return densityBlock; }
+    public static void setDensityBlock(String blockId) { densityBlock = blockId; save(); }
+
+    // Falls back to baked meshes when unsupported; meshes are rebuilt when this changes
+    public static boolean isInstancedRendering() { return instancedRendering; }
+    public static void setInstancedRendering(boolean enabled) { instancedRendering = enabled; save(); }
+
+    public static boolean isExposedOnly() { return exposedOnly; }
+    public static void setExposedOnly(boolean enabled) { exposedOnly = enabled; save(); }
+
+    public static boolean isAutoScan() { return autoScan; }
+    public static void setAutoScan(boolean enabled) { autoScan = enabled; save(); }
+
+    public static int getAutoScanHysteresis() { return autoScanHysteresis; }
+    public static void setAutoScanHysteresis(int chunks) { autoScanHysteresis = Math.max(0, Math.min(16, chunks)); save(); }
+
+    public static boolean isVeinMode() { return veinMode; }
+    public static void setVeinMode(boolean enabled) { veinMode = enabled; save(); }
+
+    public static boolean isVeinDiagonal() { return veinDiagonal; }
+    public static void setVeinDiagonal(boolean enabled) {
+        veinDiagonal = enabled;
+        ScanResultIndex.getInstance().markVeinsDirty();
+        save();
+    }
+
+    // Scan Profile Getters and Setters
+    public static Map<String, ScanProfile> getScanProfiles() { return new LinkedHashMap<>(scanProfiles); }
+    public static ScanProfile getScanProfile(String name) { return scanProfiles.get(name); }
+
+    // Falls back to the default profile if the active one was deleted
+    public static ScanProfile getActiveProfile() {
+        ScanProfile profile = scanProfiles.get(activeProfile);
+        return profile != null ? profile : scanProfiles.get("default");
+    }
+
+    public static boolean setActiveProfile(String name) {
+        if (!scanProfiles.containsKey(name)) {
+            return false;
+        }
+        activeProfile = name;
+        save();
+        return true;
+    }
+
+    // Profiles are mutable; call this after changing one so it's written out
+    public static void saveScanProfile(ScanProfile profile) {
+        scanProfiles.put(profile.getName(), profile);
+        save();
+    }
+
+    public static boolean removeScanProfile(String name) {
+        if (name.equals("default") || scanProfiles.remove(name) == null) {
+            return false;
+        }
+        if (name.equals(activeProfile)) {
+            activeProfile = "default";
+        }
+        save();
+        return true;
+    }
+
+    // Scan Query Getters and Setters
+    public static Map<String, ScanQuery.Action> getScanQueries() { return new LinkedHashMap<>(scanQueries); }
+    public static void setScanQuery(String profileName, ScanQuery.Action action) { scanQueries.put(profileName, action); save(); }
+    public static boolean removeScanQuery(String profileName) {
+        if (scanQueries.remove(profileName) == null) {
+            return false;
+        }
+        save();
+        return true;
+    }
+    public static void clearScanQueries() { scanQueries.clear(); save(); }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.emperium.neoporiumscanner.config;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Named scan setup: radius, Y window and target blocks.
+// Unset values fall back to the global settings (scan range, player Y +- range, tracked blocks).
+public class ScanProfile {
+    private String name;
+    private int radius = 0;        // 0 = global scan range
+    private Integer minY = null;   // null = no window
+    private Integer maxY = null;
+    private Set<String> targets = new LinkedHashSet<>(); // empty = tracked blocks
+
+    public ScanProfile(String name) {
+        this.name = name;
+    }
+
+    public ScanProfile copy(String newName) {
+        ScanProfile profile = new ScanProfile(newName);
+        profile.radius = radius;
+        profile.minY = minY;
+        profile.maxY = maxY;
+        profile.targets = new LinkedHashSet<>(getTargets());
+        return profile;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public void setRadius(int radius) {
+        this.radius = Math.max(0, Math.min(512, radius));
+    }
+
+    public int getEffectiveRadius() {
+        return radius > 0 ? radius : ConfigManager.getScanRange();
+    }
+
+    public boolean hasYWindow() {
+        return minY != null && maxY != null;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    public void setYWindow(int minY, int maxY) {
+        this.minY = Math.min(minY, maxY);
+        this.maxY = Math.max(minY, maxY);
+    }
+
+    public void clearYWindow() {
+        this.minY = null;
+        this.maxY = null;
+    }
+
+    public Set<String> getTargets() {
+        // Older configs may not have the field at all
+        return targets != null ? targets : new LinkedHashSet<>();
+    }
+
+    public void setTargets(Set<String> targets) {
+        this.targets = new LinkedHashSet<>(targets);
+    }
+
+    public String describe() {
+        String range = radius > 0 ? radius + " blocks" : "scan range";
+        String window = hasYWindow() ? "Y " + minY + ".." + maxY : "Y around player";
+        String blocks = getTargets().isEmpty() ? "tracked blocks" : getTargets().size() + " targets";
+        return range + ", " + window + ", " + blocks;
+    }
+}
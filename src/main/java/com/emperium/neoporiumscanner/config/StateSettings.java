@@ -4,6 +4,7 @@ public class StateSettings {
     private static boolean scanning = false;
     private static boolean paused = false;
     private static boolean guiVisible = false;
+    private static int maxBlocksPerTick = 1 << 20; // blocks copied for scanning per client tick
 
     public static boolean isScanning() {
         return scanning;
@@ -28,4 +29,12 @@ public class StateSettings {
     public static void setGuiVisible(boolean guiVisible) {
         StateSettings.guiVisible = guiVisible;
     }
+
+    public static int getMaxBlocksPerTick() {
+        return maxBlocksPerTick;
+    }
+
+    public static void setMaxBlocksPerTick(int maxBlocksPerTick) {
+        StateSettings.maxBlocksPerTick = Math.max(4096, maxBlocksPerTick);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import com.emperium.neoporiumscanner.config.ConfigManager;
+import java.util.function.LongConsumer;
+
+// Keeps the chunks around the player scanned while auto-scan is on. When the player crosses a
+// chunk border only the strip of chunks that came into range is scanned, and only the strip that
+// left range plus the hysteresis margin is evicted, so walking costs O(radius) per border crossed
+// and pacing along a border doesn't rescan anything.
+// Chunks that aren't loaded yet are picked up by ScanController.onChunkLoaded.
+// Client thread only.
+public class AutoScanner {
+    private static AutoScanner instance;
+    private final ScanController controller = ScanController.getInstance();
+
+    private World world;
+    private int anchorX, anchorZ;
+    private int radius;
+
+    private AutoScanner() {
+    }
+
+    public static AutoScanner getInstance() {
+        if (instance == null) {
+            instance = new AutoScanner();
+        }
+        return instance;
+    }
+
+    public void tick(MinecraftClient client) {
+        if (!ConfigManager.isAutoScan() || client.player == null || client.world == null) {
+            world = null;
+            return;
+        }
+
+        ChunkPos playerChunk = client.player.getChunkPos();
+        int chunkRadius = ConfigManager.getActiveProfile().getEffectiveRadius() >> 4;
+
+        // New world, new radius or just switched on: cover the whole area once
+        if (client.world != world || chunkRadius != radius) {
+            world = client.world;
+            radius = chunkRadius;
+            anchorX = playerChunk.x;
+            anchorZ = playerChunk.z;
+            ChunkScanner scanner = controller.createFollowScanner(world, anchorX, anchorZ, radius);
+            if (scanner == null) {
+                return;
+            }
+            for (int x = anchorX - radius; x <= anchorX + radius; x++) {
+                for (int z = anchorZ - radius; z <= anchorZ + radius; z++) {
+                    scan(scanner, ChunkPos.toLong(x, z));
+                }
+            }
+            return;
+        }
+
+        if (playerChunk.x == anchorX && playerChunk.z == anchorZ) {
+            return;
+        }
+
+        ChunkScanner scanner = controller.createFollowScanner(world, playerChunk.x, playerChunk.z, radius);
+        if (scanner != null) {
+            forEachDifference(playerChunk.x, playerChunk.z, anchorX, anchorZ, radius, chunkPos -> scan(scanner, chunkPos));
+        }
+
+        int keep = radius + ConfigManager.getAutoScanHysteresis();
+        forEachDifference(anchorX, anchorZ, playerChunk.x, playerChunk.z, keep, controller::evictChunk);
+
+        anchorX = playerChunk.x;
+        anchorZ = playerChunk.z;
+    }
+
+    private void scan(ChunkScanner scanner, long chunkPos) {
+        int x = ChunkPos.getPackedX(chunkPos);
+        int z = ChunkPos.getPackedZ(chunkPos);
+        if (world.getChunkManager().isChunkLoaded(x, z)) {
+            controller.scanFollowChunk(world, chunkPos, scanner);
+        }
+    }
+
+    // True when auto-scan wants this chunk, for chunks that load after the player moved
+    public boolean covers(ChunkPos chunkPos) {
+        return world != null && Math.abs(chunkPos.x - anchorX) <= radius && Math.abs(chunkPos.z - anchorZ) <= radius;
+    }
+
+    // Forces a full pass on the next tick, e.g. after the profile changed
+    public void reset() {
+        world = null;
+    }
+
+    // Chunks in the square of radius r around (ax, az) that are outside the one around (bx, bz).
+    // Jumps over the overlap, so the cost is the size of the difference plus one step per column.
+    static void forEachDifference(int ax, int az, int bx, int bz, int r, LongConsumer action) {
+        for (int x = ax - r; x <= ax + r; x++) {
+            boolean columnOverlaps = Math.abs(x - bx) <= r;
+            for (int z = az - r; z <= az + r; z++) {
+                if (columnOverlaps && Math.abs(z - bz) <= r) {
+                    z = bz + r;
+                    continue;
+                }
+                action.accept(ChunkPos.toLong(x, z));
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import com.emperium.neoporiumscanner.xray.BasicColor;
+import com.emperium.neoporiumscanner.xray.render.BlockDetector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+// The tracked-block config compiled to tables over raw block state ids, so classifying a block is
+// an array load instead of registry lookups and string compares. Every tracked block gets a type
+// index; color and id are looked up by type.
+// Immutable. Config changes swap in a fresh instance, so a scan keeps the table it started with.
+public final class BlockMatcher {
+    private static volatile BlockMatcher current;
+    private static volatile BlockMatcher targetsMatcher;
+    private static final AtomicLong generations = new AtomicLong();
+
+    private final boolean[] tracked;
+    private final short[] types;
+    private final Block[] typeBlocks;
+    private final String[] typeIds;
+    private final int[][] typeRgb;
+    private final BasicColor[] typeColors;
+    private final short[] hitTypes;
+    private final Set<String> targets;
+    private final boolean blockEntityOnly;
+    // Unique per compiled matcher and never reused, unlike identity hashes
+    private final long generation = generations.incrementAndGet();
+
+    private BlockMatcher(boolean[] tracked, short[] types, Block[] typeBlocks, String[] typeIds, int[][] typeRgb,
+                         Set<String> targets, boolean blockEntityOnly) {
+        this.tracked = tracked;
+        this.types = types;
+        this.typeBlocks = typeBlocks;
+        this.typeIds = typeIds;
+        this.typeRgb = typeRgb;
+        this.targets = targets;
+        this.blockEntityOnly = blockEntityOnly;
+        this.typeColors = new BasicColor[typeRgb.length];
+        this.hitTypes = new short[typeRgb.length];
+        for (int i = 0; i < typeRgb.length; i++) {
+            typeColors[i] = new BasicColor(typeRgb[i][0], typeRgb[i][1], typeRgb[i][2]);
+            hitTypes[i] = HitPalette.typeOf(typeIds[i], typeColors[i]);
+        }
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public static BlockMatcher get() {
+        BlockMatcher matcher = current;
+        if (matcher == null) {
+            matcher = compile();
+            current = matcher;
+        }
+        return matcher;
+    }
+
+    // Matcher for a profile's own target list; an empty list means the tracked blocks.
+    // The last one is kept since a profile is usually scanned many times in a row.
+    public static BlockMatcher forTargets(Set<String> targets) {
+        if (targets.isEmpty()) {
+            return get();
+        }
+
+        BlockMatcher matcher = targetsMatcher;
+        if (matcher == null || !matcher.targets.equals(targets)) {
+            matcher = compile(BlockValidator.resolveBlocks(targets), Set.copyOf(targets));
+            targetsMatcher = matcher;
+        }
+        return matcher;
+    }
+
+    // Uncached variant for callers that keep the result themselves
+    public static BlockMatcher compileTargets(Set<String> targets) {
+        if (targets.isEmpty()) {
+            return get();
+        }
+        return compile(BlockValidator.resolveBlocks(targets), Set.copyOf(targets));
+    }
+
+    // Called whenever tracked blocks or colors change; the next get() compiles a new table
+    public static void invalidate() {
+        current = null;
+        targetsMatcher = null;
+    }
+
+    private static BlockMatcher compile() {
+        return compile(BlockValidator.resolveTrackedBlocks(), Set.of());
+    }
+
+    private static BlockMatcher compile(Set<Block> blockSet, Set<String> targets) {
+        List<Block> blocks = new ArrayList<>(blockSet);
+        blocks.sort(Comparator.comparing(block -> Registries.BLOCK.getId(block).toString()));
+        if (blocks.size() > Short.MAX_VALUE) {
+            blocks = blocks.subList(0, Short.MAX_VALUE);
+        }
+
+        int stateCount = Block.STATE_IDS.size();
+        boolean[] tracked = new boolean[stateCount];
+        short[] types = new short[stateCount];
+        Arrays.fill(types, (short) -1);
+
+        Block[] typeBlocks = new Block[blocks.size()];
+        String[] typeIds = new String[blocks.size()];
+        int[][] typeRgb = new int[blocks.size()][];
+        boolean blockEntityOnly = !blocks.isEmpty();
+        for (int type = 0; type < typeBlocks.length; type++) {
+            Block block = blocks.get(type);
+            typeBlocks[type] = block;
+            typeIds[type] = Registries.BLOCK.getId(block).toString();
+            typeRgb[type] = BlockDetector.resolveColor(block.getDefaultState());
+
+            for (BlockState state : block.getStateManager().getStates()) {
+                int rawId = Block.getRawIdFromState(state);
+                if (rawId >= 0 && rawId < stateCount) {
+                    tracked[rawId] = true;
+                    types[rawId] = (short) type;
+                }
+                blockEntityOnly &= state.hasBlockEntity();
+            }
+        }
+
+        return new BlockMatcher(tracked, types, typeBlocks, typeIds, typeRgb, targets, blockEntityOnly);
+    }
+
+    // One flag per raw state id, for compiling other block predicates the same way
+    public static boolean[] buildStateTable(Predicate<BlockState> predicate) {
+        boolean[] table = new boolean[Block.STATE_IDS.size()];
+        for (int rawId = 0; rawId < table.length; rawId++) {
+            BlockState state = Block.STATE_IDS.get(rawId);
+            table[rawId] = state != null && predicate.test(state);
+        }
+        return table;
+    }
+
+    public boolean isEmpty() {
+        return typeBlocks.length == 0;
+    }
+
+    // True when every tracked state has a block entity (chests, spawners, ...), so the chunk's
+    // block entity map holds every possible match
+    public boolean isBlockEntityOnly() {
+        return blockEntityOnly;
+    }
+
+    public boolean isTracked(int rawId) {
+        return rawId >= 0 && rawId < tracked.length && tracked[rawId];
+    }
+
+    public boolean isTracked(BlockState state) {
+        return isTracked(Block.getRawIdFromState(state));
+    }
+
+    // The table itself, for callers that index it directly in hot loops. Do not modify.
+    public boolean[] getTrackedTable() {
+        return tracked;
+    }
+
+    // Type index of a raw state id, -1 when not tracked
+    public int getType(int rawId) {
+        return rawId >= 0 && rawId < types.length ? types[rawId] : -1;
+    }
+
+    public int getType(BlockState state) {
+        return getType(Block.getRawIdFromState(state));
+    }
+
+    public int getTypeCount() {
+        return typeBlocks.length;
+    }
+
+    public Block getBlock(int type) {
+        return typeBlocks[type];
+    }
+
+    public String getBlockId(int type) {
+        return typeIds[type];
+    }
+
+    public int[] getRgb(int type) {
+        return typeRgb[type];
+    }
+
+    public BasicColor getColor(int type) {
+        return typeColors[type];
+    }
+
+    // HitPalette index of a type's id and color, what HitLists store
+    public short getHitType(int type) {
+        return hitTypes[type];
+    }
+}
@@ -4,6 +4,8 @@ import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+import com.emperium.neoporiumscanner.config.ConfigManager;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -20,7 +22,21 @@ public class BlockValidator {
         BLACKLISTED_BLOCKS.add(Blocks.BEDROCK.getTranslationKey());
     }
 
+    // isValidBlock compiled over raw state ids. Rebuilt lazily after blacklist changes.
+    private static volatile boolean[] validStates;
+
     public static boolean isValidBlock(BlockState state) {
+        boolean[] table = validStates;
+        if (table == null) {
+            table = BlockMatcher.buildStateTable(BlockValidator::checkBlock);
+            validStates = table;
+        }
+
+        int rawId = Block.getRawIdFromState(state);
+        return rawId >= 0 && rawId < table.length && table[rawId];
+    }
+
+    private static boolean checkBlock(BlockState state) {
         if (state.isAir()) return false;
 
         Block block = state.getBlock();
@@ -45,11 +61,30 @@ public class BlockValidator {
                 blockId.contains("ancient_debris");
     }
 
+    // Resolves the configured tracked block ids once so per-block checks are a set lookup
+    public static Set<Block> resolveTrackedBlocks() {
+        return resolveBlocks(ConfigManager.getTrackedBlocks());
+    }
+
+    // Unknown or malformed ids are skipped
+    public static Set<Block> resolveBlocks(Set<String> blockIds) {
+        Set<Block> tracked = new HashSet<>();
+        for (String blockId : blockIds) {
+            Identifier id = Identifier.tryParse(blockId);
+            if (id != null && Registries.BLOCK.containsId(id)) {
+                tracked.add(Registries.BLOCK.get(id));
+            }
+        }
+        return tracked;
+    }
+
     public static void addToBlacklist(String blockId) {
         BLACKLISTED_BLOCKS.add(blockId);
+        validStates = null;
     }
 
     public static void removeFromBlacklist(String blockId) {
         BLACKLISTED_BLOCKS.remove(blockId);
+        validStates = null;
     }
 }
\ No newline at end of file
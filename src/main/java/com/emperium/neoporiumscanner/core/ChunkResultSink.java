@@ -0,0 +1,7 @@
+package com.emperium.neoporiumscanner.core;
+
+// Receives the hits of one scanned chunk. Called from scan workers.
+@FunctionalInterface
+public interface ChunkResultSink {
+    void accept(long chunkPos, HitList blocks);
+}
@@ -0,0 +1,281 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+import com.emperium.neoporiumscanner.cache.ChunkCache;
+import com.emperium.neoporiumscanner.config.ConfigManager;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Scans single chunks of one scan area. Captures snapshots on the client thread and scans them
+// on the workers. Immutable, so any number of workers can share it.
+// Ride-along queries are answered in the same pass: they see the chunks this scan visits,
+// limited to their own radius around the scan center and their own Y window.
+public class ChunkScanner {
+    private final World world;
+    private final int minX, maxX, minY, maxY, minZ, maxZ;
+    private final int centerX, centerZ;
+    private final int captureMinY, captureMaxY;
+    private final QuerySet querySet;
+    private final BlockMatcher matcher;
+    private final ChunkCache chunkCache;
+    private final ScanJob job;
+    private final boolean exposedOnly;
+    private final ChunkCache.Stamp cacheStamp;
+
+    public ChunkScanner(World world, int minX, int maxX, int minY, int maxY, int minZ, int maxZ,
+                        int centerX, int centerZ, QuerySet querySet, ChunkCache chunkCache, ScanJob job) {
+        this.world = world;
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.minZ = minZ;
+        this.maxZ = maxZ;
+        this.centerX = centerX;
+        this.centerZ = centerZ;
+        this.querySet = querySet;
+        this.matcher = querySet.getPrimary();
+        this.chunkCache = chunkCache;
+        this.job = job;
+        this.exposedOnly = ConfigManager.isExposedOnly();
+        // Cached results are only reused by scans with the same targets, Y window and filter
+        this.cacheStamp = new ChunkCache.Stamp(matcher.getGeneration(), minY, maxY, exposedOnly);
+
+        // Queries with their own Y window may need sections outside the scan's
+        int low = minY;
+        int high = maxY;
+        for (ScanQuery query : querySet.getQueries()) {
+            if (query.hasYWindow()) {
+                low = Math.min(low, query.getMinY());
+                high = Math.max(high, query.getMaxY());
+            }
+        }
+        this.captureMinY = Math.max(world.getBottomY(), low);
+        this.captureMaxY = Math.min(world.getTopY(), high);
+    }
+
+    // Same area and targets under another job. Used for follow-up rescans after the scan ended.
+    public ChunkScanner withJob(ScanJob otherJob) {
+        return new ChunkScanner(world, minX, maxX, minY, maxY, minZ, maxZ, centerX, centerZ,
+                querySet, chunkCache, otherJob);
+    }
+
+    public boolean contains(ChunkPos chunkPos) {
+        return chunkPos.getEndX() >= minX && chunkPos.getStartX() <= maxX
+                && chunkPos.getEndZ() >= minZ && chunkPos.getStartZ() <= maxZ;
+    }
+
+    // The whole chunk column is inside the scan area, so its results don't depend on the area
+    public boolean coversChunk(ChunkPos chunkPos) {
+        return chunkPos.getStartX() >= minX && chunkPos.getEndX() <= maxX
+                && chunkPos.getStartZ() >= minZ && chunkPos.getEndZ() <= maxZ;
+    }
+
+    public boolean containsY(int y) {
+        return y >= minY && y <= maxY;
+    }
+
+    public BlockMatcher getMatcher() {
+        return matcher;
+    }
+
+    public QuerySet getQuerySet() {
+        return querySet;
+    }
+
+    public ScanJob getJob() {
+        return job;
+    }
+
+    public boolean isCancelled() {
+        return job.isCancelled();
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    // Null when the chunk isn't cached. The cache only holds main scan results, so with
+    // queries attached the chunk has to be scanned anyway.
+    public HitList getCachedResults(long chunkPos) {
+        if (querySet.hasQueries() || !coversChunk(new ChunkPos(chunkPos))) {
+            return null;
+        }
+        HitList cached = chunkCache.get(chunkPos, cacheStamp);
+        return cached != null ? cached.copy() : null;
+    }
+
+    // Client thread only. Copies the sections this scan has to look at; null if the client
+    // hasn't received the chunk. With sections set, only those section indexes are copied and
+    // the chunk's other hits are carried over from the result index. The whole chunk is
+    // captured instead when the chunk has no results to carry, and when queries are attached,
+    // since they keep track of what they reported per whole chunk.
+    public ChunkSnapshot capture(long chunkPos, BitSet sections) {
+        ChunkPos pos = new ChunkPos(chunkPos);
+        WorldChunk chunk = world.getChunkManager().getWorldChunk(pos.x, pos.z);
+        if (chunk == null) {
+            return null;
+        }
+
+        int columnArea = (Math.min(maxX, pos.getEndX()) - Math.max(minX, pos.getStartX()) + 1)
+                * (Math.min(maxZ, pos.getEndZ()) - Math.max(minZ, pos.getStartZ()) + 1);
+
+        // Containers, spawners and the like are all in the block entity map, no need to walk voxels.
+        // Not when only exposed blocks count, that needs the air around them.
+        if (querySet.isBlockEntityOnly() && !exposedOnly) {
+            return ChunkSnapshot.captureBlockEntities(chunk, captureMinY, captureMaxY, columnArea,
+                    querySet::matchesAny, job);
+        }
+
+        HitList previous = sections != null && !querySet.hasQueries()
+                ? ScanResultIndex.getInstance().getChunkBlocks(chunkPos) : null;
+        HitList carried = previous != null ? outsideSections(previous, sections, world) : null;
+
+        // Palette check - a section whose palette holds nothing any query wants can't contain a match
+        return ChunkSnapshot.capture(chunk, captureMinY, captureMaxY, columnArea,
+                querySet::matchesAny, exposedOnly, carried != null ? sections : null, carried, job);
+    }
+
+    // Runs on the scan workers and only reads the snapshot, never the live world.
+    // Returns the main scan's hits; query hits go straight to the query sinks.
+    public HitList scan(ChunkSnapshot snapshot) {
+        HitList chunkBlocks = snapshot.getCarriedHits() != null ? snapshot.getCarriedHits() : new HitList();
+        ScanQuery[] queries = querySet.getQueries();
+        HitList[] queryBlocks = new HitList[queries.length];
+        ChunkPos chunkPos = new ChunkPos(snapshot.getChunkPos());
+
+        int startX = chunkPos.getStartX();
+        int startZ = chunkPos.getStartZ();
+        int localMinX = Math.max(minX, startX) - startX;
+        int localMaxX = Math.min(maxX, startX + 15) - startX;
+        int localMinZ = Math.max(minZ, startZ) - startZ;
+        int localMaxZ = Math.min(maxZ, startZ + 15) - startZ;
+
+        // Sections above and below are shared between neighbours, so each air mask is built once
+        Map<SectionSnapshot, long[]> airMasks = snapshot.hasNeighbors() ? new IdentityHashMap<>() : null;
+
+        SectionSnapshot[] sections = snapshot.getSections();
+        for (int k = 0; k < sections.length; k++) {
+            if (isCancelled()) {
+                return chunkBlocks;
+            }
+
+            SectionSnapshot section = sections[k];
+            int sectionMinY = section.getMinY();
+            long[] exposed = airMasks != null ? exposedMask(snapshot, k, airMasks) : null;
+
+            // Global palettes store raw ids, which index the query table directly
+            boolean[] matches = section.usesGlobalPalette() ? querySet.getAnyTable() : matchPalette(section);
+            section.forEachMatch(matches, index -> {
+                int x = index & 15;
+                int z = (index >> 4) & 15;
+                if (x < localMinX || x > localMaxX || z < localMinZ || z > localMaxZ) {
+                    return;
+                }
+                if (exposed != null && !ExposureMask.isSet(exposed, index)) {
+                    return;
+                }
+                route(section.getRawId(index), startX + x, sectionMinY + (index >> 8), startZ + z,
+                        chunkBlocks, queryBlocks);
+            });
+        }
+
+        for (int i = 0; i < snapshot.getBlockEntityCount(); i++) {
+            long packed = snapshot.getBlockEntityPos(i);
+            int x = BlockPos.unpackLongX(packed);
+            int z = BlockPos.unpackLongZ(packed);
+            if (x < minX || x > maxX || z < minZ || z > maxZ) {
+                continue;
+            }
+            route(snapshot.getBlockEntityRawId(i), x, BlockPos.unpackLongY(packed), z, chunkBlocks, queryBlocks);
+        }
+
+        // Every query that looked at the chunk hears about it, even without hits, so what it
+        // reported there before and is now gone is forgotten
+        for (int q = 0; q < queries.length; q++) {
+            if (queryBlocks[q] != null) {
+                queries[q].getSink().accept(snapshot.getChunkPos(), queryBlocks[q]);
+            } else if (queries[q].overlaps(startX + localMinX, startX + localMaxX,
+                    startZ + localMinZ, startZ + localMaxZ, centerX, centerZ)) {
+                queries[q].getSink().accept(snapshot.getChunkPos(), new HitList());
+            }
+        }
+
+        // Cache the chunk; results of a partly covered chunk only hold for this scan area.
+        // A copy, the returned list goes to the result index, which edits it on block changes.
+        if (coversChunk(chunkPos)) {
+            chunkCache.put(snapshot.getChunkPos(), cacheStamp, chunkBlocks.copy());
+        }
+        return chunkBlocks;
+    }
+
+    // The hits that lie outside the given section indexes
+    static HitList outsideSections(HitList hits, BitSet sections, World world) {
+        HitList outside = new HitList();
+        for (int i = 0; i < hits.size(); i++) {
+            if (!sections.get(world.getSectionIndex(hits.getY(i)))) {
+                outside.add(hits.getPos(i), hits.getType(i));
+            }
+        }
+        return outside;
+    }
+
+    private static long[] exposedMask(ChunkSnapshot snapshot, int k, Map<SectionSnapshot, long[]> airMasks) {
+        return ExposureMask.exposed(
+                airMask(snapshot.getSections()[k], airMasks),
+                airMask(snapshot.getNeighbor(k, ChunkSnapshot.UP), airMasks),
+                airMask(snapshot.getNeighbor(k, ChunkSnapshot.DOWN), airMasks),
+                airMask(snapshot.getNeighbor(k, ChunkSnapshot.NORTH), airMasks),
+                airMask(snapshot.getNeighbor(k, ChunkSnapshot.SOUTH), airMasks),
+                airMask(snapshot.getNeighbor(k, ChunkSnapshot.WEST), airMasks),
+                airMask(snapshot.getNeighbor(k, ChunkSnapshot.EAST), airMasks));
+    }
+
+    private static long[] airMask(SectionSnapshot section, Map<SectionSnapshot, long[]> airMasks) {
+        if (section == null) {
+            return ExposureMask.airMask(null);
+        }
+        return airMasks.computeIfAbsent(section, ExposureMask::airMask);
+    }
+
+    // Hands a hit to the main scan and to every query whose mask bit is set and whose area holds it
+    private void route(int rawId, int x, int y, int z, HitList chunkBlocks, HitList[] queryBlocks) {
+        int mask = querySet.getMask(rawId);
+        boolean inWindow = y >= minY && y <= maxY;
+        long pos = BlockPos.asLong(x, y, z);
+
+        if ((mask & 1) != 0 && inWindow) {
+            chunkBlocks.add(pos, matcher.getHitType(matcher.getType(rawId)));
+        }
+
+        // Remaining bits route the hit to the queries that asked for it
+        ScanQuery[] queries = querySet.getQueries();
+        mask >>>= 1;
+        for (int q = 0; mask != 0; q++, mask >>>= 1) {
+            if ((mask & 1) == 0 || !queries[q].contains(x, y, z, centerX, centerZ)) {
+                continue;
+            }
+            if (!queries[q].hasYWindow() && !inWindow) {
+                continue;
+            }
+
+            BlockMatcher queryMatcher = queries[q].getMatcher();
+            if (queryBlocks[q] == null) {
+                queryBlocks[q] = new HitList();
+            }
+            queryBlocks[q].add(pos, queryMatcher.getHitType(queryMatcher.getType(rawId)));
+        }
+    }
+
+    private boolean[] matchPalette(SectionSnapshot section) {
+        boolean[] matches = new boolean[section.getPaletteSize()];
+        for (int i = 0; i < matches.length; i++) {
+            matches[i] = querySet.getMask(section.getPaletteRawId(i)) != 0;
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,255 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.util.collection.PaletteStorage;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkManager;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.IdListPalette;
+import net.minecraft.world.chunk.Palette;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// Immutable copy of the sections of a chunk a scan needs. Captured on the client thread,
+// read by the scan workers, then released so the buffers go back to the pool.
+// Scans that only look for block entities copy the matching block entities instead of sections.
+// Scans for exposed blocks also copy the six sections around every captured one.
+// A rescan of some sections carries the previous hits of the other sections along.
+public final class ChunkSnapshot {
+    public static final int UP = 0, DOWN = 1, NORTH = 2, SOUTH = 3, WEST = 4, EAST = 5;
+
+    // Stands in for neighbours that aren't loaded or lie below the world; holds no air
+    private static final SectionSnapshot OPAQUE = new SectionSnapshot(0, 0, new int[]{-1}, new long[0], 0);
+    private static final SectionSnapshot[] NO_SECTIONS = new SectionSnapshot[0];
+    private static final long[] NO_POSITIONS = new long[0];
+    private static final int[] NO_IDS = new int[0];
+
+    private final long chunkPos;
+    private final SectionSnapshot[] sections;
+    private final SectionSnapshot[] neighbors;
+    private final SectionSnapshot[] context;
+    private final long[] blockEntityPositions;
+    private final int[] blockEntityRawIds;
+    private final HitList carried;
+
+    private ChunkSnapshot(long chunkPos, SectionSnapshot[] sections, SectionSnapshot[] neighbors, SectionSnapshot[] context,
+                          long[] blockEntityPositions, int[] blockEntityRawIds, HitList carried) {
+        this.chunkPos = chunkPos;
+        this.sections = sections;
+        this.neighbors = neighbors;
+        this.context = context;
+        this.blockEntityPositions = blockEntityPositions;
+        this.blockEntityRawIds = blockEntityRawIds;
+        this.carried = carried;
+    }
+
+    // Client thread only. Copies every non-empty section overlapping minY..maxY whose palette
+    // passes the filter; rejected sections are reported to the job as skipped.
+    // With neighbors set, the sections above, below and beside each captured one are copied too.
+    // With only set, just those section indexes are captured and the carried hits stand in for
+    // the rest; both null for the whole chunk.
+    static ChunkSnapshot capture(WorldChunk chunk, int minY, int maxY, int columnArea,
+                                 Predicate<BlockState> paletteFilter, boolean withNeighbors,
+                                 BitSet only, HitList carried, ScanJob job) {
+        ChunkSection[] chunkSections = chunk.getSectionArray();
+        List<SectionSnapshot> captured = new ArrayList<>();
+        List<Integer> capturedIndexes = new ArrayList<>();
+
+        // Sections outside the Y window are never looked at
+        int firstSection = Math.max(0, chunk.getSectionIndex(minY));
+        int lastSection = Math.min(chunkSections.length - 1, chunk.getSectionIndex(maxY));
+
+        for (int i = firstSection; i <= lastSection; i++) {
+            int sectionMinY = ChunkSectionPos.getBlockCoord(chunk.sectionIndexToCoord(i));
+            int sectionMaxY = sectionMinY + 15;
+
+            int sectionBlocks = columnArea * (Math.min(maxY, sectionMaxY) - Math.max(minY, sectionMinY) + 1);
+            ChunkSection section = chunkSections[i];
+            if ((only != null && !only.get(i)) || section == null || section.isEmpty() || !section.hasAny(paletteFilter)) {
+                job.sectionSkipped(sectionBlocks);
+                continue;
+            }
+
+            job.sectionScanned(sectionBlocks);
+            captured.add(captureSection(section.getBlockStateContainer(), sectionMinY));
+            capturedIndexes.add(i);
+        }
+
+        SectionSnapshot[] sections = captured.toArray(NO_SECTIONS);
+        if (!withNeighbors || sections.length == 0) {
+            return new ChunkSnapshot(chunk.getPos().toLong(), sections, null, NO_SECTIONS, NO_POSITIONS, NO_IDS, carried);
+        }
+
+        ChunkPos pos = chunk.getPos();
+        ChunkManager chunkManager = chunk.getWorld().getChunkManager();
+        WorldChunk[] sides = {
+                chunkManager.getWorldChunk(pos.x, pos.z - 1),
+                chunkManager.getWorldChunk(pos.x, pos.z + 1),
+                chunkManager.getWorldChunk(pos.x - 1, pos.z),
+                chunkManager.getWorldChunk(pos.x + 1, pos.z)
+        };
+
+        // Sections above and below may be captured already; anything else is copied once as context
+        Map<Integer, SectionSnapshot> own = new HashMap<>();
+        for (int k = 0; k < sections.length; k++) {
+            own.put(capturedIndexes.get(k), sections[k]);
+        }
+        List<SectionSnapshot> context = new ArrayList<>();
+        SectionSnapshot[] neighbors = new SectionSnapshot[sections.length * 6];
+        for (int k = 0; k < sections.length; k++) {
+            int index = capturedIndexes.get(k);
+            int sectionMinY = sections[k].getMinY();
+            neighbors[k * 6 + UP] = ownSection(chunkSections, index + 1, sectionMinY + 16, own, context);
+            neighbors[k * 6 + DOWN] = ownSection(chunkSections, index - 1, sectionMinY - 16, own, context);
+            for (int side = 0; side < 4; side++) {
+                neighbors[k * 6 + NORTH + side] = sideSection(sides[side], index, sectionMinY, context);
+            }
+        }
+
+        return new ChunkSnapshot(pos.toLong(), sections, neighbors, context.toArray(NO_SECTIONS), NO_POSITIONS, NO_IDS, carried);
+    }
+
+    // Null means empty, which includes everything above the world
+    private static SectionSnapshot ownSection(ChunkSection[] chunkSections, int index, int minY,
+                                              Map<Integer, SectionSnapshot> own, List<SectionSnapshot> context) {
+        if (index < 0) {
+            return OPAQUE;
+        }
+        if (index >= chunkSections.length) {
+            return null;
+        }
+
+        SectionSnapshot snapshot = own.get(index);
+        if (snapshot == null) {
+            ChunkSection section = chunkSections[index];
+            if (section == null || section.isEmpty()) {
+                return null;
+            }
+            snapshot = captureSection(section.getBlockStateContainer(), minY);
+            own.put(index, snapshot);
+            context.add(snapshot);
+        }
+        return snapshot;
+    }
+
+    private static SectionSnapshot sideSection(WorldChunk chunk, int index, int minY, List<SectionSnapshot> context) {
+        if (chunk == null) {
+            return OPAQUE;
+        }
+
+        ChunkSection section = chunk.getSectionArray()[index];
+        if (section == null || section.isEmpty()) {
+            return null;
+        }
+        SectionSnapshot snapshot = captureSection(section.getBlockStateContainer(), minY);
+        context.add(snapshot);
+        return snapshot;
+    }
+
+    // Client thread only. Takes the block entities inside minY..maxY that pass the filter and
+    // skips the voxel data entirely, which is all a container or spawner scan needs.
+    static ChunkSnapshot captureBlockEntities(WorldChunk chunk, int minY, int maxY, int columnArea,
+                                              Predicate<BlockState> filter, ScanJob job) {
+        Map<BlockPos, BlockEntity> blockEntities = chunk.getBlockEntities();
+        long[] positions = new long[blockEntities.size()];
+        int[] rawIds = new int[blockEntities.size()];
+        int count = 0;
+
+        for (BlockEntity blockEntity : blockEntities.values()) {
+            BlockPos pos = blockEntity.getPos();
+            BlockState state = blockEntity.getCachedState();
+            if (pos.getY() < minY || pos.getY() > maxY || !filter.test(state)) {
+                continue;
+            }
+            positions[count] = pos.asLong();
+            rawIds[count] = Block.getRawIdFromState(state);
+            count++;
+        }
+
+        // No section is decoded, so the whole window counts as skipped
+        job.sectionSkipped(columnArea * Math.max(0, maxY - minY + 1));
+        return new ChunkSnapshot(chunk.getPos().toLong(), NO_SECTIONS, null, NO_SECTIONS,
+                Arrays.copyOf(positions, count), Arrays.copyOf(rawIds, count), null);
+    }
+
+    private static SectionSnapshot captureSection(PalettedContainer<BlockState> container, int minY) {
+        PalettedContainer.Data<BlockState> data = container.data;
+        PaletteStorage storage = data.storage();
+        Palette<BlockState> palette = data.palette();
+
+        long[] source = storage.getData();
+        long[] copy = SnapshotPool.acquire(storage.getElementBits(), source.length);
+        System.arraycopy(source, 0, copy, 0, source.length);
+
+        int[] paletteIds = null;
+        if (!(palette instanceof IdListPalette)) {
+            paletteIds = new int[palette.getSize()];
+            for (int i = 0; i < paletteIds.length; i++) {
+                paletteIds[i] = Block.getRawIdFromState(palette.get(i));
+            }
+        }
+
+        return new SectionSnapshot(minY, storage.getElementBits(), paletteIds, copy, source.length);
+    }
+
+    public long getChunkPos() {
+        return chunkPos;
+    }
+
+    public SectionSnapshot[] getSections() {
+        return sections;
+    }
+
+    public boolean hasNeighbors() {
+        return neighbors != null;
+    }
+
+    // Section next to sections[sectionIndex] on the given side, null when that section is empty
+    public SectionSnapshot getNeighbor(int sectionIndex, int side) {
+        return neighbors[sectionIndex * 6 + side];
+    }
+
+    // What the capture cost, for the scheduler's per-tick limit
+    public int getCopiedBlocks() {
+        return (sections.length + context.length) * SectionSnapshot.BLOCKS + blockEntityPositions.length;
+    }
+
+    // Hits of the sections this snapshot left out, null when it holds the whole chunk.
+    // The snapshot's own copy; the scan adds its hits to it.
+    public HitList getCarriedHits() {
+        return carried;
+    }
+
+    public int getBlockEntityCount() {
+        return blockEntityPositions.length;
+    }
+
+    public long getBlockEntityPos(int i) {
+        return blockEntityPositions[i];
+    }
+
+    public int getBlockEntityRawId(int i) {
+        return blockEntityRawIds[i];
+    }
+
+    // The snapshot must not be read after this
+    public void release() {
+        for (SectionSnapshot section : sections) {
+            section.release();
+        }
+        for (SectionSnapshot section : context) {
+            section.release();
+        }
+    }
+}
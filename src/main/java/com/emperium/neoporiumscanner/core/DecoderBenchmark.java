@@ -0,0 +1,74 @@
+package com.emperium.neoporiumscanner.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+// Times the scalar and vector decoders on the same random sections, per bit width.
+// Run with /neoscanner bench; takes a second or two, so call it off the client thread.
+public final class DecoderBenchmark {
+    private static final int[] BIT_WIDTHS = {4, 5, 6, 8};
+    private static final int SECTIONS = 256;
+    private static final long RUN_NANOS = 200_000_000L;
+
+    private DecoderBenchmark() {
+    }
+
+    public static List<String> run() {
+        List<String> lines = new ArrayList<>();
+        SectionDecoder vector = SectionDecoders.getVector();
+        if (vector == null) {
+            lines.add("Vector API not available, start the game with --add-modules jdk.incubator.vector");
+        }
+
+        Random random = new Random(42);
+        for (int bits : BIT_WIDTHS) {
+            int perLong = 64 / bits;
+            int length = (SectionSnapshot.BLOCKS + perLong - 1) / perLong;
+            long[][] sections = new long[SECTIONS][length];
+            for (long[] data : sections) {
+                for (int w = 0; w < length; w++) {
+                    data[w] = random.nextLong();
+                }
+            }
+
+            // About one palette entry in sixteen is a target, roughly an ore-heavy section
+            boolean[] matches = new boolean[1 << bits];
+            for (int i = 0; i < matches.length; i += 16) {
+                matches[i] = true;
+            }
+
+            double scalarRate = measure(SectionDecoders.getScalar(), bits, sections, length, matches);
+            if (vector == null) {
+                lines.add(String.format("%d bits: scalar %s", bits, ScanJob.formatRate(scalarRate)));
+                continue;
+            }
+            double vectorRate = measure(vector, bits, sections, length, matches);
+            lines.add(String.format("%d bits: scalar %s, %s %s (%.2fx)", bits, ScanJob.formatRate(scalarRate),
+                    vector.getName(), ScanJob.formatRate(vectorRate), vectorRate / scalarRate));
+        }
+        return lines;
+    }
+
+    // Blocks per second, after one untimed run for the JIT
+    private static double measure(SectionDecoder decoder, int bits, long[][] sections, int length, boolean[] matches) {
+        int[] hits = new int[1];
+        IntConsumer counter = index -> hits[0]++;
+        for (long[] data : sections) {
+            decoder.forEachMatch(bits, data, length, matches, counter);
+        }
+
+        long blocks = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (long[] data : sections) {
+                decoder.forEachMatch(bits, data, length, matches, counter);
+            }
+            blocks += (long) SECTIONS * SectionSnapshot.BLOCKS;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < RUN_NANOS);
+        return blocks * 1e9 / elapsed;
+    }
+}
@@ -0,0 +1,194 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Hit counts per chunk column, Y band (one section tall) and block type, kept up to date by
+// ScanResultIndex. The counts outlive the positions: a chunk that unloads keeps its counts, so
+// the map covers everything scanned in the current world at a few ints per chunk.
+// Counts are laid out type-major (type * bands + band); arrays grow as new types show up.
+// Client thread only.
+public class DensityMap {
+    public static final String[] DIRECTIONS = {"N", "NE", "E", "SE", "S", "SW", "W", "NW"};
+
+    private static DensityMap instance;
+    private final Map<String, Integer> typeIndex = new HashMap<>();
+    private final List<String> typeIds = new ArrayList<>();
+    private final Map<Long, int[]> chunks = new HashMap<>();
+    private final Supplier<World> worldSource;
+    // HitPalette type to density type, -1 until first seen; several colors share one block id
+    private int[] hitTypes = new int[0];
+    private World world;
+    private int bottomSection;
+    private int bandCount = 1;
+
+    // Tests pass a world source that doesn't need a running client
+    DensityMap(Supplier<World> worldSource) {
+        this.worldSource = worldSource;
+    }
+
+    public static DensityMap getInstance() {
+        if (instance == null) {
+            instance = new DensityMap(() -> MinecraftClient.getInstance().world);
+        }
+        return instance;
+    }
+
+    // Counts from another world don't mean anything here
+    private void checkWorld() {
+        World current = worldSource.get();
+        if (current != world) {
+            clear();
+            world = current;
+            if (current != null) {
+                bottomSection = current.getBottomSectionCoord();
+                bandCount = current.countVerticalSections();
+            }
+        }
+    }
+
+    private int getType(String blockId) {
+        Integer type = typeIndex.get(blockId);
+        if (type == null) {
+            type = typeIds.size();
+            typeIds.add(blockId);
+            typeIndex.put(blockId, type);
+        }
+        return type;
+    }
+
+    private int getType(short hitType) {
+        if (hitType >= hitTypes.length) {
+            int oldLength = hitTypes.length;
+            hitTypes = Arrays.copyOf(hitTypes, HitPalette.size());
+            Arrays.fill(hitTypes, oldLength, hitTypes.length, -1);
+        }
+        int type = hitTypes[hitType];
+        if (type < 0) {
+            type = getType(HitPalette.getBlockId(hitType));
+            hitTypes[hitType] = type;
+        }
+        return type;
+    }
+
+    private int band(int y) {
+        return Math.max(0, Math.min(bandCount - 1, (y >> 4) - bottomSection));
+    }
+
+    // Replaces a chunk's counts with the counts of a fresh scan
+    void setChunk(long chunkPos, HitList blocks) {
+        checkWorld();
+        int[] counts = new int[typeIds.size() * bandCount];
+        for (int i = 0; i < blocks.size(); i++) {
+            counts = increment(counts, getType(blocks.getType(i)), band(blocks.getY(i)), 1);
+        }
+        chunks.put(chunkPos, counts);
+    }
+
+    void add(long pos, short hitType, int delta) {
+        checkWorld();
+        long chunkPos = ChunkPos.toLong(BlockPos.unpackLongX(pos) >> 4, BlockPos.unpackLongZ(pos) >> 4);
+        int[] counts = chunks.getOrDefault(chunkPos, new int[0]);
+        chunks.put(chunkPos, increment(counts, getType(hitType), band(BlockPos.unpackLongY(pos)), delta));
+    }
+
+    private int[] increment(int[] counts, int type, int band, int delta) {
+        int index = type * bandCount + band;
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, typeIds.size() * bandCount);
+        }
+        counts[index] = Math.max(0, counts[index] + delta);
+        return counts;
+    }
+
+    public List<String> getTypeIds() {
+        return new ArrayList<>(typeIds);
+    }
+
+    // -1 when the block was never counted
+    public int getTypeIndex(String blockId) {
+        Integer type = typeIndex.get(blockId);
+        return type != null ? type : -1;
+    }
+
+    public int getBandCount() {
+        return bandCount;
+    }
+
+    public int getBandMinY(int band) {
+        return (bottomSection + band) << 4;
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    public boolean isChunkCounted(long chunkPos) {
+        return chunks.containsKey(chunkPos);
+    }
+
+    // Hits of one type in a chunk between two bands (inclusive); type -1 counts every type
+    public int getCount(long chunkPos, int type, int minBand, int maxBand) {
+        int[] counts = chunks.get(chunkPos);
+        return counts != null ? sum(counts, type, minBand, maxBand) : 0;
+    }
+
+    private int sum(int[] counts, int type, int minBand, int maxBand) {
+        int total = 0;
+        int firstType = type < 0 ? 0 : type;
+        int lastType = type < 0 ? typeIds.size() - 1 : type;
+        for (int t = firstType; t <= lastType; t++) {
+            for (int band = minBand; band <= maxBand; band++) {
+                int index = t * bandCount + band;
+                if (index < counts.length) {
+                    total += counts[index];
+                }
+            }
+        }
+        return total;
+    }
+
+    // Totals per band over every counted chunk
+    public long[] getBandTotals(int type) {
+        long[] totals = new long[bandCount];
+        for (int[] counts : chunks.values()) {
+            for (int band = 0; band < bandCount; band++) {
+                totals[band] += sum(counts, type, band, band);
+            }
+        }
+        return totals;
+    }
+
+    // Totals per compass direction (see DIRECTIONS) as seen from a chunk; that chunk itself is left out
+    public long[] getDirectionTotals(int centerX, int centerZ, int type, int minBand, int maxBand) {
+        long[] totals = new long[DIRECTIONS.length];
+        for (Map.Entry<Long, int[]> entry : chunks.entrySet()) {
+            int dx = ChunkPos.getPackedX(entry.getKey()) - centerX;
+            int dz = ChunkPos.getPackedZ(entry.getKey()) - centerZ;
+            if (dx == 0 && dz == 0) {
+                continue;
+            }
+
+            // North is -z; sectors are 45 degrees wide and centered on the directions
+            double angle = Math.toDegrees(Math.atan2(dx, -dz));
+            int sector = (int) Math.floorMod(Math.round(angle / 45.0), 8);
+            totals[sector] += sum(entry.getValue(), type, minBand, maxBand);
+        }
+        return totals;
+    }
+
+    public void clear() {
+        chunks.clear();
+        typeIds.clear();
+        typeIndex.clear();
+        hitTypes = new int[0];
+    }
+}
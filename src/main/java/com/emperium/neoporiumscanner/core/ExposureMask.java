@@ -0,0 +1,103 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.block.BlockState;
+import java.util.Arrays;
+
+// 4096-bit masks over a section, bit (y << 8 | z << 4 | x), so each of the 64 words holds four
+// x rows of one y layer. Neighbours in all six directions are found with shifts and ORs on
+// whole words: x is a 1-bit shift inside a row, z a 16-bit shift that carries into the next word,
+// y a 4-word step. Rows and layers on the section border come from the neighbouring sections.
+final class ExposureMask {
+    static final int WORDS = SectionSnapshot.BLOCKS / 64;
+
+    private static final long X0 = 0x0001000100010001L;
+    private static final long X15 = 0x8000800080008000L;
+    private static final long[] ALL_AIR = filled(-1L);
+    private static final long[] NO_AIR = filled(0L);
+
+    private static volatile boolean[] airTable;
+
+    private ExposureMask() {
+    }
+
+    private static long[] filled(long value) {
+        long[] mask = new long[WORDS];
+        Arrays.fill(mask, value);
+        return mask;
+    }
+
+    // Raw ids never change while the game runs, so the table is built once
+    private static boolean[] getAirTable() {
+        boolean[] table = airTable;
+        if (table == null) {
+            table = BlockMatcher.buildStateTable(BlockState::isAir);
+            airTable = table;
+        }
+        return table;
+    }
+
+    private static boolean isAir(boolean[] table, int rawId) {
+        return rawId >= 0 && rawId < table.length && table[rawId];
+    }
+
+    // Bit set where the block is air. A null section is empty, so all air.
+    static long[] airMask(SectionSnapshot section) {
+        if (section == null) {
+            return ALL_AIR;
+        }
+
+        boolean[] table = getAirTable();
+        boolean[] matches;
+        if (section.usesGlobalPalette()) {
+            matches = table;
+        } else {
+            // Palettes without air, or with nothing but air, need no decoding
+            matches = new boolean[section.getPaletteSize()];
+            boolean anyAir = false;
+            boolean allAir = true;
+            for (int i = 0; i < matches.length; i++) {
+                matches[i] = isAir(table, section.getPaletteRawId(i));
+                anyAir |= matches[i];
+                allAir &= matches[i];
+            }
+            if (!anyAir) {
+                return NO_AIR;
+            }
+            if (allAir) {
+                return ALL_AIR;
+            }
+        }
+
+        long[] mask = new long[WORDS];
+        section.forEachMatch(matches, index -> mask[index >> 6] |= 1L << index);
+        return mask;
+    }
+
+    // Bit set where at least one face touches air, in the given section or across its border
+    static long[] exposed(long[] air, long[] up, long[] down, long[] north, long[] south, long[] west, long[] east) {
+        long[] exposed = new long[WORDS];
+        for (int w = 0; w < WORDS; w++) {
+            long word = air[w];
+            int zQuad = w & 3;
+
+            // x: one bit per block inside each 16-bit row; the row ends come from the side chunks
+            long result = ((word >>> 1) & ~X15) | ((east[w] & X0) << 15);
+            result |= ((word << 1) & ~X0) | ((west[w] & X15) >>> 15);
+
+            // z: one row is 16 bits; the last row of a word continues in the next word
+            result |= (word >>> 16) | (zQuad < 3 ? air[w + 1] << 48 : south[w - 3] << 48);
+            result |= (word << 16) | (zQuad > 0 ? air[w - 1] >>> 48 : north[w + 3] >>> 48);
+
+            // y: one layer is four words
+            result |= w < WORDS - 4 ? air[w + 4] : up[w - (WORDS - 4)];
+            result |= w >= 4 ? air[w - 4] : down[w + (WORDS - 4)];
+
+            exposed[w] = result;
+        }
+        return exposed;
+    }
+
+    static boolean isSet(long[] mask, int index) {
+        return (mask[index >> 6] & (1L << index)) != 0;
+    }
+}
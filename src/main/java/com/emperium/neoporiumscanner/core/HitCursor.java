@@ -0,0 +1,103 @@
+package com.emperium.neoporiumscanner.core;
+
+import com.emperium.neoporiumscanner.xray.BasicColor;
+import java.util.List;
+
+// Walks the hits of several lists without allocating anything per hit:
+//   for (HitCursor cursor = index.cursor(); cursor.next(); ) { cursor.getX() ... }
+// A range cursor only stops at hits within its radius and knows their distance to its center.
+// Reused by its owner, so only one walk at a time.
+public final class HitCursor {
+    private List<HitList> lists;
+    private int listIndex;
+    private HitList current;
+    private int hit;
+
+    private boolean ranged;
+    private double centerX, centerY, centerZ;
+    private double radiusSq;
+    private double squaredDistance;
+
+    HitCursor reset(List<HitList> lists) {
+        this.lists = lists;
+        this.listIndex = 0;
+        this.current = null;
+        this.hit = -1;
+        this.ranged = false;
+        return this;
+    }
+
+    HitCursor reset(List<HitList> lists, double x, double y, double z, double radius) {
+        reset(lists);
+        this.ranged = true;
+        this.centerX = x;
+        this.centerY = y;
+        this.centerZ = z;
+        this.radiusSq = radius * radius;
+        return this;
+    }
+
+    public boolean next() {
+        while (true) {
+            hit++;
+            while (current == null || hit >= current.size()) {
+                if (listIndex >= lists.size()) {
+                    current = null;
+                    return false;
+                }
+                current = lists.get(listIndex++);
+                hit = 0;
+            }
+            if (!ranged) {
+                return true;
+            }
+
+            squaredDistance = current.squaredDistanceTo(hit, centerX, centerY, centerZ);
+            if (squaredDistance <= radiusSq) {
+                return true;
+            }
+        }
+    }
+
+    public long getPos() {
+        return current.getPos(hit);
+    }
+
+    public int getX() {
+        return current.getX(hit);
+    }
+
+    public int getY() {
+        return current.getY(hit);
+    }
+
+    public int getZ() {
+        return current.getZ(hit);
+    }
+
+    public short getType() {
+        return current.getType(hit);
+    }
+
+    public String getBlockId() {
+        return current.getBlockId(hit);
+    }
+
+    public BasicColor getColor() {
+        return current.getColor(hit);
+    }
+
+    // Shared RGBA array of the hit's color, do not modify
+    public float[] getFloats() {
+        return HitPalette.getFloats(current.getType(hit));
+    }
+
+    // Distance of the hit's center to the range cursor's center, already computed by next()
+    public double getSquaredDistance() {
+        return squaredDistance;
+    }
+
+    public double squaredDistanceTo(double x, double y, double z) {
+        return current.squaredDistanceTo(hit, x, y, z);
+    }
+}
@@ -0,0 +1,161 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.util.math.BlockPos;
+import com.emperium.neoporiumscanner.xray.BasicColor;
+import java.util.Arrays;
+
+// Hits as two parallel primitive arrays: packed positions (BlockPos.asLong) and HitPalette types.
+// Ten bytes per hit and no objects, where a BlockPosWithColor cost four objects and 100+ bytes.
+// Also keeps the bounding box of its hits, which lets spatial queries skip whole lists.
+// Not thread-safe; a list is filled by one worker and then handed over whole.
+public final class HitList {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] positions;
+    private short[] types;
+    private int size = 0;
+    private int modCount = 0;
+    // Grows with add() but never shrinks, so after removals it may be larger than needed
+    private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+    public HitList() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public HitList(int capacity) {
+        positions = new long[Math.max(1, capacity)];
+        types = new short[positions.length];
+    }
+
+    public void add(long pos, short type) {
+        if (size == positions.length) {
+            int capacity = positions.length * 2;
+            positions = Arrays.copyOf(positions, capacity);
+            types = Arrays.copyOf(types, capacity);
+        }
+        positions[size] = pos;
+        types[size] = type;
+        size++;
+        modCount++;
+
+        int x = BlockPos.unpackLongX(pos);
+        int y = BlockPos.unpackLongY(pos);
+        int z = BlockPos.unpackLongZ(pos);
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        minZ = Math.min(minZ, z);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+        maxZ = Math.max(maxZ, z);
+    }
+
+    public void addAll(HitList other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.positions[i], other.types[i]);
+        }
+    }
+
+    // Linear, lists are per chunk and short
+    public int indexOf(long pos) {
+        for (int i = 0; i < size; i++) {
+            if (positions[i] == pos) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void setType(int i, short type) {
+        types[i] = type;
+        modCount++;
+    }
+
+    // Moves the last hit into the gap, so order is not kept
+    public void remove(int i) {
+        size--;
+        positions[i] = positions[size];
+        types[i] = types[size];
+        modCount++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Changes with every add, remove or type change; lets caches built from the list notice edits
+    public int getModCount() {
+        return modCount;
+    }
+
+    public long getPos(int i) {
+        return positions[i];
+    }
+
+    public int getX(int i) {
+        return BlockPos.unpackLongX(positions[i]);
+    }
+
+    public int getY(int i) {
+        return BlockPos.unpackLongY(positions[i]);
+    }
+
+    public int getZ(int i) {
+        return BlockPos.unpackLongZ(positions[i]);
+    }
+
+    public short getType(int i) {
+        return types[i];
+    }
+
+    public String getBlockId(int i) {
+        return HitPalette.getBlockId(types[i]);
+    }
+
+    public BasicColor getColor(int i) {
+        return HitPalette.getColor(types[i]);
+    }
+
+    // Squared distance from a point to the nearest block center inside the bounding box;
+    // a lower bound for every hit in the list. Infinite for a list that never held a hit.
+    public double boxSquaredDistance(double x, double y, double z) {
+        if (minX > maxX) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double dx = Math.max(0, Math.max(minX + 0.5 - x, x - (maxX + 0.5)));
+        double dy = Math.max(0, Math.max(minY + 0.5 - y, y - (maxY + 0.5)));
+        double dz = Math.max(0, Math.max(minZ + 0.5 - z, z - (maxZ + 0.5)));
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    public double squaredDistanceTo(int i, double x, double y, double z) {
+        double dx = getX(i) + 0.5 - x;
+        double dy = getY(i) + 0.5 - y;
+        double dz = getZ(i) + 0.5 - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // Rough heap footprint, for weighing caches
+    public long estimateBytes() {
+        return 64 + positions.length * 8L + types.length * 2L;
+    }
+
+    // Exact-size copy, for keeping a list around
+    public HitList copy() {
+        HitList copy = new HitList(size);
+        System.arraycopy(positions, 0, copy.positions, 0, size);
+        System.arraycopy(types, 0, copy.types, 0, size);
+        copy.size = size;
+        copy.minX = minX;
+        copy.minY = minY;
+        copy.minZ = minZ;
+        copy.maxX = maxX;
+        copy.maxY = maxY;
+        copy.maxZ = maxZ;
+        return copy;
+    }
+}
@@ -0,0 +1,61 @@
+package com.emperium.neoporiumscanner.core;
+
+import com.emperium.neoporiumscanner.xray.BasicColor;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Session-wide table of the (block id, color) pairs hits can have. Hits store a short index into
+// it instead of their own id string and color object. Append-only, so an index stays valid for
+// the whole session and readers on any thread need no lock.
+public final class HitPalette {
+    private static final Map<String, Short> indexes = new HashMap<>();
+    private static volatile String[] blockIds = new String[0];
+    private static volatile BasicColor[] colors = new BasicColor[0];
+    private static volatile float[][] floats = new float[0][];
+
+    private HitPalette() {
+    }
+
+    public static synchronized short typeOf(String blockId, BasicColor color) {
+        String key = blockId + "#" + color.getRGB();
+        Short type = indexes.get(key);
+        if (type != null) {
+            return type;
+        }
+        if (blockIds.length == Short.MAX_VALUE) {
+            throw new IllegalStateException("Hit palette is full");
+        }
+
+        short newType = (short) blockIds.length;
+        // Colors first, so a reader that sees the new id also sees its color
+        colors = append(colors, color);
+        floats = append(floats, color.getFloats());
+        blockIds = append(blockIds, blockId);
+        indexes.put(key, newType);
+        return newType;
+    }
+
+    private static <T> T[] append(T[] array, T value) {
+        T[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = value;
+        return copy;
+    }
+
+    public static String getBlockId(int type) {
+        return blockIds[type];
+    }
+
+    public static BasicColor getColor(int type) {
+        return colors[type];
+    }
+
+    // Shared array, do not modify. Saves the renderers an allocation per hit.
+    public static float[] getFloats(int type) {
+        return floats[type];
+    }
+
+    public static int size() {
+        return blockIds.length;
+    }
+}
@@ -0,0 +1,81 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+import com.emperium.neoporiumscanner.utils.FileUtils;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Plain text log of found blocks, one file per session. Written from scan workers, hence synchronized.
+public class LogManager {
+    private static final File LOG_DIR = new File("logs/neoporium-scanner");
+    private static final DateTimeFormatter FILE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+    private static final DateTimeFormatter LINE_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private static File currentLogFile;
+    private static PrintWriter writer;
+
+    public static synchronized void startNewLog() {
+        closeLog();
+        FileUtils.ensureDirectory(LOG_DIR);
+        currentLogFile = new File(LOG_DIR, "scan-" + LocalDateTime.now().format(FILE_FORMAT) + ".log");
+        try {
+            writer = new PrintWriter(new FileWriter(currentLogFile, true));
+        } catch (IOException e) {
+            System.err.println("Failed to open scan log: " + e.getMessage());
+            writer = null;
+        }
+    }
+
+    public static synchronized void closeLog() {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    public static synchronized File getCurrentLogFile() {
+        return currentLogFile;
+    }
+
+    public static void logBlockFound(BlockPos pos, BlockState state) {
+        logBlockFound(pos, Registries.BLOCK.getId(state.getBlock()).toString(), null);
+    }
+
+    public static synchronized void logBlockFound(BlockPos pos, String blockId, String source) {
+        if (writer == null) {
+            startNewLog();
+            if (writer == null) {
+                return;
+            }
+        }
+
+        writer.printf("[%s] %s at %d %d %d%s%n", LocalDateTime.now().format(LINE_FORMAT), blockId,
+                pos.getX(), pos.getY(), pos.getZ(), source != null ? " (" + source + ")" : "");
+        writer.flush();
+    }
+
+    public static synchronized void logVein(Vein vein, String source) {
+        if (writer == null) {
+            startNewLog();
+            if (writer == null) {
+                return;
+            }
+        }
+
+        Vec3d centroid = vein.getCentroid();
+        BlockPos min = vein.getMin();
+        BlockPos max = vein.getMax();
+        writer.printf("[%s] %s vein of %d around %.1f %.1f %.1f, from %d %d %d to %d %d %d%s%n",
+                LocalDateTime.now().format(LINE_FORMAT), vein.getBlockId(), vein.getCount(),
+                centroid.x, centroid.y, centroid.z, min.getX(), min.getY(), min.getZ(),
+                max.getX(), max.getY(), max.getZ(), source != null ? " (" + source + ")" : "");
+        writer.flush();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import java.util.List;
+
+// The main scan's matcher plus up to 31 ride-along queries, compiled to one bitmask per raw state
+// id: bit 0 is the main matcher, bit i + 1 is query i. A section is decoded once and every hit is
+// routed by its mask, so an extra query costs a few bit tests instead of another pass.
+// Immutable; rebuilt when the queries or the main matcher change.
+public final class QuerySet {
+    public static final int MAX_QUERIES = 31;
+
+    private final BlockMatcher primary;
+    private final ScanQuery[] queries;
+    private final int[] masks;
+    private final boolean[] any;
+    private final boolean blockEntityOnly;
+
+    private QuerySet(BlockMatcher primary, ScanQuery[] queries) {
+        this.primary = primary;
+        this.queries = queries;
+        this.masks = new int[Block.STATE_IDS.size()];
+        this.any = new boolean[masks.length];
+
+        mark(primary, 1);
+        for (int i = 0; i < queries.length; i++) {
+            mark(queries[i].getMatcher(), 1 << (i + 1));
+        }
+        for (int rawId = 0; rawId < masks.length; rawId++) {
+            any[rawId] = masks[rawId] != 0;
+        }
+
+        // Empty matchers find nothing either way, so they don't force a voxel walk
+        boolean onlyBlockEntities = primary.isEmpty() || primary.isBlockEntityOnly();
+        boolean anyTargets = !primary.isEmpty();
+        for (ScanQuery query : queries) {
+            BlockMatcher matcher = query.getMatcher();
+            onlyBlockEntities &= matcher.isEmpty() || matcher.isBlockEntityOnly();
+            anyTargets |= !matcher.isEmpty();
+        }
+        this.blockEntityOnly = onlyBlockEntities && anyTargets;
+    }
+
+    public static QuerySet of(BlockMatcher primary, List<ScanQuery> queries) {
+        int count = Math.min(MAX_QUERIES, queries.size());
+        return new QuerySet(primary, queries.subList(0, count).toArray(new ScanQuery[0]));
+    }
+
+    private void mark(BlockMatcher matcher, int bit) {
+        boolean[] tracked = matcher.getTrackedTable();
+        for (int rawId = 0; rawId < Math.min(tracked.length, masks.length); rawId++) {
+            if (tracked[rawId]) {
+                masks[rawId] |= bit;
+            }
+        }
+    }
+
+    public BlockMatcher getPrimary() {
+        return primary;
+    }
+
+    public ScanQuery[] getQueries() {
+        return queries;
+    }
+
+    public boolean hasQueries() {
+        return queries.length > 0;
+    }
+
+    // Keeps what the queries have reported in step with the world
+    public void onBlockChanged(long pos) {
+        for (ScanQuery query : queries) {
+            query.onBlockChanged(pos);
+        }
+    }
+
+    public void onChunkUnloaded(long chunkPos) {
+        for (ScanQuery query : queries) {
+            query.onChunkUnloaded(chunkPos);
+        }
+    }
+
+    // Every target of the main scan and all queries is a block entity
+    public boolean isBlockEntityOnly() {
+        return blockEntityOnly;
+    }
+
+    public int getMask(int rawId) {
+        return rawId >= 0 && rawId < masks.length ? masks[rawId] : 0;
+    }
+
+    public boolean matchesAny(BlockState state) {
+        return getMask(Block.getRawIdFromState(state)) != 0;
+    }
+
+    // Flag per raw id, for global-palette sections. Do not modify.
+    public boolean[] getAnyTable() {
+        return any;
+    }
+}
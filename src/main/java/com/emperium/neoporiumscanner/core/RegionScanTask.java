@@ -0,0 +1,44 @@
+package com.emperium.neoporiumscanner.core;
+
+import java.util.concurrent.RecursiveAction;
+
+// Fork/join task over a batch of snapshotted scan tasks. Finished chunks go straight to their
+// sink, so workers never share a lock and results show up as they land.
+public class RegionScanTask extends RecursiveAction {
+    private final ScanTask[] tasks;
+    private final int from;
+    private final int to;
+    private final int chunksPerTask;
+
+    public RegionScanTask(ScanTask[] tasks, int from, int to, int chunksPerTask) {
+        this.tasks = tasks;
+        this.from = from;
+        this.to = to;
+        this.chunksPerTask = chunksPerTask;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= chunksPerTask) {
+            for (int i = from; i < to; i++) {
+                try {
+                    tasks[i].scan();
+                } catch (RuntimeException e) {
+                    System.err.println("Scan error: " + e.getMessage());
+                    e.printStackTrace();
+                    tasks[i].getJob().fail(e);
+                }
+            }
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        RegionScanTask left = new RegionScanTask(tasks, from, mid, chunksPerTask);
+        RegionScanTask right = new RegionScanTask(tasks, mid, to, chunksPerTask);
+
+        // Idle workers steal the forked half
+        right.fork();
+        left.compute();
+        right.join();
+    }
+}
@@ -0,0 +1,49 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import com.emperium.neoporiumscanner.utils.LongHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Positions a query has reported, per chunk, as of the chunk's last scan. Every scan replaces the
+// chunk's set, so mined blocks drop out and a block placed again is reported again. Sized by the
+// current hits of loaded chunks: unloaded chunks are forgotten.
+// Called from scan workers and the client thread; a chunk's set is only touched under its map bin.
+final class ReportedHits {
+    private final Map<Long, LongHashSet> chunks = new ConcurrentHashMap<>();
+
+    // The hits of a fresh scan of the chunk that its previous scan didn't have
+    HitList update(long chunkPos, HitList blocks) {
+        HitList fresh = new HitList();
+        if (blocks.isEmpty()) {
+            chunks.remove(chunkPos);
+            return fresh;
+        }
+        chunks.compute(chunkPos, (key, previous) -> {
+            LongHashSet current = new LongHashSet(blocks.size());
+            for (int i = 0; i < blocks.size(); i++) {
+                long pos = blocks.getPos(i);
+                current.add(pos);
+                if (previous == null || !previous.contains(pos)) {
+                    fresh.add(pos, blocks.getType(i));
+                }
+            }
+            return current;
+        });
+        return fresh;
+    }
+
+    // The block changed, so finding it again is news
+    void removeBlock(long pos) {
+        chunks.computeIfPresent(ChunkPos.toLong(BlockPos.unpackLongX(pos) >> 4, BlockPos.unpackLongZ(pos) >> 4),
+                (key, reported) -> {
+                    reported.remove(pos);
+                    return reported;
+                });
+    }
+
+    void removeChunk(long chunkPos) {
+        chunks.remove(chunkPos);
+    }
+}
@@ -0,0 +1,223 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.util.collection.PaletteStorage;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.IdListPalette;
+import net.minecraft.world.chunk.Palette;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+import com.emperium.neoporiumscanner.config.ConfigManager;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Results of chunks the client unloaded, kept per server and dimension so going through a portal
+// and back restores them without a rescan. Every chunk carries the fingerprints of the sections
+// its hits were found in; only the sections of a chunk that come back different are rescanned.
+// Bounded by ConfigManager.getArchiveMaxBlocks(); the least recently visited world is evicted first.
+// Client thread only.
+public class ResultArchive {
+    private static ResultArchive instance;
+
+    // Access order, so the eldest entry is the world visited longest ago
+    private final LinkedHashMap<String, LinkedHashMap<Long, ArchivedChunk>> worlds = new LinkedHashMap<>(16, 0.75f, true);
+    private int blockCount = 0;
+    private int chunkCount = 0;
+
+    private World keyedWorld;
+    private String worldKey;
+
+    private ResultArchive() {
+    }
+
+    public static ResultArchive getInstance() {
+        if (instance == null) {
+            instance = new ResultArchive();
+        }
+        return instance;
+    }
+
+    // Server address plus dimension id. Remembered per world, since the server entry may already
+    // be gone while the old world's chunks are unloaded.
+    public String keyFor(World world) {
+        if (world != keyedWorld) {
+            MinecraftClient client = MinecraftClient.getInstance();
+            ServerInfo server = client.getCurrentServerEntry();
+            String serverKey;
+            if (server != null) {
+                serverKey = server.address;
+            } else if (client.getServer() != null) {
+                serverKey = "local:" + client.getServer().getSaveProperties().getLevelName();
+            } else {
+                serverKey = "unknown";
+            }
+            worldKey = serverKey + "|" + world.getRegistryKey().getValue();
+            keyedWorld = world;
+        }
+        return worldKey;
+    }
+
+    // The fingerprints describe the block data the hits belong to; null if unknown, which makes
+    // the whole chunk count as changed when it comes back
+    public void put(String key, WorldChunk chunk, HitList blocks, long[] sectionFingerprints) {
+        int maxBlocks = ConfigManager.getArchiveMaxBlocks();
+        if (maxBlocks <= 0 || blocks.size() > maxBlocks) {
+            return;
+        }
+
+        ArchivedChunk archived = new ArchivedChunk(sectionFingerprints, blocks);
+        ArchivedChunk old = worlds.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(chunk.getPos().toLong(), archived);
+        if (old != null) {
+            blockCount -= old.size();
+            chunkCount--;
+        }
+        blockCount += archived.size();
+        chunkCount++;
+
+        evict(key, maxBlocks);
+    }
+
+    // Removes and returns the archived chunk, null if there is none
+    public ArchivedChunk take(String key, long chunkPos) {
+        Map<Long, ArchivedChunk> chunks = worlds.get(key);
+        if (chunks == null) {
+            return null;
+        }
+
+        ArchivedChunk archived = chunks.remove(chunkPos);
+        if (archived != null) {
+            blockCount -= archived.size();
+            chunkCount--;
+            if (chunks.isEmpty()) {
+                worlds.remove(key);
+            }
+        }
+        return archived;
+    }
+
+    // Other worlds go first, oldest visit first; the current world loses its oldest chunks last
+    private void evict(String currentKey, int maxBlocks) {
+        Iterator<Map.Entry<String, LinkedHashMap<Long, ArchivedChunk>>> worldIterator = worlds.entrySet().iterator();
+        while (blockCount > maxBlocks && worldIterator.hasNext()) {
+            Map.Entry<String, LinkedHashMap<Long, ArchivedChunk>> entry = worldIterator.next();
+            if (entry.getKey().equals(currentKey)) {
+                continue;
+            }
+            evictChunks(entry.getValue(), maxBlocks);
+            if (entry.getValue().isEmpty()) {
+                worldIterator.remove();
+            }
+        }
+
+        LinkedHashMap<Long, ArchivedChunk> current = worlds.get(currentKey);
+        if (blockCount > maxBlocks && current != null) {
+            evictChunks(current, maxBlocks);
+            if (current.isEmpty()) {
+                worlds.remove(currentKey);
+            }
+        }
+    }
+
+    private void evictChunks(LinkedHashMap<Long, ArchivedChunk> chunks, int maxBlocks) {
+        Iterator<ArchivedChunk> iterator = chunks.values().iterator();
+        while (blockCount > maxBlocks && iterator.hasNext()) {
+            blockCount -= iterator.next().size();
+            chunkCount--;
+            iterator.remove();
+        }
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public int getWorldCount() {
+        return worlds.size();
+    }
+
+    public void clear() {
+        worlds.clear();
+        blockCount = 0;
+        chunkCount = 0;
+    }
+
+    // One hash per section over its palette and packed storage. Cheap next to a scan, and any
+    // block change the client saw in a section alters that section's hash.
+    public static long[] sectionFingerprints(WorldChunk chunk) {
+        ChunkSection[] sections = chunk.getSectionArray();
+        long[] fingerprints = new long[sections.length];
+        for (int k = 0; k < sections.length; k++) {
+            ChunkSection section = sections[k];
+            if (section == null || section.isEmpty()) {
+                continue;
+            }
+
+            long hash = 1125899906842597L;
+            PalettedContainer.Data<BlockState> data = section.getBlockStateContainer().data;
+            PaletteStorage storage = data.storage();
+            Palette<BlockState> palette = data.palette();
+            // Global palettes keep raw ids in the storage itself
+            if (!(palette instanceof IdListPalette)) {
+                for (int i = 0; i < palette.getSize(); i++) {
+                    hash = hash * 31 + Block.getRawIdFromState(palette.get(i));
+                }
+            }
+            for (long word : storage.getData()) {
+                hash = hash * 31 + word;
+            }
+            fingerprints[k] = hash * 31 + storage.getElementBits();
+        }
+        return fingerprints;
+    }
+
+    // Indexes of the sections whose fingerprints differ; null if the old ones are unknown or
+    // the chunk's height changed, so every section counts as changed
+    public static BitSet changedSections(long[] old, long[] current) {
+        if (old == null || old.length != current.length) {
+            return null;
+        }
+        BitSet changed = new BitSet(current.length);
+        for (int k = 0; k < current.length; k++) {
+            if (old[k] != current[k]) {
+                changed.set(k);
+            }
+        }
+        return changed;
+    }
+
+    // One chunk's hits, trimmed to size. HitList types point into the session-wide HitPalette,
+    // so they stay valid for as long as the archive keeps them.
+    public static final class ArchivedChunk {
+        private final long[] sectionFingerprints;
+        private final HitList hits;
+
+        private ArchivedChunk(long[] sectionFingerprints, HitList blocks) {
+            this.sectionFingerprints = sectionFingerprints;
+            this.hits = blocks.copy();
+        }
+
+        // Null if unknown
+        public long[] getSectionFingerprints() {
+            return sectionFingerprints;
+        }
+
+        public int size() {
+            return hits.size();
+        }
+
+        // The archived list itself; the chunk was taken out of the archive, so it is the caller's now
+        public HitList getHits() {
+            return hits;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.client.MinecraftClient;
+import com.emperium.neoporiumscanner.xray.render.RenderManager;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+// Hands per-chunk results from the scan workers to the client thread on a time cadence.
+// Workers only touch a lock-free queue; whichever worker crosses the deadline schedules the drain.
+public class ResultPublisher {
+    private final ConcurrentLinkedQueue<PendingChunk> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong nextPublishNanos = new AtomicLong();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final long intervalNanos;
+    private final BooleanSupplier cancelled;
+
+    private record PendingChunk(long chunkPos, HitList blocks) {
+    }
+
+    public ResultPublisher(long intervalMillis, BooleanSupplier cancelled) {
+        this.intervalNanos = intervalMillis * 1_000_000L;
+        this.cancelled = cancelled;
+        this.nextPublishNanos.set(System.nanoTime());
+    }
+
+    public void submit(long chunkPos, HitList blocks) {
+        pending.add(new PendingChunk(chunkPos, blocks));
+
+        long now = System.nanoTime();
+        long next = nextPublishNanos.get();
+        if (now - next >= 0 && nextPublishNanos.compareAndSet(next, now + intervalNanos)) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            MinecraftClient.getInstance().execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        ScanScheduler scheduler = ScanScheduler.getInstance();
+        PendingChunk chunk;
+        if (cancelled.getAsBoolean()) {
+            while ((chunk = pending.poll()) != null) {
+                scheduler.finish(chunk.chunkPos());
+            }
+            return;
+        }
+
+        ScanController controller = ScanController.getInstance();
+        boolean changed = false;
+        while ((chunk = pending.poll()) != null) {
+            controller.indexChunk(chunk.chunkPos(), chunk.blocks());
+            changed = true;
+            // A block changed after the snapshot; the results stand in until the rescan lands
+            if (scheduler.finish(chunk.chunkPos())) {
+                controller.onStaleResults(chunk.chunkPos());
+            }
+        }
+
+        if (changed) {
+            RenderManager.markDirty();
+        }
+    }
+}
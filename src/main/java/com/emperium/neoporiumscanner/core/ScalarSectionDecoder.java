@@ -0,0 +1,33 @@
+package com.emperium.neoporiumscanner.core;
+
+import java.util.function.IntConsumer;
+
+// Plain decoder: one packed word at a time, front to back. Works everywhere.
+public final class ScalarSectionDecoder implements SectionDecoder {
+    @Override
+    public void forEachMatch(int bits, long[] data, int dataLength, boolean[] matches, IntConsumer action) {
+        decodeWords(bits, data, 0, dataLength, matches, action);
+    }
+
+    // Decodes words from..to only, for the tail the vector decoder leaves over
+    void decodeWords(int bits, long[] data, int from, int to, boolean[] matches, IntConsumer action) {
+        int perLong = 64 / bits;
+        long mask = (1L << bits) - 1;
+        int index = from * perLong;
+        for (int w = from; w < to; w++) {
+            long word = data[w];
+            for (int k = 0; k < perLong && index < SectionSnapshot.BLOCKS; k++, index++) {
+                int value = (int) (word & mask);
+                if (value < matches.length && matches[value]) {
+                    action.accept(index);
+                }
+                word >>>= bits;
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
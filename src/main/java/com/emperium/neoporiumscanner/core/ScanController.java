@@ -1,37 +1,34 @@
 package com.emperium.neoporiumscanner.core;
 
+import net.minecraft.block.BlockState;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
-import com.emperium.neoporiumscanner.xray.BlockPosWithColor;
-import com.emperium.neoporiumscanner.xray.BasicColor;
-import com.emperium.neoporiumscanner.xray.render.BlockDetector;
+import net.minecraft.world.chunk.WorldChunk;
 import com.emperium.neoporiumscanner.xray.render.RenderManager;
 import com.emperium.neoporiumscanner.config.ConfigManager;
+import com.emperium.neoporiumscanner.config.ScanProfile;
 import com.emperium.neoporiumscanner.config.StateSettings;
+import com.emperium.neoporiumscanner.cache.BlockSearchCache;
 import com.emperium.neoporiumscanner.cache.ChunkCache;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 public class ScanController {
     private static ScanController instance;
-    private final ExecutorService executorService;
-    private Future<?> currentScanTask;
-    private boolean isScanning = false;
-    private final List<BlockPosWithColor> scannedBlocks = new ArrayList<>();
-    private final ChunkCache chunkCache = new ChunkCache();
+    private volatile ScanJob currentJob;
+    private final ScanJob backgroundJob = ScanJob.background();
+    private volatile ChunkScanner lastScanner;
+    private volatile QuerySet querySet;
+    private final ScanResultIndex resultIndex = ScanResultIndex.getInstance();
+    private final ScanScheduler scheduler = ScanScheduler.getInstance();
+    private final ChunkCache chunkCache = ChunkCache.getInstance();
+    private final BlockSearchCache searchCache = BlockSearchCache.getInstance();
+    private final ResultArchive archive = ResultArchive.getInstance();
 
     private ScanController() {
-        this.executorService = Executors.newSingleThreadExecutor(r -> {
-            Thread thread = new Thread(r, "Neoporium-Scanner-ScanThread");
-            thread.setDaemon(true);
-            thread.setPriority(Thread.MIN_PRIORITY);
-            return thread;
-        });
     }
 
     public static ScanController getInstance() {
@@ -41,178 +38,419 @@ public class ScanController {
         return instance;
     }
 
-    public synchronized void startScan() {
-        if (isScanning) {
-            return;
+    public synchronized ScanJob start() {
+        if (currentJob != null && !currentJob.isDone()) {
+            return currentJob;
         }
 
         MinecraftClient client = MinecraftClient.getInstance();
         if (client.player == null || client.world == null) {
-            return;
+            return null;
         }
 
-        isScanning = true;
-        StateSettings.setScanning(true);
-
         // Clear previous results
-        scannedBlocks.clear();
+        resultIndex.clear();
         RenderManager.clear();
 
-        // Start new scan task
-        currentScanTask = executorService.submit(() -> {
-            try {
-                World world = client.world;
-                BlockPos playerPos = client.player.getBlockPos();
-                int range = ConfigManager.getScanRange();
-
-                // Calculate scan area
-                int minX = playerPos.getX() - range;
-                int maxX = playerPos.getX() + range;
-                int minY = Math.max(world.getBottomY(), playerPos.getY() - range);
-                int maxY = Math.min(world.getTopY(), playerPos.getY() + range);
-                int minZ = playerPos.getZ() - range;
-                int maxZ = playerPos.getZ() + range;
-
-                List<BlockPosWithColor> newBlocks = new ArrayList<>();
-
-                // Scan in chunks for better performance
-                int chunkMinX = minX >> 4;
-                int chunkMaxX = maxX >> 4;
-                int chunkMinZ = minZ >> 4;
-                int chunkMaxZ = maxZ >> 4;
-
-                for (int chunkX = chunkMinX; chunkX <= chunkMaxX; chunkX++) {
-                    for (int chunkZ = chunkMinZ; chunkZ <= chunkMaxZ; chunkZ++) {
-                        if (!isScanning) {
-                            break;
-                        }
-
-                        ChunkPos chunkPos = new ChunkPos(chunkX, chunkZ);
-
-                        // Check if chunk is already cached
-                        if (chunkCache.isChunkCached(chunkPos)) {
-                            List<BlockPosWithColor> cachedBlocks = chunkCache.getBlocksInChunk(chunkPos);
-                            newBlocks.addAll(cachedBlocks);
-                            continue;
-                        }
-
-                        // Scan this chunk
-                        List<BlockPosWithColor> chunkBlocks = scanChunk(world, chunkPos, minY, maxY,
-                                Math.max(minX, chunkX << 4),
-                                Math.min(maxX, (chunkX << 4) + 15),
-                                Math.max(minZ, chunkZ << 4),
-                                Math.min(maxZ, (chunkZ << 4) + 15));
-
-                        // Cache the chunk
-                        chunkCache.cacheChunk(chunkPos, chunkBlocks);
-                        newBlocks.addAll(chunkBlocks);
-
-                        // Update renderer periodically
-                        if (newBlocks.size() >= 1000) {
-                            updateRenderer(newBlocks);
-                            newBlocks.clear();
-                        }
-                    }
-                }
+        // Calculate scan area
+        World world = client.world;
+        BlockPos playerPos = client.player.getBlockPos();
+        float yaw = client.player.getYaw();
+        ScanProfile profile = ConfigManager.getActiveProfile();
+        int range = profile.getEffectiveRadius();
+
+        // A profile's Y window replaces the cube around the player
+        int minX = playerPos.getX() - range;
+        int maxX = playerPos.getX() + range;
+        int minY = Math.max(world.getBottomY(), profile.hasYWindow() ? profile.getMinY() : playerPos.getY() - range);
+        int maxY = Math.min(world.getTopY(), profile.hasYWindow() ? profile.getMaxY() : playerPos.getY() + range);
+        int minZ = playerPos.getZ() - range;
+        int maxZ = playerPos.getZ() + range;
+        int chunkCount = ((maxX >> 4) - (minX >> 4) + 1) * ((maxZ >> 4) - (minZ >> 4) + 1);
+
+        ScanJob job = new ScanJob(chunkCount);
+        currentJob = job;
+        StateSettings.setScanning(true);
+        job.getCompletion().whenComplete((result, error) -> StateSettings.setScanning(false));
 
-                // Update with remaining blocks
-                if (!newBlocks.isEmpty()) {
-                    updateRenderer(newBlocks);
-                }
+        QuerySet queries = getQuerySet(BlockMatcher.forTargets(profile.getTargets()));
+        if ((queries.getPrimary().isEmpty() && !queries.hasQueries()) || minY > maxY) {
+            job.finish();
+            return job;
+        }
 
-                // Add all blocks to scanned list
-                scannedBlocks.addAll(newBlocks);
-
-            } catch (Exception e) {
-                System.err.println("Scan error: " + e.getMessage());
-                e.printStackTrace();
-            } finally {
-                synchronized (ScanController.this) {
-                    isScanning = false;
-                    StateSettings.setScanning(false);
-                    currentScanTask = null;
-                }
+        ChunkScanner scanner = new ChunkScanner(world, minX, maxX, minY, maxY, minZ, maxZ,
+                playerPos.getX(), playerPos.getZ(), queries, chunkCache, job);
+        lastScanner = scanner.withJob(backgroundJob);
+
+        ResultPublisher publisher = new ResultPublisher(ConfigManager.getScanPublishInterval(), job::isCancelled);
+        job.getCompletion().thenRun(publisher::flush);
+
+        // Visit chunks in rings outward from the player's chunk. The scheduler captures them
+        // in this order a few per tick and hands each batch to the pool.
+        long[] chunks = ScanOrder.nearestFirst(playerPos.getX() >> 4, playerPos.getZ() >> 4,
+                minX >> 4, maxX >> 4, minZ >> 4, maxZ >> 4,
+                yaw, ConfigManager.getScanLookBias());
+        for (long chunkPos : chunks) {
+            scheduler.schedule(chunkPos, scanner, publisher::submit);
+        }
+
+        return job;
+    }
+
+    // Called on the client thread for every block the server changes
+    public void onBlockChanged(BlockPos pos, BlockState state) {
+        long chunkPos = ChunkPos.toLong(pos);
+        chunkCache.removeChunk(new ChunkPos(chunkPos));
+
+        QuerySet queries = querySet;
+        if (queries != null) {
+            queries.onBlockChanged(pos.asLong());
+        }
+
+        // Hits next to the block may become exposed or hidden. On a chunk border some of them
+        // are in the neighbouring chunk.
+        if (ConfigManager.isExposedOnly()) {
+            int chunkX = pos.getX() >> 4;
+            int chunkZ = pos.getZ() >> 4;
+            int localX = pos.getX() & 15;
+            int localZ = pos.getZ() & 15;
+            if (localX == 0) {
+                invalidateChunk(ChunkPos.toLong(chunkX - 1, chunkZ));
+            } else if (localX == 15) {
+                invalidateChunk(ChunkPos.toLong(chunkX + 1, chunkZ));
             }
-        });
+            if (localZ == 0) {
+                invalidateChunk(ChunkPos.toLong(chunkX, chunkZ - 1));
+            } else if (localZ == 15) {
+                invalidateChunk(ChunkPos.toLong(chunkX, chunkZ + 1));
+            }
+        }
+
+        // A scan in flight took its snapshot before this change and is rescanned when its
+        // results land. Without results yet there is nothing else to update.
+        scheduler.markChanged(chunkPos);
+        if (!resultIndex.isChunkIndexed(chunkPos)) {
+            return;
+        }
+
+        // Exposure depends on the blocks around, so the whole chunk is rescanned. Queued
+        // rescans are deduplicated, so a burst of changes costs one scan.
+        if (ConfigManager.isExposedOnly()) {
+            rescanChunk(new ChunkPos(chunkPos));
+            return;
+        }
+
+        // Judge the change by the targets and Y window the chunk was scanned with
+        ChunkScanner scanner = lastScanner;
+        BlockMatcher matcher = scanner != null ? scanner.getMatcher() : BlockMatcher.get();
+        int type = scanner == null || scanner.containsY(pos.getY()) ? matcher.getType(state) : -1;
+
+        boolean changed;
+        if (type >= 0) {
+            changed = resultIndex.putBlock(pos.asLong(), matcher.getHitType(type));
+        } else {
+            changed = resultIndex.removeBlock(pos.asLong());
+        }
+
+        if (changed) {
+            searchCache.onBlockChanged(pos, type >= 0);
+            RenderManager.markDirty();
+        }
     }
 
-    private List<BlockPosWithColor> scanChunk(World world, ChunkPos chunkPos, int minY, int maxY,
-                                              int minX, int maxX, int minZ, int maxZ) {
-        List<BlockPosWithColor> chunkBlocks = new ArrayList<>();
+    // Every chunk's results land here, on the client thread. The section fingerprints are taken
+    // from the loaded chunk; if it changed since the snapshot, the results are stale and a
+    // rescan of the whole chunk is on its way.
+    void indexChunk(long chunkPos, HitList blocks) {
+        World current = MinecraftClient.getInstance().world;
+        ChunkPos pos = new ChunkPos(chunkPos);
+        WorldChunk chunk = current != null ? current.getChunkManager().getWorldChunk(pos.x, pos.z) : null;
+        indexChunk(chunkPos, blocks, chunk != null ? ResultArchive.sectionFingerprints(chunk) : null);
+    }
 
-        for (int x = minX; x <= maxX; x++) {
-            for (int y = minY; y <= maxY; y++) {
-                for (int z = minZ; z <= maxZ; z++) {
-                    if (!isScanning) {
-                        return chunkBlocks;
-                    }
+    private void indexChunk(long chunkPos, HitList blocks, long[] sectionFingerprints) {
+        resultIndex.putChunk(chunkPos, blocks);
+        resultIndex.setSectionFingerprints(chunkPos, sectionFingerprints);
+        searchCache.putChunk(chunkPos, blocks);
+    }
+
+    // Rescans a chunk with results, or flags its scan if one is in flight
+    private void invalidateChunk(long chunkPos) {
+        chunkCache.removeChunk(new ChunkPos(chunkPos));
+        if (resultIndex.isChunkIndexed(chunkPos)) {
+            rescanChunk(new ChunkPos(chunkPos));
+        } else {
+            scheduler.markChanged(chunkPos);
+        }
+    }
 
-                    BlockPos pos = new BlockPos(x, y, z);
+    // Results that landed after a block of their chunk changed. A worker may have cached them
+    // after the change, so they go from the cache as well.
+    void onStaleResults(long chunkPos) {
+        chunkCache.removeChunk(new ChunkPos(chunkPos));
+        rescanChunk(new ChunkPos(chunkPos));
+    }
 
-                    // Check if block should be scanned
-                    if (BlockValidator.shouldScanBlock(world, pos)) {
-                        int[] colorArray = BlockDetector.getColorForBlock(world.getBlockState(pos));
-                        BasicColor color = new BasicColor(colorArray[0], colorArray[1], colorArray[2]);
-                        String blockId = BlockDetector.getBlockId(world.getBlockState(pos));
+    // Results leave the index with the chunk but are archived under the chunk's server and
+    // dimension, so they can come back when the chunk does
+    public void onChunkUnloaded(World world, WorldChunk chunk) {
+        ChunkPos chunkPos = chunk.getPos();
+        chunkCache.removeChunk(chunkPos);
 
-                        chunkBlocks.add(new BlockPosWithColor(pos, color, blockId));
-                    }
+        QuerySet queries = querySet;
+        if (queries != null) {
+            queries.onChunkUnloaded(chunkPos.toLong());
+        }
+
+        HitList blocks = resultIndex.getChunkBlocks(chunkPos.toLong());
+        if (blocks != null) {
+            archive.put(archive.keyFor(world), chunk, blocks, resultIndex.getSectionFingerprints(chunkPos.toLong()));
+            resultIndex.removeChunk(chunkPos.toLong());
+            searchCache.removeChunk(chunkPos);
+            RenderManager.markDirty();
+        }
+    }
+
+    // Fires for every chunk the client receives. A chunk that already has results was resent by
+    // the server, and an archived one may have changed while away. The section fingerprints tell
+    // which sections differ from the block data the results were found in; only those are
+    // rescanned, the hits of the others are kept or restored from the archive. Without known
+    // fingerprints the whole chunk is rescanned. A new chunk is scanned when streaming is on.
+    public void onChunkLoaded(World world, WorldChunk chunk) {
+        ChunkPos chunkPos = chunk.getPos();
+        long[] fingerprints = ResultArchive.sectionFingerprints(chunk);
+        boolean indexed = resultIndex.isChunkIndexed(chunkPos.toLong());
+        boolean archived = false;
+        BitSet changed = null;
+
+        if (indexed) {
+            changed = ResultArchive.changedSections(resultIndex.getSectionFingerprints(chunkPos.toLong()), fingerprints);
+        } else {
+            ResultArchive.ArchivedChunk archivedChunk = archive.take(archive.keyFor(world), chunkPos.toLong());
+            if (archivedChunk != null) {
+                archived = true;
+                changed = ResultArchive.changedSections(archivedChunk.getSectionFingerprints(), fingerprints);
+                // Indexed under the archived fingerprints, so the changed sections still count as changed
+                if (changed != null) {
+                    indexChunk(chunkPos.toLong(), ChunkScanner.outsideSections(archivedChunk.getHits(), changed, world),
+                            archivedChunk.getSectionFingerprints());
+                    RenderManager.markDirty();
+                    indexed = true;
                 }
             }
         }
+        if (changed != null && changed.isEmpty()) {
+            return;
+        }
 
-        return chunkBlocks;
-    }
+        // Exposure depends on the blocks next to a section, so its neighbours above and below go too
+        if (changed != null && ConfigManager.isExposedOnly()) {
+            BitSet grown = (BitSet) changed.clone();
+            for (int k = changed.nextSetBit(0); k >= 0; k = changed.nextSetBit(k + 1)) {
+                grown.set(Math.max(0, k - 1), k + 2);
+            }
+            changed = grown;
+        }
 
-    private void updateRenderer(List<BlockPosWithColor> blocks) {
-        MinecraftClient.getInstance().execute(() -> {
-            RenderManager.updateBlocks(blocks);
-        });
+        ChunkScanner scanner = lastScanner;
+        if (scanner == null || scanner.getWorld() != world || !scanner.contains(chunkPos)) {
+            if (!indexed && !archived && !isInStreamingRange(chunkPos)) {
+                return;
+            }
+            scanner = createStreamingScanner(world, chunkPos);
+            if (scanner == null) {
+                return;
+            }
+        }
+
+        chunkCache.removeChunk(chunkPos);
+        scanChunkAsync(world, chunkPos, scanner, indexed, changed);
     }
 
-    public synchronized void stopScan() {
-        if (!isScanning) {
+    private void rescanChunk(ChunkPos chunkPos) {
+        World world = MinecraftClient.getInstance().world;
+        if (world == null) {
             return;
         }
 
-        isScanning = false;
-        StateSettings.setScanning(false);
+        ChunkScanner scanner = lastScanner;
+        if (scanner == null || scanner.getWorld() != world || !scanner.contains(chunkPos)) {
+            scanner = createStreamingScanner(world, chunkPos);
+            if (scanner == null) {
+                return;
+            }
+        }
+        scanChunkAsync(world, chunkPos, scanner, true, null);
+    }
+
+    private boolean isInStreamingRange(ChunkPos chunkPos) {
+        if (ConfigManager.isAutoScan() && AutoScanner.getInstance().covers(chunkPos)) {
+            return true;
+        }
 
-        if (currentScanTask != null && !currentScanTask.isDone()) {
-            currentScanTask.cancel(true);
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (!ConfigManager.isStreamingScan() || client.player == null) {
+            return false;
         }
+
+        int chunkRange = (ConfigManager.getActiveProfile().getEffectiveRadius() >> 4) + 1;
+        return client.player.getChunkPos().getChebyshevDistance(chunkPos) <= chunkRange;
     }
 
-    public synchronized boolean isScanning() {
-        return isScanning;
+    // Streamed chunks are scanned over their full height, or the active profile's Y window
+    private ChunkScanner createStreamingScanner(World world, ChunkPos chunkPos) {
+        return createColumnScanner(world, chunkPos.x, chunkPos.x, chunkPos.z, chunkPos.z);
     }
 
-    public List<BlockPosWithColor> getScannedBlocks() {
-        return new ArrayList<>(scannedBlocks);
+    // Scanner for the square of chunks the auto-scanner keeps around the player
+    ChunkScanner createFollowScanner(World world, int chunkX, int chunkZ, int chunkRadius) {
+        return createColumnScanner(world, chunkX - chunkRadius, chunkX + chunkRadius,
+                chunkZ - chunkRadius, chunkZ + chunkRadius);
+    }
+
+    private ChunkScanner createColumnScanner(World world, int minChunkX, int maxChunkX, int minChunkZ, int maxChunkZ) {
+        ScanProfile profile = ConfigManager.getActiveProfile();
+        QuerySet queries = getQuerySet(BlockMatcher.forTargets(profile.getTargets()));
+        if (queries.getPrimary().isEmpty() && !queries.hasQueries()) {
+            return null;
+        }
+
+        // Query radii are measured from the player
+        MinecraftClient client = MinecraftClient.getInstance();
+        BlockPos center = client.player != null ? client.player.getBlockPos()
+                : new BlockPos(((minChunkX + maxChunkX) << 4) / 2 + 8, 0, ((minChunkZ + maxChunkZ) << 4) / 2 + 8);
+
+        int minY = profile.hasYWindow() ? Math.max(world.getBottomY(), profile.getMinY()) : world.getBottomY();
+        int maxY = profile.hasYWindow() ? Math.min(world.getTopY(), profile.getMaxY()) : world.getTopY();
+        return new ChunkScanner(world,
+                minChunkX << 4, (maxChunkX << 4) + 15,
+                minY, maxY,
+                minChunkZ << 4, (maxChunkZ << 4) + 15,
+                center.getX(), center.getZ(),
+                queries, chunkCache, backgroundJob);
+    }
+
+    // A chunk that came into auto-scan range
+    void scanFollowChunk(World world, long chunkPos, ChunkScanner scanner) {
+        if (!resultIndex.isChunkIndexed(chunkPos)) {
+            scanChunkAsync(world, new ChunkPos(chunkPos), scanner, false, null);
+        }
+    }
+
+    // A chunk that left auto-scan range. Its results go, the chunk itself may stay loaded.
+    void evictChunk(long chunkPos) {
+        chunkCache.removeChunk(new ChunkPos(chunkPos));
+        if (resultIndex.isChunkIndexed(chunkPos)) {
+            resultIndex.removeChunk(chunkPos);
+            searchCache.removeChunk(new ChunkPos(chunkPos));
+            RenderManager.markDirty();
+        }
+    }
+
+    // Compiles the configured ride-along queries once per main matcher
+    private QuerySet getQuerySet(BlockMatcher primary) {
+        QuerySet queries = querySet;
+        if (queries == null || queries.getPrimary() != primary) {
+            List<ScanQuery> list = new ArrayList<>();
+            ConfigManager.getScanQueries().forEach((profileName, action) -> {
+                ScanProfile profile = ConfigManager.getScanProfile(profileName);
+                if (profile != null) {
+                    list.add(ScanQuery.fromProfile(profile, action));
+                }
+            });
+            queries = QuerySet.of(primary, list);
+            querySet = queries;
+        }
+        return queries;
+    }
+
+    // Sections null for the whole chunk
+    private void scanChunkAsync(World world, ChunkPos chunkPos, ChunkScanner scanner, boolean rescan, BitSet sections) {
+        scheduler.schedule(chunkPos.toLong(), scanner, sections, (pos, blocks) ->
+                MinecraftClient.getInstance().execute(() -> {
+                    boolean stale = scheduler.finish(pos);
+
+                    // Skip if the chunk was unloaded or the results cleared meanwhile
+                    MinecraftClient client = MinecraftClient.getInstance();
+                    if (client.world != world || !world.getChunkManager().isChunkLoaded(chunkPos.x, chunkPos.z)) {
+                        return;
+                    }
+                    if (rescan && !resultIndex.isChunkIndexed(pos)) {
+                        return;
+                    }
+
+                    indexChunk(pos, blocks);
+                    RenderManager.markDirty();
+                    if (stale) {
+                        onStaleResults(pos);
+                    }
+                }));
+    }
+
+    public synchronized void stop() {
+        if (currentJob != null) {
+            currentJob.cancel();
+        }
+    }
+
+    public boolean isRunning() {
+        ScanJob job = currentJob;
+        return job != null && !job.isDone();
+    }
+
+    // Latest manual scan, finished or not. Null before the first scan.
+    public ScanJob getCurrentJob() {
+        return currentJob;
+    }
+
+    public HitList getScannedBlocks() {
+        return resultIndex.getAllBlocks();
     }
 
     public void clearCache() {
         chunkCache.clear();
-        scannedBlocks.clear();
+        archive.clear();
+        resultIndex.clear();
         RenderManager.clear();
     }
 
+    // Cached chunk results were found with the old targets and Y window
+    public void onProfileChanged() {
+        chunkCache.clear();
+        archive.clear();
+        AutoScanner.getInstance().reset();
+        lastScanner = null;
+        querySet = null;
+    }
+
+    // Picked up by the next scan; already reported hits are forgotten
+    public void onQueriesChanged() {
+        querySet = null;
+        lastScanner = null;
+    }
+
+    // The archive is kept, it is keyed by server and dimension. The density map covers the world
+    // that is left; a dimension change resets it by itself.
     public void onWorldUnload() {
-        stopScan();
-        clearCache();
+        stop();
+        lastScanner = null;
+        scheduler.clear();
+        chunkCache.clear();
+        DensityMap.getInstance().clear();
         RenderManager.onWorldUnload();
     }
 
     // Static convenience methods
-    public static void startScan() {
-        getInstance().startScan();
+    public static ScanJob startScan() {
+        return getInstance().start();
     }
 
     public static void stopScan() {
-        getInstance().stopScan();
+        getInstance().stop();
     }
 
     public static boolean isScanning() {
-        return getInstance().isScanning();
+        return getInstance().isRunning();
     }
 }
\ No newline at end of file
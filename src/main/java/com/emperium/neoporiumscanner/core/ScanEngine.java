@@ -0,0 +1,55 @@
+package com.emperium.neoporiumscanner.core;
+
+import com.emperium.neoporiumscanner.config.ConfigManager;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+// Owns the work-stealing pool the scan tasks run on
+public class ScanEngine {
+    private static ScanEngine instance;
+    private ForkJoinPool pool;
+
+    private ScanEngine() {
+        this.pool = createPool(ConfigManager.getScanThreads());
+    }
+
+    public static ScanEngine getInstance() {
+        if (instance == null) {
+            instance = new ScanEngine();
+        }
+        return instance;
+    }
+
+    private static ForkJoinPool createPool(int parallelism) {
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("Neoporium-Scanner-Worker-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+        return new ForkJoinPool(parallelism, factory, null, false);
+    }
+
+    // Picks up a changed thread count. Running scans finish on the old pool.
+    public synchronized ForkJoinPool getPool() {
+        int threads = ConfigManager.getScanThreads();
+        if (pool.getParallelism() != threads) {
+            pool.shutdown();
+            pool = createPool(threads);
+        }
+        return pool;
+    }
+
+    public synchronized int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public synchronized int getActiveThreadCount() {
+        return pool.getActiveThreadCount();
+    }
+
+    public synchronized long getStealCount() {
+        return pool.getStealCount();
+    }
+}
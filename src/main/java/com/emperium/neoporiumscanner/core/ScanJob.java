@@ -0,0 +1,155 @@
+package com.emperium.neoporiumscanner.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+// Handle for one running scan: completion, live progress and a cancellation token.
+// Workers poll isCancelled() once per chunk section, so cancelling takes effect within microseconds.
+public class ScanJob {
+    private final CompletableFuture<ScanJob> completion = new CompletableFuture<>();
+    private final int chunksTotal;
+    private final LongAdder chunksDone = new LongAdder();
+    private final LongAdder sectionsScanned = new LongAdder();
+    private final LongAdder sectionsSkipped = new LongAdder();
+    private final LongAdder blocksCovered = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos = 0;
+    private volatile boolean cancelled = false;
+
+    public ScanJob(int chunksTotal) {
+        this.chunksTotal = chunksTotal;
+    }
+
+    // Open-ended job for chunks scanned outside a manual scan (streaming, rescans)
+    public static ScanJob background() {
+        return new ScanJob(0);
+    }
+
+    public void cancel() {
+        if (completion.isDone()) {
+            return;
+        }
+        cancelled = true;
+        endNanos = System.nanoTime();
+        completion.cancel(false);
+    }
+
+    void finish() {
+        if (!completion.isDone()) {
+            endNanos = System.nanoTime();
+            completion.complete(this);
+        }
+    }
+
+    void fail(Throwable error) {
+        if (!completion.isDone()) {
+            endNanos = System.nanoTime();
+            completion.completeExceptionally(error);
+        }
+    }
+
+    // Progress reporting from the workers. The last chunk of a bounded job completes it.
+    void chunkDone() {
+        chunksDone.increment();
+        if (chunksTotal > 0 && chunksDone.sum() >= chunksTotal) {
+            finish();
+        }
+    }
+
+    void sectionScanned(int blocks) {
+        sectionsScanned.increment();
+        blocksCovered.add(blocks);
+    }
+
+    void sectionSkipped(int blocks) {
+        sectionsSkipped.increment();
+        blocksCovered.add(blocks);
+    }
+
+    public boolean isBackground() {
+        return chunksTotal == 0;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    public CompletableFuture<ScanJob> getCompletion() {
+        return completion;
+    }
+
+    public int getChunksTotal() {
+        return chunksTotal;
+    }
+
+    public int getChunksDone() {
+        return chunksDone.intValue();
+    }
+
+    public long getSectionsScanned() {
+        return sectionsScanned.sum();
+    }
+
+    public long getSectionsSkipped() {
+        return sectionsSkipped.sum();
+    }
+
+    public long getBlocksCovered() {
+        return blocksCovered.sum();
+    }
+
+    public float getProgress() {
+        if (chunksTotal <= 0) {
+            return isDone() ? 1.0f : 0.0f;
+        }
+        return Math.min(1.0f, getChunksDone() / (float) chunksTotal);
+    }
+
+    public long getElapsedMillis() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000L;
+    }
+
+    // Volume covered per second, skipped sections included
+    public double getBlocksPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed > 0 ? getBlocksCovered() * 1000.0 / elapsed : 0;
+    }
+
+    // -1 while there is no rate to extrapolate from yet
+    public long getEtaMillis() {
+        int done = getChunksDone();
+        if (isDone()) {
+            return 0;
+        }
+        if (done == 0 || chunksTotal <= 0) {
+            return -1;
+        }
+        return getElapsedMillis() * (chunksTotal - done) / done;
+    }
+
+    public static String formatRate(double blocksPerSecond) {
+        if (blocksPerSecond >= 1_000_000) {
+            return String.format("%.1fM blocks/s", blocksPerSecond / 1_000_000);
+        }
+        if (blocksPerSecond >= 1_000) {
+            return String.format("%.1fk blocks/s", blocksPerSecond / 1_000);
+        }
+        return String.format("%.0f blocks/s", blocksPerSecond);
+    }
+
+    // Negative durations (unknown ETA) print as "--"
+    public static String formatDuration(long millis) {
+        if (millis < 0) {
+            return "--";
+        }
+        if (millis < 1000) {
+            return millis + "ms";
+        }
+        return String.format("%.1fs", millis / 1000.0);
+    }
+}
@@ -0,0 +1,43 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.util.math.ChunkPos;
+import java.util.Arrays;
+
+public class ScanOrder {
+
+    // Chunks of the area sorted nearest first, so the scan grows in rings around the player.
+    // With a look bias, chunks in front of the camera are pulled forward and chunks behind pushed back.
+    public static long[] nearestFirst(int centerX, int centerZ, int minX, int maxX, int minZ, int maxZ,
+                                      float yaw, float lookBias) {
+        int width = maxX - minX + 1;
+        int count = width * (maxZ - minZ + 1);
+
+        double lookX = -Math.sin(Math.toRadians(yaw));
+        double lookZ = Math.cos(Math.toRadians(yaw));
+
+        // Sort key in the high half, index in the low half - avoids boxing for the sort
+        long[] keyed = new long[count];
+        for (int i = 0; i < count; i++) {
+            int dx = minX + i % width - centerX;
+            int dz = minZ + i / width - centerZ;
+            double distance = Math.sqrt(dx * dx + dz * dz);
+
+            double weight = 1.0;
+            if (lookBias > 0 && distance > 0) {
+                double facing = (dx * lookX + dz * lookZ) / distance;
+                weight = 1.0 - lookBias * 0.5 * facing;
+            }
+
+            long key = (long) (distance * weight * 64.0);
+            keyed[i] = (key << 32) | i;
+        }
+        Arrays.sort(keyed);
+
+        long[] chunks = new long[count];
+        for (int i = 0; i < count; i++) {
+            int index = (int) keyed[i];
+            chunks[i] = ChunkPos.toLong(minX + index % width, minZ + index / width);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,134 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import net.minecraft.util.math.BlockPos;
+import com.emperium.neoporiumscanner.config.ConfigManager;
+import com.emperium.neoporiumscanner.config.ScanProfile;
+
+// A question that rides along with every scan: which blocks (matcher), where (radius around the
+// scan center plus an optional Y window) and what to do with the hits (sink).
+// Answered in the same pass over each section as the main scan.
+public final class ScanQuery {
+    public enum Action {
+        LOG,
+        ALERT
+    }
+
+    private final String name;
+    private final BlockMatcher matcher;
+    private final int radius;
+    private final boolean hasYWindow;
+    private final int minY, maxY;
+    private final ChunkResultSink sink;
+    private final ReportedHits reported;
+
+    public ScanQuery(String name, BlockMatcher matcher, int radius, Integer minY, Integer maxY, ChunkResultSink sink) {
+        this(name, matcher, radius, minY, maxY, sink, new ReportedHits());
+    }
+
+    private ScanQuery(String name, BlockMatcher matcher, int radius, Integer minY, Integer maxY, ChunkResultSink sink,
+                      ReportedHits reported) {
+        this.name = name;
+        this.matcher = matcher;
+        this.radius = radius;
+        this.hasYWindow = minY != null && maxY != null;
+        this.minY = hasYWindow ? minY : 0;
+        this.maxY = hasYWindow ? maxY : 0;
+        this.sink = sink;
+        this.reported = reported;
+    }
+
+    public static ScanQuery fromProfile(ScanProfile profile, Action action) {
+        ReportedHits reported = new ReportedHits();
+        return new ScanQuery(profile.getName(), BlockMatcher.compileTargets(profile.getTargets()),
+                profile.getRadius(),
+                profile.hasYWindow() ? profile.getMinY() : null,
+                profile.hasYWindow() ? profile.getMaxY() : null,
+                createSink(profile.getName(), action, reported), reported);
+    }
+
+    // Chunks get rescanned, so both sinks only report hits their chunk's last scan didn't have
+    private static ChunkResultSink createSink(String name, Action action, ReportedHits reported) {
+        return switch (action) {
+            case LOG -> (chunkPos, blocks) -> {
+                HitList fresh = reported.update(chunkPos, blocks);
+                if (ConfigManager.isVeinMode()) {
+                    // One line per vein. Only this chunk's hits are clustered, so a vein crossing a
+                    // chunk border is logged once per chunk.
+                    for (Vein vein : VeinClusterer.cluster(fresh, ConfigManager.isVeinDiagonal())) {
+                        LogManager.logVein(vein, name);
+                    }
+                    return;
+                }
+                for (int i = 0; i < fresh.size(); i++) {
+                    LogManager.logBlockFound(BlockPos.fromLong(fresh.getPos(i)), fresh.getBlockId(i), name);
+                }
+            };
+            case ALERT -> (chunkPos, blocks) -> {
+                HitList fresh = reported.update(chunkPos, blocks);
+                if (fresh.isEmpty()) {
+                    return;
+                }
+
+                MinecraftClient client = MinecraftClient.getInstance();
+                client.execute(() -> {
+                    if (client.player == null) {
+                        return;
+                    }
+                    BlockPos pos = BlockPos.fromLong(fresh.getPos(0));
+                    String more = fresh.size() > 1 ? " (+" + (fresh.size() - 1) + " more)" : "";
+                    client.player.sendMessage(Text.literal("[" + name + "] ").formatted(Formatting.GOLD)
+                            .append(Text.literal(fresh.getBlockId(0) + " at " + pos.getX() + " " + pos.getY() + " " + pos.getZ() + more)
+                                    .formatted(Formatting.YELLOW)), false);
+                });
+            };
+        };
+    }
+
+    void onBlockChanged(long pos) {
+        reported.removeBlock(pos);
+    }
+
+    void onChunkUnloaded(long chunkPos) {
+        reported.removeChunk(chunkPos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BlockMatcher getMatcher() {
+        return matcher;
+    }
+
+    public ChunkResultSink getSink() {
+        return sink;
+    }
+
+    public boolean hasYWindow() {
+        return hasYWindow;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    // True if the radius reaches into the x/z box
+    public boolean overlaps(int minX, int maxX, int minZ, int maxZ, int centerX, int centerZ) {
+        return radius <= 0 || (maxX >= centerX - radius && minX <= centerX + radius
+                && maxZ >= centerZ - radius && minZ <= centerZ + radius);
+    }
+
+    public boolean contains(int x, int y, int z, int centerX, int centerZ) {
+        if (radius > 0 && (Math.abs(x - centerX) > radius || Math.abs(z - centerZ) > radius)) {
+            return false;
+        }
+        return !hasYWindow || (y >= minY && y <= maxY);
+    }
+}
@@ -0,0 +1,329 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import com.emperium.neoporiumscanner.config.ConfigManager;
+import com.emperium.neoporiumscanner.utils.LongIntHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Current scan results grouped by chunk, one HitList per chunk. The renderers draw straight from
+// here, so every change applied to the index is visible on the next frame.
+// The lists also sit in a flat array so cursor() can walk every hit without allocating.
+// Chunks are the cells of a spatial index: range and nearest queries only visit chunks whose
+// bounding box can hold an answer, so their cost follows the neighbourhood, not the hit count.
+// Every change is mirrored into the DensityMap, which keeps its counts when a chunk is removed
+// and when the index is cleared for a new scan; it only resets with the world.
+// Each chunk may carry the section fingerprints of the block data its hits were found in, so a
+// resent chunk only needs its changed sections rescanned.
+// Only touched on the client thread.
+public class ScanResultIndex {
+    private static ScanResultIndex instance;
+    private final LongIntHashMap slots = new LongIntHashMap();
+    private final List<HitList> lists = new ArrayList<>();
+    private final List<Long> keys = new ArrayList<>();
+    private final Map<Long, long[]> sectionFingerprints = new HashMap<>();
+    private final HitCursor cursor = new HitCursor();
+    private final List<HitList> inRange = new ArrayList<>();
+    private final DensityMap density;
+    private int blockCount = 0;
+    // Bumped by every change to the hits; a rescan that finds the same hits leaves it alone
+    private long modCount = 0;
+
+    // Veins are re-clustered over the whole index, which also merges them across chunk borders.
+    // Rebuilt only after the hits changed, and at most every VEIN_REBUILD_MS while results keep
+    // streaming in.
+    private static final long VEIN_REBUILD_MS = 250;
+    private List<Vein> veins = new ArrayList<>();
+    private long veinModCount = 0;
+    private long lastVeinBuild = 0;
+
+    // Package-private for tests, which bring their own DensityMap
+    ScanResultIndex(DensityMap density) {
+        this.density = density;
+    }
+
+    public static ScanResultIndex getInstance() {
+        if (instance == null) {
+            instance = new ScanResultIndex(DensityMap.getInstance());
+        }
+        return instance;
+    }
+
+    // Replaces everything known about a chunk, including "scanned, nothing found".
+    // The index takes the list over; callers must not touch it afterwards.
+    public void putChunk(long chunkPos, HitList blocks) {
+        int slot = slots.get(chunkPos, -1);
+        if (slot >= 0) {
+            HitList old = lists.get(slot);
+            if (!sameHits(old, blocks)) {
+                modCount++;
+            }
+            blockCount -= old.size();
+            lists.set(slot, blocks);
+        } else {
+            slots.put(chunkPos, lists.size());
+            lists.add(blocks);
+            keys.add(chunkPos);
+            modCount++;
+        }
+
+        blockCount += blocks.size();
+        sectionFingerprints.remove(chunkPos);
+        density.setChunk(chunkPos, blocks);
+    }
+
+    // Same hits in the same order, which is what a rescan of unchanged blocks gives
+    private static boolean sameHits(HitList a, HitList b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.getPos(i) != b.getPos(i) || a.getType(i) != b.getType(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Replaced along with the hits by the next putChunk
+    public void setSectionFingerprints(long chunkPos, long[] fingerprints) {
+        if (fingerprints != null && slots.containsKey(chunkPos)) {
+            sectionFingerprints.put(chunkPos, fingerprints);
+        } else {
+            sectionFingerprints.remove(chunkPos);
+        }
+    }
+
+    // Null if the chunk isn't indexed or its fingerprints are unknown
+    public long[] getSectionFingerprints(long chunkPos) {
+        return sectionFingerprints.get(chunkPos);
+    }
+
+    public void removeChunk(long chunkPos) {
+        int slot = slots.remove(chunkPos, -1);
+        if (slot < 0) {
+            return;
+        }
+        sectionFingerprints.remove(chunkPos);
+
+        blockCount -= lists.get(slot).size();
+
+        // Swap the last chunk into the gap
+        int last = lists.size() - 1;
+        if (slot != last) {
+            lists.set(slot, lists.get(last));
+            keys.set(slot, keys.get(last));
+            slots.put(keys.get(slot), slot);
+        }
+        lists.remove(last);
+        keys.remove(last);
+        modCount++;
+    }
+
+    // Null when the chunk was never scanned. Do not modify.
+    public HitList getChunkBlocks(long chunkPos) {
+        int slot = slots.get(chunkPos, -1);
+        return slot >= 0 ? lists.get(slot) : null;
+    }
+
+    public boolean isChunkIndexed(long chunkPos) {
+        return slots.containsKey(chunkPos);
+    }
+
+    // Adds or replaces a single hit. Ignored for chunks that were never scanned.
+    public boolean putBlock(long pos, short type) {
+        HitList chunkBlocks = getChunkBlocks(chunkOf(pos));
+        if (chunkBlocks == null) {
+            return false;
+        }
+
+        int i = chunkBlocks.indexOf(pos);
+        if (i < 0) {
+            chunkBlocks.add(pos, type);
+            blockCount++;
+        } else if (chunkBlocks.getType(i) == type) {
+            return true;
+        } else {
+            density.add(pos, chunkBlocks.getType(i), -1);
+            chunkBlocks.setType(i, type);
+        }
+        density.add(pos, type, 1);
+        modCount++;
+        return true;
+    }
+
+    public boolean removeBlock(long pos) {
+        HitList chunkBlocks = getChunkBlocks(chunkOf(pos));
+        int i = chunkBlocks != null ? chunkBlocks.indexOf(pos) : -1;
+        if (i < 0) {
+            return false;
+        }
+
+        density.add(pos, chunkBlocks.getType(i), -1);
+        chunkBlocks.remove(i);
+        blockCount--;
+        modCount++;
+        return true;
+    }
+
+    private static long chunkOf(long pos) {
+        return ChunkPos.toLong(BlockPos.unpackLongX(pos) >> 4, BlockPos.unpackLongZ(pos) >> 4);
+    }
+
+    // Walks every hit. The cursor is shared, so only one walk at a time and none across frames.
+    public HitCursor cursor() {
+        return cursor.reset(lists);
+    }
+
+    // Walks the hits within a radius of a point
+    public HitCursor cursor(double x, double y, double z, double radius) {
+        return cursor.reset(getChunksInRange(x, y, z, radius), x, y, z, radius);
+    }
+
+    // The chunks whose box reaches within a radius of a point. Looks up the chunks around the
+    // point, or tests every chunk's box when there are fewer chunks indexed than the radius covers.
+    // The returned list is reused by the next call.
+    public List<HitList> getChunksInRange(double x, double y, double z, double radius) {
+        inRange.clear();
+        double radiusSq = radius * radius;
+        int minChunkX = MathHelper.floor(x - radius) >> 4;
+        int maxChunkX = MathHelper.floor(x + radius) >> 4;
+        int minChunkZ = MathHelper.floor(z - radius) >> 4;
+        int maxChunkZ = MathHelper.floor(z + radius) >> 4;
+
+        if ((long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1) <= lists.size()) {
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    int slot = slots.get(ChunkPos.toLong(chunkX, chunkZ), -1);
+                    if (slot >= 0 && lists.get(slot).boxSquaredDistance(x, y, z) <= radiusSq) {
+                        inRange.add(lists.get(slot));
+                    }
+                }
+            }
+        } else {
+            for (HitList chunkBlocks : lists) {
+                if (chunkBlocks.boxSquaredDistance(x, y, z) <= radiusSq) {
+                    inRange.add(chunkBlocks);
+                }
+            }
+        }
+        return inRange;
+    }
+
+    // The closest hits to a point, nearest first; blockId null for any type. Chunks are visited
+    // by box distance and the search stops at the first box farther than the count-th hit found.
+    public HitList nearest(double x, double y, double z, int count, String blockId) {
+        HitList result = new HitList(count);
+        if (count <= 0 || lists.isEmpty()) {
+            return result;
+        }
+
+        // Several colors can share one block id, so match on the id
+        boolean[] wanted = new boolean[HitPalette.size()];
+        for (int type = 0; type < wanted.length; type++) {
+            wanted[type] = blockId == null || blockId.equals(HitPalette.getBlockId(type));
+        }
+
+        int chunkCount = lists.size();
+        double[] boxDistances = new double[chunkCount];
+        Integer[] order = new Integer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            boxDistances[i] = lists.get(i).boxSquaredDistance(x, y, z);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(boxDistances[a], boxDistances[b]));
+
+        // Best hits so far, kept sorted by distance
+        long[] bestPos = new long[count];
+        short[] bestType = new short[count];
+        double[] bestDistance = new double[count];
+        int found = 0;
+        for (int chunk : order) {
+            if (found == count && boxDistances[chunk] > bestDistance[count - 1]) {
+                break;
+            }
+
+            HitList chunkBlocks = lists.get(chunk);
+            for (int i = 0; i < chunkBlocks.size(); i++) {
+                short type = chunkBlocks.getType(i);
+                if (type >= wanted.length || !wanted[type]) {
+                    continue;
+                }
+                double distance = chunkBlocks.squaredDistanceTo(i, x, y, z);
+                if (found == count && distance >= bestDistance[count - 1]) {
+                    continue;
+                }
+
+                int at = found < count ? found++ : count - 1;
+                while (at > 0 && bestDistance[at - 1] > distance) {
+                    bestPos[at] = bestPos[at - 1];
+                    bestType[at] = bestType[at - 1];
+                    bestDistance[at] = bestDistance[at - 1];
+                    at--;
+                }
+                bestPos[at] = chunkBlocks.getPos(i);
+                bestType[at] = type;
+                bestDistance[at] = distance;
+            }
+        }
+
+        for (int i = 0; i < found; i++) {
+            result.add(bestPos[i], bestType[i]);
+        }
+        return result;
+    }
+
+    // Copy of every hit, for callers that keep them
+    public HitList getAllBlocks() {
+        HitList result = new HitList(blockCount);
+        for (HitList chunkBlocks : lists) {
+            result.addAll(chunkBlocks);
+        }
+        return result;
+    }
+
+    public List<Vein> getVeins() {
+        long now = System.currentTimeMillis();
+        if (veinModCount != modCount && now - lastVeinBuild >= VEIN_REBUILD_MS) {
+            veins = VeinClusterer.cluster(getAllBlocks(), ConfigManager.isVeinDiagonal());
+            veinModCount = modCount;
+            lastVeinBuild = now;
+        }
+        return veins;
+    }
+
+    // Forces a rebuild on the next getVeins, e.g. after the adjacency mode changed
+    public void markVeinsDirty() {
+        veinModCount = -1;
+        lastVeinBuild = 0;
+    }
+
+    // Unchanged while the hits are, so callers can skip work built from them
+    public long getModCount() {
+        return modCount;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    public int getChunkCount() {
+        return lists.size();
+    }
+
+    public void clear() {
+        slots.clear();
+        lists.clear();
+        keys.clear();
+        sectionFingerprints.clear();
+        blockCount = 0;
+        modCount++;
+        veins = new ArrayList<>();
+        veinModCount = modCount;
+    }
+}
@@ -0,0 +1,219 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.client.MinecraftClient;
+import com.emperium.neoporiumscanner.config.ConfigManager;
+import com.emperium.neoporiumscanner.config.StateSettings;
+import com.emperium.neoporiumscanner.utils.LongHashSet;
+import com.emperium.neoporiumscanner.utils.LongIntHashMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Queue of chunks waiting to be snapshotted, drained at the end of each client tick.
+// Each tick stops at whichever comes first: the time budget or StateSettings.maxBlocksPerTick
+// blocks copied. The tick's captures go to the pool as one fork/join batch.
+//
+// The budget follows the frame times: it never exceeds a fifth of the average frame, and it is
+// halved whenever the frame after a busy tick comes out noticeably longer than average, then
+// creeps back up. Only touched on the client thread.
+//
+// Chunks stay in flight from their snapshot until their results reach the client thread. A block
+// change in that window is recorded, so the results can be recognised as stale when they land.
+// Cached results handed out instead of a snapshot count as in flight too: every result that
+// reaches a sink is finished exactly once.
+public class ScanScheduler {
+    private static final long MIN_BUDGET_NANOS = 100_000;
+    private static final double SPIKE_FACTOR = 1.5;
+
+    private static ScanScheduler instance;
+
+    // Insertion ordered, so chunks keep the nearest-first order they were queued in
+    private final LinkedHashMap<Long, ScanTask> queue = new LinkedHashMap<>();
+    // Results per chunk handed to a sink or a worker that haven't landed, and the chunks changed since
+    private final LongIntHashMap inFlight = new LongIntHashMap();
+    private final LongHashSet changedInFlight = new LongHashSet();
+
+    private long lastFrameNanos = 0;
+    private double averageFrameNanos = 0;
+    private double budgetScale = 1.0;
+    private long lastBudgetNanos = 0;
+    private boolean workedSinceFrame = false;
+    private long spikeCount = 0;
+
+    private ScanScheduler() {
+    }
+
+    public static ScanScheduler getInstance() {
+        if (instance == null) {
+            instance = new ScanScheduler();
+        }
+        return instance;
+    }
+
+    public ScanTask schedule(long chunkPos, ChunkScanner scanner, ChunkResultSink sink) {
+        return schedule(chunkPos, scanner, null, sink);
+    }
+
+    // A chunk is queued at most once. A queued task stays unless it was cancelled, it is
+    // background work being replaced by a manual scan, or it misses some of the requested
+    // sections; a task replacing a live one scans the sections of both.
+    public ScanTask schedule(long chunkPos, ChunkScanner scanner, BitSet sections, ChunkResultSink sink) {
+        ScanTask queued = queue.get(chunkPos);
+        boolean live = queued != null && !queued.isCancelled();
+        if (live && queued.covers(sections) && !(queued.getJob().isBackground() && !scanner.getJob().isBackground())) {
+            return queued;
+        }
+
+        if (live && sections != null) {
+            if (queued.getSections() == null) {
+                sections = null;
+            } else {
+                sections = (BitSet) sections.clone();
+                sections.or(queued.getSections());
+            }
+        }
+        ScanTask task = new ScanTask(chunkPos, scanner, sections, sink);
+
+        if (queued != null) {
+            queued.cancel();
+        }
+        queue.put(chunkPos, task);
+        return task;
+    }
+
+    public void tick(MinecraftClient client) {
+        if (queue.isEmpty()) {
+            return;
+        }
+
+        long budget = getBudgetNanos();
+        lastBudgetNanos = budget;
+        long start = System.nanoTime();
+        long deadline = start + budget;
+        int maxBlocks = StateSettings.getMaxBlocksPerTick();
+        int blocks = 0;
+        List<ScanTask> batch = new ArrayList<>();
+
+        // Always take at least one chunk so a tiny budget can't stall the queue
+        Iterator<Map.Entry<Long, ScanTask>> iterator = queue.entrySet().iterator();
+        do {
+            ScanTask task = iterator.next().getValue();
+            iterator.remove();
+            if (task.isCancelled()) {
+                continue;
+            }
+
+            int copied = task.capture();
+            if (copied >= 0) {
+                batch.add(task);
+                blocks += copied;
+                begin(task.getChunkPos());
+            }
+        } while (iterator.hasNext() && blocks < maxBlocks && System.nanoTime() < deadline);
+
+        workedSinceFrame = true;
+        if (!batch.isEmpty()) {
+            ScanTask[] tasks = batch.toArray(new ScanTask[0]);
+            ScanEngine.getInstance().getPool().execute(
+                    new RegionScanTask(tasks, 0, tasks.length, ConfigManager.getScanChunksPerTask()));
+        }
+    }
+
+    // Results for the chunk are on their way: a snapshot was taken or cached results were served
+    void begin(long chunkPos) {
+        inFlight.put(chunkPos, inFlight.get(chunkPos, 0) + 1);
+    }
+
+    // A block changed in a chunk that has no results yet. Returns true if a scan of it is in
+    // flight, which will then come back stale.
+    public boolean markChanged(long chunkPos) {
+        if (!inFlight.containsKey(chunkPos)) {
+            return false;
+        }
+        changedInFlight.add(chunkPos);
+        return true;
+    }
+
+    // The results of an in-flight chunk landed or were dropped. Returns true if the chunk
+    // changed after its snapshot was taken.
+    public boolean finish(long chunkPos) {
+        int count = inFlight.get(chunkPos, 0);
+        if (count == 0) {
+            return false;
+        }
+        if (count == 1) {
+            inFlight.remove(chunkPos, 0);
+        } else {
+            inFlight.put(chunkPos, count - 1);
+        }
+        return changedInFlight.remove(chunkPos);
+    }
+
+    // Called once per rendered frame
+    public void onFrame() {
+        long now = System.nanoTime();
+        if (lastFrameNanos == 0) {
+            lastFrameNanos = now;
+            return;
+        }
+
+        long frameNanos = now - lastFrameNanos;
+        lastFrameNanos = now;
+
+        // Frames over a second are pauses or loading screens, not something to learn from
+        if (frameNanos > 1_000_000_000L) {
+            workedSinceFrame = false;
+            return;
+        }
+
+        if (averageFrameNanos == 0) {
+            averageFrameNanos = frameNanos;
+        }
+
+        if (workedSinceFrame && frameNanos > averageFrameNanos * SPIKE_FACTOR) {
+            budgetScale = Math.max(0.05, budgetScale * 0.5);
+            spikeCount++;
+        } else {
+            budgetScale = Math.min(1.0, budgetScale + 0.02);
+        }
+        workedSinceFrame = false;
+
+        averageFrameNanos += (frameNanos - averageFrameNanos) * 0.05;
+    }
+
+    public long getBudgetNanos() {
+        long base = ConfigManager.getSnapshotBudgetMicros() * 1000L;
+        if (averageFrameNanos > 0) {
+            base = Math.min(base, (long) (averageFrameNanos / 5));
+        }
+        return Math.max(MIN_BUDGET_NANOS, (long) (base * budgetScale));
+    }
+
+    public long getLastBudgetNanos() {
+        return lastBudgetNanos;
+    }
+
+    public double getAverageFrameMillis() {
+        return averageFrameNanos / 1_000_000.0;
+    }
+
+    public long getSpikeCount() {
+        return spikeCount;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public void clear() {
+        for (ScanTask task : queue.values()) {
+            task.cancel();
+        }
+        queue.clear();
+        inFlight.clear();
+        changedInFlight.clear();
+    }
+}
@@ -1,74 +1,117 @@
 package com.emperium.neoporiumscanner.core;
 
-import com.emperium.neoporiumscanner.storage.BlockStore;
-import net.minecraft.world.Heightmap;
-import net.minecraft.block.BlockState;
 import net.minecraft.client.MinecraftClient;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
-import net.minecraft.world.World;
-import net.minecraft.world.chunk.WorldChunk;
-import java.util.ArrayList;
-import java.util.List;
-
-public class ScanTask implements Runnable {
-    private final ChunkPos chunkPos;
-    private final BlockStore blockStore;
+import java.util.BitSet;
+
+// One queued chunk. Waits in the ScanScheduler, gets snapshotted on the client thread and is
+// then scanned on a worker. Cancelling drops it wherever it is in that pipeline.
+// A task may be limited to some sections of the chunk, see ChunkScanner.capture.
+public class ScanTask {
+    private final long chunkPos;
+    private final ChunkScanner scanner;
+    private final BitSet sections;
+    private final ChunkResultSink sink;
+    private ChunkSnapshot snapshot;
     private volatile boolean cancelled = false;
 
-    public ScanTask(ChunkPos chunkPos) {
+    public ScanTask(long chunkPos, ChunkScanner scanner, ChunkResultSink sink) {
+        this(chunkPos, scanner, null, sink);
+    }
+
+    // Sections null for the whole chunk
+    public ScanTask(long chunkPos, ChunkScanner scanner, BitSet sections, ChunkResultSink sink) {
         this.chunkPos = chunkPos;
-        this.blockStore = BlockStore.getInstance();
+        this.scanner = scanner;
+        this.sections = sections;
+        this.sink = sink;
     }
 
-    @Override
-    public void run() {
-        if (cancelled) return;
-
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (client.world == null) return;
-
-        World world = client.world;
-        WorldChunk chunk = world.getChunk(chunkPos.x, chunkPos.z);
-        if (chunk == null) return;
-
-        List<BlockPos> foundBlocks = new ArrayList<>();
-
-        // Get world height for 1.21.4 Updated
-        int maxY = world.getTopY(Heightmap.Type.WORLD_SURFACE, 0, 0);
-        int minY = world.getBottomY();
-
-        //Chunk Scanner
-        for (int x = 0; x < 16; x++) {
-            for (int y = minY; y <= maxY; y++) {
-                for (int z = 0; z < 16; z++) {
-                    if (cancelled) return;
-
-                    BlockPos pos = new BlockPos(
-                            chunkPos.getStartX() + x,
-                            y,
-                            chunkPos.getStartZ() + z
-                    );
-
-                    BlockState state = chunk.getBlockState(pos);
-                    if (blockStore.shouldRender(state)) {
-                        foundBlocks.add(pos);
-                    }
-                }
-            }
-        }
+    public long getChunkPos() {
+        return chunkPos;
+    }
+
+    public ChunkScanner getScanner() {
+        return scanner;
+    }
+
+    // Null for the whole chunk
+    public BitSet getSections() {
+        return sections;
+    }
 
-        if (!cancelled && !foundBlocks.isEmpty()) {
-            client.execute(() -> {
-                for (BlockPos pos : foundBlocks) {
-                    BlockState state = world.getBlockState(pos);
-                    blockStore.processFoundBlock(pos, state);
-                }
-            });
+    // True if this task scans at least the given sections
+    public boolean covers(BitSet other) {
+        if (sections == null) {
+            return true;
+        }
+        if (other == null) {
+            return false;
         }
+        BitSet missing = (BitSet) other.clone();
+        missing.andNot(sections);
+        return missing.isEmpty();
+    }
+
+    public ScanJob getJob() {
+        return scanner.getJob();
+    }
+
+    public boolean isCancelled() {
+        return cancelled || scanner.isCancelled();
     }
 
     public void cancel() {
         cancelled = true;
     }
-}
\ No newline at end of file
+
+    // Client thread. Serves cached results right away; otherwise takes the snapshot.
+    // Returns the number of blocks copied, or -1 if there is nothing left for a worker to do.
+    int capture() {
+        if (scanner.getWorld() != MinecraftClient.getInstance().world) {
+            getJob().chunkDone();
+            return -1;
+        }
+
+        HitList cached = scanner.getCachedResults(chunkPos);
+        if (cached != null) {
+            // The sink finishes the chunk like any other result
+            ScanScheduler.getInstance().begin(chunkPos);
+            sink.accept(chunkPos, cached);
+            getJob().chunkDone();
+            return -1;
+        }
+
+        // Not loaded: nothing to scan, but it still counts toward progress
+        snapshot = scanner.capture(chunkPos, sections);
+        if (snapshot == null) {
+            getJob().chunkDone();
+            return -1;
+        }
+        return snapshot.getCopiedBlocks();
+    }
+
+    // Worker thread, after capture() returned a snapshot
+    void scan() {
+        try {
+            if (!isCancelled()) {
+                // Empty lists are kept so the chunk still counts as scanned
+                sink.accept(chunkPos, scanner.scan(snapshot));
+            } else {
+                // No results will land for the snapshot
+                MinecraftClient.getInstance().execute(() -> ScanScheduler.getInstance().finish(chunkPos));
+            }
+            if (!scanner.isCancelled()) {
+                getJob().chunkDone();
+            }
+        } finally {
+            snapshot.release();
+            snapshot = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ScanTask[" + new ChunkPos(chunkPos) + "]";
+    }
+}
@@ -0,0 +1,11 @@
+package com.emperium.neoporiumscanner.core;
+
+import java.util.function.IntConsumer;
+
+// Turns a section's packed storage into the indexes of the blocks whose stored value is flagged
+// in matches. One implementation is picked at startup, see SectionDecoders.
+public interface SectionDecoder {
+    void forEachMatch(int bits, long[] data, int dataLength, boolean[] matches, IntConsumer action);
+
+    String getName();
+}
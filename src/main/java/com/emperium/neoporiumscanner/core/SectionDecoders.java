@@ -0,0 +1,42 @@
+package com.emperium.neoporiumscanner.core;
+
+// Picks the section decoder once at startup. The vector decoder needs the game to be started with
+// --add-modules jdk.incubator.vector; without it the scalar decoder is used and the vector class
+// is never loaded.
+public final class SectionDecoders {
+    private static final ScalarSectionDecoder SCALAR = new ScalarSectionDecoder();
+    private static final SectionDecoder VECTOR = createVector();
+    private static final SectionDecoder ACTIVE = VECTOR != null ? VECTOR : SCALAR;
+
+    private SectionDecoders() {
+    }
+
+    private static SectionDecoder createVector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            // A single lane is no faster than the scalar loop
+            if (VectorSectionDecoder.getLaneCount() < 2) {
+                return null;
+            }
+            return new VectorSectionDecoder();
+        } catch (LinkageError e) {
+            System.err.println("Vector decoder unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static SectionDecoder get() {
+        return ACTIVE;
+    }
+
+    public static SectionDecoder getScalar() {
+        return SCALAR;
+    }
+
+    // Null when the Vector API isn't available
+    public static SectionDecoder getVector() {
+        return VECTOR;
+    }
+}
@@ -0,0 +1,80 @@
+package com.emperium.neoporiumscanner.core;
+
+import java.util.function.IntConsumer;
+
+// Copy of one chunk section's block state container: the packed index storage plus the
+// palette translated to raw state ids. Never changes once captured, so any thread may read it.
+public final class SectionSnapshot {
+    public static final int BLOCKS = 4096;
+
+    private final int minY;
+    private final int bits;
+    private final int[] palette;
+    private final long[] data;
+    private final int dataLength;
+
+    // palette is null when the section uses the global palette (stored values are raw ids)
+    SectionSnapshot(int minY, int bits, int[] palette, long[] data, int dataLength) {
+        this.minY = minY;
+        this.bits = bits;
+        this.palette = palette;
+        this.data = data;
+        this.dataLength = dataLength;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    public boolean usesGlobalPalette() {
+        return palette == null;
+    }
+
+    public int getPaletteSize() {
+        return palette != null ? palette.length : 0;
+    }
+
+    public int getPaletteRawId(int paletteIndex) {
+        return palette[paletteIndex];
+    }
+
+    // Raw state id at index (y << 8 | z << 4 | x)
+    public int getRawId(int index) {
+        int value = getValue(index);
+        return palette != null ? palette[value] : value;
+    }
+
+    private int getValue(int index) {
+        if (bits == 0) {
+            return 0;
+        }
+        int perLong = 64 / bits;
+        int word = index / perLong;
+        int shift = (index - word * perLong) * bits;
+        return (int) ((data[word] >>> shift) & ((1L << bits) - 1));
+    }
+
+    // Calls action with the index of every block whose stored value is flagged in matches.
+    // matches is indexed by palette index, or by raw id for the global palette.
+    // The order of the indexes depends on the decoder picked at startup.
+    public void forEachMatch(boolean[] matches, IntConsumer action) {
+        if (bits == 0) {
+            if (matches[0]) {
+                for (int i = 0; i < BLOCKS; i++) {
+                    action.accept(i);
+                }
+            }
+            return;
+        }
+
+        SectionDecoders.get().forEachMatch(bits, data, dataLength, matches, action);
+    }
+
+    void release() {
+        SnapshotPool.release(bits, data);
+    }
+}
@@ -0,0 +1,60 @@
+package com.emperium.neoporiumscanner.core;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Recycles the long[] buffers section snapshots copy into. The storage length only depends on
+// the bits per entry, so there is one bucket per bit width.
+public final class SnapshotPool {
+    private static final int MAX_PER_BUCKET = 512;
+    private static final long[] EMPTY = new long[0];
+
+    @SuppressWarnings("unchecked")
+    private static final ConcurrentLinkedQueue<long[]>[] buckets = new ConcurrentLinkedQueue[33];
+    private static final AtomicIntegerArray sizes = new AtomicIntegerArray(33);
+
+    static {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    private SnapshotPool() {
+    }
+
+    static long[] acquire(int bits, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+
+        long[] buffer = bits < buckets.length ? buckets[bits].poll() : null;
+        if (buffer != null) {
+            sizes.decrementAndGet(bits);
+            if (buffer.length >= length) {
+                return buffer;
+            }
+        }
+        return new long[length];
+    }
+
+    static void release(int bits, long[] buffer) {
+        if (buffer.length == 0 || bits >= buckets.length) {
+            return;
+        }
+
+        // Drop the buffer when the bucket is full, the GC takes it from there
+        if (sizes.incrementAndGet(bits) > MAX_PER_BUCKET) {
+            sizes.decrementAndGet(bits);
+            return;
+        }
+        buckets[bits].offer(buffer);
+    }
+
+    public static int getPooledCount() {
+        int total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += sizes.get(i);
+        }
+        return total;
+    }
+}
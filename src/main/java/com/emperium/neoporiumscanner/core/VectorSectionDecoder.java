@@ -0,0 +1,74 @@
+package com.emperium.neoporiumscanner.core;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import java.util.function.IntConsumer;
+
+// SIMD decoder on the incubating Vector API. Loads several packed words per vector, extracts the
+// k-th value of every lane with one shift and mask, and tests all lanes against the palette at once
+// by shifting a 64-bit "palette index -> matches" set by the lane values.
+// Only used for sections with at most 6 bits per entry (palettes up to 64 states), which is nearly
+// every section; wider palettes go to the scalar decoder.
+// Only loaded when the jdk.incubator.vector module is present, see SectionDecoders.
+public final class VectorSectionDecoder implements SectionDecoder {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final int MAX_BITS = 6;
+
+    private final ScalarSectionDecoder scalar = new ScalarSectionDecoder();
+
+    public static int getLaneCount() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public void forEachMatch(int bits, long[] data, int dataLength, boolean[] matches, IntConsumer action) {
+        if (bits > MAX_BITS) {
+            scalar.forEachMatch(bits, data, dataLength, matches, action);
+            return;
+        }
+
+        long matchBits = 0;
+        for (int i = 0; i < Math.min(64, matches.length); i++) {
+            if (matches[i]) {
+                matchBits |= 1L << i;
+            }
+        }
+        if (matchBits == 0) {
+            return;
+        }
+
+        int perLong = 64 / bits;
+        long valueMask = (1L << bits) - 1;
+        int lanes = SPECIES.length();
+        LongVector table = LongVector.broadcast(SPECIES, matchBits);
+
+        int bound = SPECIES.loopBound(dataLength);
+        int w = 0;
+        for (; w < bound; w += lanes) {
+            LongVector words = LongVector.fromArray(SPECIES, data, w);
+            for (int k = 0; k < perLong; k++) {
+                LongVector values = words.lanewise(VectorOperators.LSHR, (long) k * bits).and(valueMask);
+                VectorMask<Long> hits = table.lanewise(VectorOperators.LSHR, values).and(1L).compare(VectorOperators.NE, 0L);
+                if (!hits.anyTrue()) {
+                    continue;
+                }
+                for (int lane = 0; lane < lanes; lane++) {
+                    int index = (w + lane) * perLong + k;
+                    if (hits.laneIsSet(lane) && index < SectionSnapshot.BLOCKS) {
+                        action.accept(index);
+                    }
+                }
+            }
+        }
+
+        // Words that don't fill a whole vector
+        scalar.decodeWords(bits, data, w, dataLength, matches, action);
+    }
+
+    @Override
+    public String getName() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+}
@@ -0,0 +1,74 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
+import com.emperium.neoporiumscanner.xray.BasicColor;
+
+// Connected group of hits of one block type, as found by VeinClusterer
+public class Vein {
+    private final String blockId;
+    private final BasicColor color;
+    private int count = 0;
+    private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+    private long sumX = 0, sumY = 0, sumZ = 0;
+
+    Vein(String blockId, BasicColor color) {
+        this.blockId = blockId;
+        this.color = color;
+    }
+
+    void add(int x, int y, int z) {
+        count++;
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        minZ = Math.min(minZ, z);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+        maxZ = Math.max(maxZ, z);
+        sumX += x;
+        sumY += y;
+        sumZ += z;
+    }
+
+    public String getBlockId() {
+        return blockId;
+    }
+
+    public BasicColor getColor() {
+        return color;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public BlockPos getMin() {
+        return new BlockPos(minX, minY, minZ);
+    }
+
+    public BlockPos getMax() {
+        return new BlockPos(maxX, maxY, maxZ);
+    }
+
+    // Covers the full blocks, so a single-block vein is a unit cube
+    public Box getBox() {
+        return new Box(minX, minY, minZ, maxX + 1, maxY + 1, maxZ + 1);
+    }
+
+    // Mean of the block centers
+    public Vec3d getCentroid() {
+        return new Vec3d(sumX / (double) count + 0.5, sumY / (double) count + 0.5, sumZ / (double) count + 0.5);
+    }
+
+    public double squaredDistanceTo(double x, double y, double z) {
+        return getCentroid().squaredDistanceTo(x, y, z);
+    }
+
+    @Override
+    public String toString() {
+        Vec3d centroid = getCentroid();
+        return String.format("%s x%d around %.0f %.0f %.0f", blockId, count, centroid.x, centroid.y, centroid.z);
+    }
+}
@@ -0,0 +1,102 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.util.math.BlockPos;
+import com.emperium.neoporiumscanner.utils.LongIntHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Groups adjacent hits of the same block type into veins with union-find over packed positions.
+// Hits of the same type share a HitPalette index, so joining compares shorts, not ids.
+// Works on any set of hits, so veins that cross chunk borders merge as long as both chunks are passed in.
+public class VeinClusterer {
+    // Half of each neighbourhood is enough since adjacency is symmetric
+    private static final int[][] FACE_OFFSETS = {
+            {1, 0, 0}, {0, 1, 0}, {0, 0, 1}
+    };
+    private static final int[][] DIAGONAL_OFFSETS = buildDiagonalOffsets();
+
+    private static int[][] buildDiagonalOffsets() {
+        List<int[]> offsets = new ArrayList<>();
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    // Keep the lexicographically positive half of the 26 neighbours
+                    if (dx > 0 || (dx == 0 && dy > 0) || (dx == 0 && dy == 0 && dz > 0)) {
+                        offsets.add(new int[]{dx, dy, dz});
+                    }
+                }
+            }
+        }
+        return offsets.toArray(new int[0][]);
+    }
+
+    public static List<Vein> cluster(HitList blocks, boolean diagonal) {
+        int n = blocks.size();
+        LongIntHashMap indexOf = new LongIntHashMap(n);
+        int[] parent = new int[n];
+        int[] size = new int[n];
+        for (int i = 0; i < n; i++) {
+            indexOf.put(blocks.getPos(i), i);
+            parent[i] = i;
+            size[i] = 1;
+        }
+
+        int[][] offsets = diagonal ? DIAGONAL_OFFSETS : FACE_OFFSETS;
+        for (int i = 0; i < n; i++) {
+            int x = blocks.getX(i);
+            int y = blocks.getY(i);
+            int z = blocks.getZ(i);
+            for (int[] offset : offsets) {
+                int j = indexOf.get(BlockPos.asLong(x + offset[0], y + offset[1], z + offset[2]), -1);
+                if (j >= 0 && sameBlock(blocks.getType(i), blocks.getType(j))) {
+                    union(parent, size, i, j);
+                }
+            }
+        }
+
+        // One vein per root, in order of first appearance
+        List<Vein> veins = new ArrayList<>();
+        int[] veinOf = new int[n];
+        Arrays.fill(veinOf, -1);
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            if (veinOf[root] < 0) {
+                veinOf[root] = veins.size();
+                veins.add(new Vein(blocks.getBlockId(root), blocks.getColor(root)));
+            }
+            veins.get(veinOf[root]).add(blocks.getX(i), blocks.getY(i), blocks.getZ(i));
+        }
+        return veins;
+    }
+
+    // Same type, or the same block under two colors (results from before a color change)
+    private static boolean sameBlock(short a, short b) {
+        return a == b || HitPalette.getBlockId(a).equals(HitPalette.getBlockId(b));
+    }
+
+    // Path halving
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // Union by size keeps the trees shallow
+    private static void union(int[] parent, int[] size, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (size[rootA] < size[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+    }
+}
@@ -0,0 +1,19 @@
+package com.emperium.neoporiumscanner.events;
+
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+import com.emperium.neoporiumscanner.core.ScanController;
+
+public class ChunkEventHandler {
+
+    public static void register() {
+        // New chunks and chunks the server resends
+        ClientChunkEvents.CHUNK_LOAD.register((world, chunk) -> {
+            ScanController.getInstance().onChunkLoaded(world, chunk);
+        });
+
+        // Results for a chunk are archived when it goes away
+        ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> {
+            ScanController.getInstance().onChunkUnloaded(world, chunk);
+        });
+    }
+}
@@ -1,15 +1,20 @@
 package com.emperium.neoporiumscanner.events;
 
+import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
 import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
 import net.minecraft.client.MinecraftClient;
-import net.minecraft.client.util.math.MatrixStack;
 import com.emperium.neoporiumscanner.config.ConfigManager;
+import com.emperium.neoporiumscanner.core.ScanScheduler;
+import com.emperium.neoporiumscanner.xray.render.DensityHud;
 import com.emperium.neoporiumscanner.xray.render.RenderManager;
 
 public class WorldRenderHandler {
 
     public static void register() {
         WorldRenderEvents.AFTER_TRANSLUCENT.register(context -> {
+            // Frame times drive the scan scheduler's budget
+            ScanScheduler.getInstance().onFrame();
+
             MinecraftClient client = MinecraftClient.getInstance();
             if (client.player == null || client.world == null) {
                 return;
@@ -17,14 +22,12 @@ public class WorldRenderHandler {
 
             // Only render if XRay or ESP is enabled
             if (ConfigManager.isXRayEnabled() || ConfigManager.isESPEnabled()) {
-                MatrixStack matrices = context.matrixStack();
-                matrices.push();
-
-                // Apply camera transformation
-                RenderManager.render(matrices);
-
-                matrices.pop();
+                // Camera rotation and projection of this frame
+                RenderManager.render(context.positionMatrix(), context.projectionMatrix());
             }
         });
+
+        // Density minimap
+        HudRenderCallback.EVENT.register((drawContext, tickCounter) -> DensityHud.render(drawContext));
     }
 }
\ No newline at end of file
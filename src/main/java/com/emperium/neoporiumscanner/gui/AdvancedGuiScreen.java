@@ -7,9 +7,13 @@ import net.minecraft.text.Text;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.util.Formatting;
 import com.emperium.neoporiumscanner.config.ConfigManager;
+import com.emperium.neoporiumscanner.config.ScanProfile;
 import com.emperium.neoporiumscanner.config.StateSettings;
 import com.emperium.neoporiumscanner.core.ScanController;
+import com.emperium.neoporiumscanner.core.ScanJob;
 import com.emperium.neoporiumscanner.xray.render.RenderManager;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 public class AdvancedGuiScreen extends Screen {
@@ -31,6 +35,7 @@ public class AdvancedGuiScreen extends Screen {
     // Scan widgets
     private ButtonWidget scanToggleButton;
     private SliderWidget scanRangeSlider;
+    private ButtonWidget profileButton;
     private ButtonWidget blockSelectionButton;
     private ButtonWidget xrayConfigButton;
     private ButtonWidget logManagerButton;
@@ -94,6 +99,21 @@ public class AdvancedGuiScreen extends Screen {
             }
         };
 
+        currentY += spacing;
+
+        // Cycles through the saved profiles
+        profileButton = ButtonWidget.builder(
+                        profileLabel(ConfigManager.getActiveProfile()),
+                        button -> {
+                            List<String> names = new ArrayList<>(ConfigManager.getScanProfiles().keySet());
+                            int next = (names.indexOf(ConfigManager.getActiveProfile().getName()) + 1) % names.size();
+                            ConfigManager.setActiveProfile(names.get(next));
+                            ScanController.getInstance().onProfileChanged();
+                            button.setMessage(profileLabel(ConfigManager.getActiveProfile()));
+                        })
+                .dimensions(centerX - buttonWidth - 5, currentY, buttonWidth * 2 + 10, buttonHeight)
+                .build();
+
         currentY += spacing + sectionSpacing;
 
         // === XRAY CONTROLS ===
@@ -300,6 +320,7 @@ public class AdvancedGuiScreen extends Screen {
         // Add all widgets
         addDrawableChild(scanToggleButton);
         addDrawableChild(scanRangeSlider);
+        addDrawableChild(profileButton);
         addDrawableChild(xrayToggleButton);
         addDrawableChild(xrayOpacitySlider);
         addDrawableChild(xraySeeThroughButton);
@@ -315,6 +336,11 @@ public class AdvancedGuiScreen extends Screen {
         addDrawableChild(quickAccessButton);
     }
 
+    private static Text profileLabel(ScanProfile profile) {
+        return Text.literal("Profile: ").append(Text.literal(profile.getName()).formatted(Formatting.AQUA))
+                .append(Text.literal(" (" + profile.describe() + ")").formatted(Formatting.GRAY));
+    }
+
     @Override
     public void render(DrawContext context, int mouseX, int mouseY, float delta) {
         renderBackground(context);
@@ -325,8 +351,14 @@ public class AdvancedGuiScreen extends Screen {
                 width / 2, 10, 0xFFFFFF);
 
         // Status line
+        ScanJob job = ScanController.getInstance().getCurrentJob();
+        boolean scanning = job != null && !job.isDone();
+        String scanStatus = scanning
+                ? String.format("Scanning %d%% - %s - ETA %s", (int) (job.getProgress() * 100),
+                        ScanJob.formatRate(job.getBlocksPerSecond()), ScanJob.formatDuration(job.getEtaMillis()))
+                : "Idle";
         String status = String.format("%s | XRay: %s | ESP: %s",
-                ScanController.isScanning() ? "Scanning" : "Idle",
+                scanStatus,
                 ConfigManager.isXRayEnabled() ? "ON" : "OFF",
                 ConfigManager.isESPEnabled() ? "ON" : "OFF");
 
@@ -334,6 +366,15 @@ public class AdvancedGuiScreen extends Screen {
                 Text.literal(status).formatted(Formatting.YELLOW),
                 width / 2, 25, 0xFFFFFF);
 
+        // Progress bar above the back button
+        if (scanning) {
+            int barWidth = 310;
+            int barX = width / 2 - barWidth / 2;
+            int barY = height - 40;
+            context.fill(barX, barY, barX + barWidth, barY + 4, 0xFF333333);
+            context.fill(barX, barY, barX + Math.round(barWidth * job.getProgress()), barY + 4, 0xFF55FF55);
+        }
+
         // Key hint
         context.drawTextWithShadow(textRenderer,
                 Text.literal("Press H to toggle GUI").formatted(Formatting.GRAY),
@@ -342,6 +383,16 @@ public class AdvancedGuiScreen extends Screen {
         super.render(context, mouseX, mouseY, delta);
     }
 
+    @Override
+    public void tick() {
+        super.tick();
+
+        // Flip the button back once a scan finishes on its own
+        boolean scanning = ScanController.isScanning();
+        scanToggleButton.setMessage(Text.literal(scanning ? "Stop Scan" : "Start Scan")
+                .formatted(scanning ? Formatting.RED : Formatting.GREEN));
+    }
+
     @Override
     public boolean keyPressed(int keyCode, int scanCode, int modifiers) {
         if (keyCode == 256) { // ESC
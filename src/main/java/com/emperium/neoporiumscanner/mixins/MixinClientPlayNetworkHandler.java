@@ -1,18 +1,27 @@
 package com.emperium.neoporiumscanner.mixins;
 
-import com.emperium.neoporiumscanner.xray.XRayRenderer;
+import com.emperium.neoporiumscanner.core.ScanController;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
 import net.minecraft.network.packet.s2c.play.BlockUpdateS2CPacket;
+import net.minecraft.network.packet.s2c.play.ChunkDeltaUpdateS2CPacket;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
+// All handlers below run on the client thread (the vanilla methods force it before applying the packet).
+// Whole-chunk loads and unloads come through ChunkEventHandler.
 @Mixin(ClientPlayNetworkHandler.class)
 public class MixinClientPlayNetworkHandler {
     @Inject(method = "onBlockUpdate", at = @At("RETURN"))
     private void onBlockUpdate(BlockUpdateS2CPacket packet, CallbackInfo ci) {
-        // Clear render cache when blocks update
-        XRayRenderer.clearBlocks();
+        // Apply the single change instead of clearing every highlight
+        ScanController.getInstance().onBlockChanged(packet.getPos(), packet.getState());
     }
-}
\ No newline at end of file
+
+    @Inject(method = "onChunkDeltaUpdate", at = @At("RETURN"))
+    private void onChunkDeltaUpdate(ChunkDeltaUpdateS2CPacket packet, CallbackInfo ci) {
+        ScanController controller = ScanController.getInstance();
+        packet.visitUpdates(controller::onBlockChanged);
+    }
+}
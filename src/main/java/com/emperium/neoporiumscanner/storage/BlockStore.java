@@ -1,9 +1,11 @@
 package com.emperium.neoporiumscanner.storage;
 
+import com.emperium.neoporiumscanner.core.BlockMatcher;
 import com.emperium.neoporiumscanner.core.LogManager;
 import com.emperium.neoporiumscanner.xray.BasicColor;
 import com.emperium.neoporiumscanner.xray.XRayRenderer;
 import com.google.gson.*;
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.registry.Registries;
 import net.minecraft.util.math.BlockPos;
@@ -16,6 +18,8 @@ public class BlockStore implements Store {
     private final Map<String, BlockEntry> blocks;
     private final Map<String, BasicColor> colorCache;
     private final File configFile;
+    // shouldRender compiled over raw state ids; dropped whenever an entry changes
+    private volatile boolean[] renderStates;
 
     private static class BlockEntry {
         BasicColor color;
@@ -66,11 +70,13 @@ public class BlockStore implements Store {
     public void addBlock(String blockId, BasicColor color, boolean enabled) {
         blocks.put(blockId, new BlockEntry(color, enabled));
         colorCache.put(blockId, color);
+        renderStates = null;
     }
 
     public void removeBlock(String blockId) {
         blocks.remove(blockId);
         colorCache.remove(blockId);
+        renderStates = null;
     }
 
     public BasicColor getColor(String blockId) {
@@ -95,12 +101,19 @@ public class BlockStore implements Store {
         BlockEntry entry = blocks.get(blockId);
         if (entry != null) {
             entry.enabled = enabled;
+            renderStates = null;
         }
     }
 
     public boolean shouldRender(BlockState state) {
-        String blockId = Registries.BLOCK.getId(state.getBlock()).toString();
-        return isEnabled(blockId);
+        boolean[] table = renderStates;
+        if (table == null) {
+            table = BlockMatcher.buildStateTable(s -> isEnabled(Registries.BLOCK.getId(s.getBlock()).toString()));
+            renderStates = table;
+        }
+
+        int rawId = Block.getRawIdFromState(state);
+        return rawId >= 0 && rawId < table.length && table[rawId];
     }
 
     public void processFoundBlock(BlockPos pos, BlockState state) {
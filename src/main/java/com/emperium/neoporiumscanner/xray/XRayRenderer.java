@@ -2,26 +2,25 @@ package com.emperium.neoporiumscanner.xray;
 
 import com.mojang.blaze3d.systems.RenderSystem;
 import net.minecraft.client.MinecraftClient;
-import net.minecraft.client.render.*;
-import net.minecraft.client.util.math.MatrixStack;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Box;
+import net.minecraft.client.render.Camera;
 import net.minecraft.util.math.Vec3d;
+import org.joml.Matrix4f;
 import com.emperium.neoporiumscanner.config.ConfigManager;
-import java.util.ArrayList;
-import java.util.List;
+import com.emperium.neoporiumscanner.core.ScanResultIndex;
+import com.emperium.neoporiumscanner.xray.render.ChunkMeshBuilder;
+import com.emperium.neoporiumscanner.xray.render.ChunkMeshCache;
 
 public class XRayRenderer {
-    private List<BlockPosWithColor> blocks = new ArrayList<>();
+    private final ChunkMeshCache meshes = new ChunkMeshCache(ChunkMeshBuilder.Kind.FACES);
     private boolean needsUpdate = false;
 
-    public void updateBlocks(List<BlockPosWithColor> newBlocks) {
-        this.blocks = new ArrayList<>(newBlocks);
+    public void markDirty() {
         this.needsUpdate = true;
     }
 
-    public void render(MatrixStack matrices) {
-        if (blocks.isEmpty() || !ConfigManager.isXRayEnabled()) return;
+    public void render(Matrix4f viewMatrix, Matrix4f projectionMatrix) {
+        ScanResultIndex index = ScanResultIndex.getInstance();
+        if (index.getBlockCount() == 0 || !ConfigManager.isXRayEnabled()) return;
 
         MinecraftClient client = MinecraftClient.getInstance();
         if (client.player == null || client.world == null) return;
@@ -33,23 +32,11 @@ public class XRayRenderer {
         RenderSystem.enableBlend();
         RenderSystem.defaultBlendFunc();
         RenderSystem.disableDepthTest();
-        RenderSystem.setShaderColor(1.0f, 1.0f, 1.0f, ConfigManager.getXRayOpacity());
 
-        Tessellator tessellator = Tessellator.getInstance();
-        BufferBuilder buffer = tessellator.begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_COLOR);
-
-        for (BlockPosWithColor block : blocks) {
-            BlockPos pos = block.getPos();
-            if (shouldSkipBlock(pos, cameraPos)) continue;
-
-            Box box = new Box(pos);
-            float[] color = block.getColor().getFloats();
-            float alpha = calculateAlpha(pos, cameraPos);
-
-            renderBlockFaces(buffer, box, color[0], color[1], color[2], alpha);
-        }
-
-        BufferRenderer.drawWithGlobalProgram(buffer.end());
+        // Baked per chunk; only chunks within range are drawn
+        float opacity = ConfigManager.getXRayOpacity();
+        meshes.draw(cameraPos, ConfigManager.getXRayDistance(), viewMatrix, projectionMatrix,
+                squaredDistance -> opacity * calculateAlpha(squaredDistance));
 
         // Reset render state
         RenderSystem.enableDepthTest();
@@ -57,62 +44,16 @@ public class XRayRenderer {
         RenderSystem.setShaderColor(1.0f, 1.0f, 1.0f, 1.0f);
     }
 
-    private void renderBlockFaces(BufferBuilder buffer, Box box, float r, float g, float b, float a) {
-        // Bottom face
-        addVertex(buffer, box.minX, box.minY, box.minZ, r, g, b, a);
-        addVertex(buffer, box.maxX, box.minY, box.minZ, r, g, b, a);
-        addVertex(buffer, box.maxX, box.minY, box.maxZ, r, g, b, a);
-        addVertex(buffer, box.minX, box.minY, box.maxZ, r, g, b, a);
-
-        // Top face
-        addVertex(buffer, box.minX, box.maxY, box.minZ, r, g, b, a);
-        addVertex(buffer, box.minX, box.maxY, box.maxZ, r, g, b, a);
-        addVertex(buffer, box.maxX, box.maxY, box.maxZ, r, g, b, a);
-        addVertex(buffer, box.maxX, box.maxY, box.minZ, r, g, b, a);
-
-        // North face
-        addVertex(buffer, box.minX, box.minY, box.minZ, r, g, b, a);
-        addVertex(buffer, box.minX, box.maxY, box.minZ, r, g, b, a);
-        addVertex(buffer, box.maxX, box.maxY, box.minZ, r, g, b, a);
-        addVertex(buffer, box.maxX, box.minY, box.minZ, r, g, b, a);
-
-        // South face
-        addVertex(buffer, box.minX, box.minY, box.maxZ, r, g, b, a);
-        addVertex(buffer, box.maxX, box.minY, box.maxZ, r, g, b, a);
-        addVertex(buffer, box.maxX, box.maxY, box.maxZ, r, g, b, a);
-        addVertex(buffer, box.minX, box.maxY, box.maxZ, r, g, b, a);
-
-        // West face
-        addVertex(buffer, box.minX, box.minY, box.minZ, r, g, b, a);
-        addVertex(buffer, box.minX, box.minY, box.maxZ, r, g, b, a);
-        addVertex(buffer, box.minX, box.maxY, box.maxZ, r, g, b, a);
-        addVertex(buffer, box.minX, box.maxY, box.minZ, r, g, b, a);
-
-        // East face
-        addVertex(buffer, box.maxX, box.minY, box.minZ, r, g, b, a);
-        addVertex(buffer, box.maxX, box.maxY, box.minZ, r, g, b, a);
-        addVertex(buffer, box.maxX, box.maxY, box.maxZ, r, g, b, a);
-        addVertex(buffer, box.maxX, box.minY, box.maxZ, r, g, b, a);
-    }
-
-    private void addVertex(BufferBuilder buffer, double x, double y, double z, float r, float g, float b, float a) {
-        buffer.vertex(x, y, z).color(r, g, b, a);
-    }
-
-    private boolean shouldSkipBlock(BlockPos pos, Vec3d cameraPos) {
-        double distance = Math.sqrt(pos.getSquaredDistance(cameraPos.x, cameraPos.y, cameraPos.z));
-        return distance > ConfigManager.getXRayDistance();
-    }
-
-    private float calculateAlpha(BlockPos pos, Vec3d cameraPos) {
+    private float calculateAlpha(double squaredDistance) {
         if (!ConfigManager.isXRaySeeThrough()) return 1.0f;
-        double distance = Math.sqrt(pos.getSquaredDistance(cameraPos.x, cameraPos.y, cameraPos.z));
+        double distance = Math.sqrt(squaredDistance);
         double maxDist = ConfigManager.getXRayDistance();
         return (float) Math.max(0.3, 1.0 - (distance / (maxDist * 1.5)));
     }
 
+    // Frees the GPU buffers
     public void clear() {
-        blocks.clear();
+        meshes.clear();
     }
 
     public boolean needsUpdate() {
@@ -122,4 +63,4 @@ public class XRayRenderer {
     public void setUpdated() {
         needsUpdate = false;
     }
-}
\ No newline at end of file
+}
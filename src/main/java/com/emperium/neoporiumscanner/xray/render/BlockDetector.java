@@ -5,6 +5,7 @@ import net.minecraft.block.BlockState;
 import net.minecraft.registry.Registries;
 import net.minecraft.util.Identifier;
 import com.emperium.neoporiumscanner.config.ConfigManager;
+import com.emperium.neoporiumscanner.core.BlockMatcher;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -104,7 +105,18 @@ public class BlockDetector {
         return category.getColor();
     }
 
+    // Tracked blocks come from the compiled matcher table
     public static int[] getColorForBlock(BlockState state) {
+        BlockMatcher matcher = BlockMatcher.get();
+        int type = matcher.getType(state);
+        if (type >= 0) {
+            return matcher.getRgb(type);
+        }
+        return resolveColor(state);
+    }
+
+    // Uncompiled lookup, run once per tracked block when the matcher compiles
+    public static int[] resolveColor(BlockState state) {
         Identifier id = Registries.BLOCK.getId(state.getBlock());
         String blockId = id.toString();
 
@@ -120,13 +132,18 @@ public class BlockDetector {
     }
 
     public static String getBlockId(BlockState state) {
+        BlockMatcher matcher = BlockMatcher.get();
+        int type = matcher.getType(state);
+        if (type >= 0) {
+            return matcher.getBlockId(type);
+        }
+
         Identifier id = Registries.BLOCK.getId(state.getBlock());
         return id.toString();
     }
 
     public static boolean isTrackedBlock(BlockState state) {
-        String blockId = getBlockId(state);
-        return ConfigManager.getTrackedBlocks().contains(blockId);
+        return BlockMatcher.get().isTracked(state);
     }
 
     // Inner class for BlockCategory with color
@@ -0,0 +1,341 @@
+package com.emperium.neoporiumscanner.xray.render;
+
+import net.minecraft.util.math.BlockPos;
+import com.emperium.neoporiumscanner.core.HitList;
+import com.emperium.neoporiumscanner.core.HitPalette;
+import com.emperium.neoporiumscanner.utils.LongIntHashMap;
+import java.util.Arrays;
+
+// Turns one chunk's hits into vertices, relative to an origin near the chunk so float positions
+// stay exact. Only touches the hit list and the sink, so it runs without a GL context.
+// Faces between two blocks of the same type are dropped, and with merging on, the remaining
+// coplanar faces of one type are merged greedily into larger quads. Hits in neighbouring
+// chunks are not known here, so faces on the chunk border are always kept.
+// Vertex colors carry the hit color at full alpha (ESP wireframes keep their fixed 0.8 and 0.4
+// factors); distance fading is applied per draw through the shader color.
+public final class ChunkMeshBuilder {
+    public enum Kind {
+        // Up to 6 quads per block, fewer after culling and merging
+        FACES(24),
+        // 12 box edges per block, as line pairs
+        EDGES(24),
+        // 3 axis lines and 4 diagonals per block, as line pairs
+        CROSSES(14);
+
+        private final int verticesPerHit;
+
+        Kind(int verticesPerHit) {
+            this.verticesPerHit = verticesPerHit;
+        }
+
+        public int getVerticesPerHit() {
+            return verticesPerHit;
+        }
+    }
+
+    private static final float EDGE_EXPAND = 0.002f; // slight expansion for visibility
+
+    // Face order: down, up, north, south, west, east
+    private static final int[][] DIRECTIONS = {
+            {0, -1, 0}, {0, 1, 0}, {0, 0, -1}, {0, 0, 1}, {-1, 0, 0}, {1, 0, 0}
+    };
+
+    private ChunkMeshBuilder() {
+    }
+
+    // Returns the number of vertices written; merge only applies to faces
+    public static int build(Kind kind, HitList hits, int originX, int originY, int originZ, boolean merge, MeshSink sink) {
+        if (kind == Kind.FACES) {
+            return merge ? mergedFaces(hits, originX, originY, originZ, sink) : culledFaces(hits, originX, originY, originZ, sink);
+        }
+
+        for (int i = 0; i < hits.size(); i++) {
+            float x = hits.getX(i) - originX;
+            float y = hits.getY(i) - originY;
+            float z = hits.getZ(i) - originZ;
+            int rgb = HitPalette.getColor(hits.getType(i)).getRGB() & 0xFFFFFF;
+
+            if (kind == Kind.EDGES) {
+                edges(sink, x - EDGE_EXPAND, y - EDGE_EXPAND, z - EDGE_EXPAND,
+                        x + 1 + EDGE_EXPAND, y + 1 + EDGE_EXPAND, z + 1 + EDGE_EXPAND, 0xFF000000 | rgb);
+            } else {
+                crosses(sink, x, y, z, x + 1, y + 1, z + 1, 0xCC000000 | rgb, 0x66000000 | rgb);
+            }
+        }
+        return hits.size() * kind.getVerticesPerHit();
+    }
+
+    // One white block at the origin, the mesh the instanced path draws once per hit
+    public static int unit(Kind kind, MeshSink sink) {
+        switch (kind) {
+            case FACES -> {
+                for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                    face(sink, direction, 0, 0, 0, 1, 1, 1, 0xFFFFFFFF);
+                }
+            }
+            case EDGES -> edges(sink, -EDGE_EXPAND, -EDGE_EXPAND, -EDGE_EXPAND,
+                    1 + EDGE_EXPAND, 1 + EDGE_EXPAND, 1 + EDGE_EXPAND, 0xFFFFFFFF);
+            default -> crosses(sink, 0, 0, 0, 1, 1, 1, 0xCCFFFFFF, 0x66FFFFFF);
+        }
+        return kind.getVerticesPerHit();
+    }
+
+    private static int faceColor(int type) {
+        return 0xFF000000 | (HitPalette.getColor(type).getRGB() & 0xFFFFFF);
+    }
+
+    private static LongIntHashMap typesByPos(HitList hits) {
+        LongIntHashMap types = new LongIntHashMap(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            types.put(hits.getPos(i), hits.getType(i));
+        }
+        return types;
+    }
+
+    // A face is hidden when the block it faces is a hit of the same type
+    private static boolean isHidden(LongIntHashMap types, int x, int y, int z, int direction, int type) {
+        int[] offset = DIRECTIONS[direction];
+        return types.get(BlockPos.asLong(x + offset[0], y + offset[1], z + offset[2]), -1) == type;
+    }
+
+    private static int culledFaces(HitList hits, int originX, int originY, int originZ, MeshSink sink) {
+        LongIntHashMap types = typesByPos(hits);
+        int vertices = 0;
+        for (int i = 0; i < hits.size(); i++) {
+            int x = hits.getX(i);
+            int y = hits.getY(i);
+            int z = hits.getZ(i);
+            short type = hits.getType(i);
+            int color = faceColor(type);
+            float minX = x - originX;
+            float minY = y - originY;
+            float minZ = z - originZ;
+
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                if (!isHidden(types, x, y, z, direction, type)) {
+                    face(sink, direction, minX, minY, minZ, minX + 1, minY + 1, minZ + 1, color);
+                    vertices += 4;
+                }
+            }
+        }
+        return vertices;
+    }
+
+    // Per direction, the visible faces are grouped by layer (their coordinate along the face
+    // normal) and each layer is merged on a 2D mask: grow a run along u, then extend it along v
+    // while the whole row matches
+    private static int mergedFaces(HitList hits, int originX, int originY, int originZ, MeshSink sink) {
+        LongIntHashMap types = typesByPos(hits);
+        int vertices = 0;
+        long[] order = new long[hits.size()];
+        int[] layers = new int[hits.size()];
+        int[] us = new int[hits.size()];
+        int[] vs = new int[hits.size()];
+        short[] faceTypes = new short[hits.size()];
+
+        for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+            int count = 0;
+            for (int i = 0; i < hits.size(); i++) {
+                int x = hits.getX(i);
+                int y = hits.getY(i);
+                int z = hits.getZ(i);
+                if (isHidden(types, x, y, z, direction, hits.getType(i))) {
+                    continue;
+                }
+
+                x -= originX;
+                y -= originY;
+                z -= originZ;
+                layers[count] = direction < 2 ? y : direction < 4 ? z : x;
+                us[count] = direction < 4 ? x : z;
+                vs[count] = direction < 2 ? z : y;
+                faceTypes[count] = hits.getType(i);
+                order[count] = (long) layers[count] << 32 | count;
+                count++;
+            }
+
+            Arrays.sort(order, 0, count);
+            int start = 0;
+            while (start < count) {
+                int layer = (int) (order[start] >> 32);
+                int end = start;
+                while (end < count && (int) (order[end] >> 32) == layer) {
+                    end++;
+                }
+                vertices += mergeLayer(sink, direction, layer, order, start, end, us, vs, faceTypes);
+                start = end;
+            }
+        }
+        return vertices;
+    }
+
+    private static int mergeLayer(MeshSink sink, int direction, int layer, long[] order, int start, int end,
+                                  int[] us, int[] vs, short[] faceTypes) {
+        int minU = Integer.MAX_VALUE, minV = Integer.MAX_VALUE;
+        int maxU = Integer.MIN_VALUE, maxV = Integer.MIN_VALUE;
+        for (int k = start; k < end; k++) {
+            int face = (int) order[k];
+            minU = Math.min(minU, us[face]);
+            maxU = Math.max(maxU, us[face]);
+            minV = Math.min(minV, vs[face]);
+            maxV = Math.max(maxV, vs[face]);
+        }
+
+        // type + 1 per cell, 0 = no face
+        int width = maxU - minU + 1;
+        int height = maxV - minV + 1;
+        int[] mask = new int[width * height];
+        for (int k = start; k < end; k++) {
+            int face = (int) order[k];
+            mask[(vs[face] - minV) * width + us[face] - minU] = faceTypes[face] + 1;
+        }
+
+        int vertices = 0;
+        for (int v = 0; v < height; v++) {
+            for (int u = 0; u < width; u++) {
+                int cell = mask[v * width + u];
+                if (cell == 0) {
+                    continue;
+                }
+
+                int runU = 1;
+                while (u + runU < width && mask[v * width + u + runU] == cell) {
+                    runU++;
+                }
+                int runV = 1;
+                grow:
+                while (v + runV < height) {
+                    for (int k = 0; k < runU; k++) {
+                        if (mask[(v + runV) * width + u + k] != cell) {
+                            break grow;
+                        }
+                    }
+                    runV++;
+                }
+                for (int dv = 0; dv < runV; dv++) {
+                    Arrays.fill(mask, (v + dv) * width + u, (v + dv) * width + u + runU, 0);
+                }
+
+                // Back from (layer, u, v) to the box of the merged blocks
+                float u0 = minU + u, u1 = u0 + runU;
+                float v0 = minV + v, v1 = v0 + runV;
+                int color = faceColor(cell - 1);
+                if (direction < 2) {
+                    face(sink, direction, u0, layer, v0, u1, layer + 1, v1, color);
+                } else if (direction < 4) {
+                    face(sink, direction, u0, v0, layer, u1, v1, layer + 1, color);
+                } else {
+                    face(sink, direction, layer, v0, u0, layer + 1, v1, u1, color);
+                }
+                vertices += 4;
+            }
+        }
+        return vertices;
+    }
+
+    // One face of a box, same corner order as the old per-block faces
+    private static void face(MeshSink sink, int direction, float minX, float minY, float minZ,
+                             float maxX, float maxY, float maxZ, int c) {
+        switch (direction) {
+            case 0 -> {
+                // Bottom face
+                sink.vertex(minX, minY, minZ, c);
+                sink.vertex(maxX, minY, minZ, c);
+                sink.vertex(maxX, minY, maxZ, c);
+                sink.vertex(minX, minY, maxZ, c);
+            }
+            case 1 -> {
+                // Top face
+                sink.vertex(minX, maxY, minZ, c);
+                sink.vertex(minX, maxY, maxZ, c);
+                sink.vertex(maxX, maxY, maxZ, c);
+                sink.vertex(maxX, maxY, minZ, c);
+            }
+            case 2 -> {
+                // North face
+                sink.vertex(minX, minY, minZ, c);
+                sink.vertex(minX, maxY, minZ, c);
+                sink.vertex(maxX, maxY, minZ, c);
+                sink.vertex(maxX, minY, minZ, c);
+            }
+            case 3 -> {
+                // South face
+                sink.vertex(minX, minY, maxZ, c);
+                sink.vertex(maxX, minY, maxZ, c);
+                sink.vertex(maxX, maxY, maxZ, c);
+                sink.vertex(minX, maxY, maxZ, c);
+            }
+            case 4 -> {
+                // West face
+                sink.vertex(minX, minY, minZ, c);
+                sink.vertex(minX, minY, maxZ, c);
+                sink.vertex(minX, maxY, maxZ, c);
+                sink.vertex(minX, maxY, minZ, c);
+            }
+            default -> {
+                // East face
+                sink.vertex(maxX, minY, minZ, c);
+                sink.vertex(maxX, maxY, minZ, c);
+                sink.vertex(maxX, maxY, maxZ, c);
+                sink.vertex(maxX, minY, maxZ, c);
+            }
+        }
+    }
+
+    private static void edges(MeshSink sink, float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int c) {
+        // Bottom edges
+        sink.vertex(minX, minY, minZ, c);
+        sink.vertex(maxX, minY, minZ, c);
+        sink.vertex(maxX, minY, minZ, c);
+        sink.vertex(maxX, minY, maxZ, c);
+        sink.vertex(maxX, minY, maxZ, c);
+        sink.vertex(minX, minY, maxZ, c);
+        sink.vertex(minX, minY, maxZ, c);
+        sink.vertex(minX, minY, minZ, c);
+
+        // Top edges
+        sink.vertex(minX, maxY, minZ, c);
+        sink.vertex(maxX, maxY, minZ, c);
+        sink.vertex(maxX, maxY, minZ, c);
+        sink.vertex(maxX, maxY, maxZ, c);
+        sink.vertex(maxX, maxY, maxZ, c);
+        sink.vertex(minX, maxY, maxZ, c);
+        sink.vertex(minX, maxY, maxZ, c);
+        sink.vertex(minX, maxY, minZ, c);
+
+        // Vertical edges
+        sink.vertex(minX, minY, minZ, c);
+        sink.vertex(minX, maxY, minZ, c);
+        sink.vertex(maxX, minY, minZ, c);
+        sink.vertex(maxX, maxY, minZ, c);
+        sink.vertex(maxX, minY, maxZ, c);
+        sink.vertex(maxX, maxY, maxZ, c);
+        sink.vertex(minX, minY, maxZ, c);
+        sink.vertex(minX, maxY, maxZ, c);
+    }
+
+    private static void crosses(MeshSink sink, float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+                                int axis, int diagonal) {
+        float centerX = (minX + maxX) / 2;
+        float centerY = (minY + maxY) / 2;
+        float centerZ = (minZ + maxZ) / 2;
+
+        // Center cross
+        sink.vertex(minX, centerY, centerZ, axis);
+        sink.vertex(maxX, centerY, centerZ, axis);
+        sink.vertex(centerX, minY, centerZ, axis);
+        sink.vertex(centerX, maxY, centerZ, axis);
+        sink.vertex(centerX, centerY, minZ, axis);
+        sink.vertex(centerX, centerY, maxZ, axis);
+
+        // Corner to corner lines
+        sink.vertex(minX, minY, minZ, diagonal);
+        sink.vertex(maxX, maxY, maxZ, diagonal);
+        sink.vertex(maxX, minY, minZ, diagonal);
+        sink.vertex(minX, maxY, maxZ, diagonal);
+        sink.vertex(minX, minY, maxZ, diagonal);
+        sink.vertex(maxX, maxY, minZ, diagonal);
+        sink.vertex(maxX, minY, maxZ, diagonal);
+        sink.vertex(minX, maxY, minZ, diagonal);
+    }
+}
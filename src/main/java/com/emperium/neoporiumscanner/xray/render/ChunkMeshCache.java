@@ -0,0 +1,196 @@
+package com.emperium.neoporiumscanner.xray.render;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.gl.GlUsage;
+import net.minecraft.client.gl.ShaderProgram;
+import net.minecraft.client.gl.ShaderProgramKeys;
+import net.minecraft.client.gl.VertexBuffer;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.BuiltBuffer;
+import net.minecraft.client.render.VertexFormat;
+import net.minecraft.client.render.VertexFormats;
+import net.minecraft.client.util.BufferAllocator;
+import net.minecraft.util.math.Vec3d;
+import org.joml.Matrix4f;
+import com.emperium.neoporiumscanner.config.ConfigManager;
+import com.emperium.neoporiumscanner.core.HitList;
+import com.emperium.neoporiumscanner.core.ScanResultIndex;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+// One baked mesh per chunk, kept in a GPU buffer and drawn with one bind and one draw call.
+// A mesh is rebuilt only when its chunk's hit list is replaced or edited (or face merging is
+// toggled); meshes of chunks
+// that were not drawn for MAX_IDLE_FRAMES are freed. Render thread only.
+// With instancing on and supported, a chunk is an instance buffer drawn over one unit mesh
+// (InstancedBoxes) instead of a baked mesh. Merged faces always use baked meshes, since a merged
+// quad spans several blocks.
+public class ChunkMeshCache {
+    private static final int MAX_IDLE_FRAMES = 600;
+    private static final int SWEEP_INTERVAL = 60;
+
+    private final ChunkMeshBuilder.Kind kind;
+    private final VertexFormat.DrawMode drawMode;
+    private final InstancedBoxes instanced;
+    private final Map<HitList, Mesh> meshes = new IdentityHashMap<>();
+    private final Matrix4f modelView = new Matrix4f();
+    private int frame = 0;
+
+    public ChunkMeshCache(ChunkMeshBuilder.Kind kind) {
+        this.kind = kind;
+        this.drawMode = kind == ChunkMeshBuilder.Kind.FACES ? VertexFormat.DrawMode.QUADS : VertexFormat.DrawMode.DEBUG_LINES;
+        this.instanced = new InstancedBoxes(kind);
+    }
+
+    // Draws every chunk within range. The alpha of a chunk comes from the squared distance to the
+    // nearest point of its box, so fading happens per chunk instead of per block.
+    public void draw(Vec3d cameraPos, double range, Matrix4f viewMatrix, Matrix4f projectionMatrix, DoubleUnaryOperator alpha) {
+        frame++;
+        boolean merge = kind == ChunkMeshBuilder.Kind.FACES && ConfigManager.isXRayMergeFaces();
+        boolean instancing = !merge && ConfigManager.isInstancedRendering() && InstancedBoxes.isAvailable();
+        ShaderProgram shader = null;
+        if (instancing) {
+            instanced.begin(projectionMatrix);
+        } else {
+            shader = RenderSystem.setShader(ShaderProgramKeys.POSITION_COLOR);
+        }
+
+        for (HitList hits : ScanResultIndex.getInstance().getChunksInRange(cameraPos.x, cameraPos.y, cameraPos.z, range)) {
+            if (hits.isEmpty()) {
+                continue;
+            }
+
+            Mesh mesh = meshes.get(hits);
+            if (mesh == null || mesh.modCount != hits.getModCount() || mesh.merged != merge || mesh.isInstanced() != instancing) {
+                if (mesh != null) {
+                    mesh.close();
+                }
+                mesh = instancing ? upload(hits) : build(hits, merge);
+                meshes.put(hits, mesh);
+            }
+            mesh.lastFrame = frame;
+            if (mesh.buffer == null && mesh.instances == null) {
+                continue;
+            }
+
+            float chunkAlpha = (float) alpha.applyAsDouble(hits.boxSquaredDistance(cameraPos.x, cameraPos.y, cameraPos.z));
+            modelView.set(viewMatrix).translate((float) (mesh.originX - cameraPos.x),
+                    (float) (mesh.originY - cameraPos.y), (float) (mesh.originZ - cameraPos.z));
+
+            if (instancing) {
+                instanced.draw(mesh.instances, modelView, chunkAlpha);
+            } else {
+                RenderSystem.setShaderColor(1.0f, 1.0f, 1.0f, chunkAlpha);
+                mesh.buffer.bind();
+                mesh.buffer.draw(modelView, projectionMatrix, shader);
+            }
+        }
+
+        if (instancing) {
+            instanced.end();
+        } else {
+            VertexBuffer.unbind();
+            RenderSystem.setShaderColor(1.0f, 1.0f, 1.0f, 1.0f);
+        }
+
+        if (frame % SWEEP_INTERVAL == 0) {
+            sweep();
+        }
+    }
+
+    // Origin on the chunk's corner, so vertex positions are small and exact
+    private static int origin(int coordinate) {
+        return coordinate & ~15;
+    }
+
+    private Mesh upload(HitList hits) {
+        int originX = origin(hits.getX(0));
+        int originY = origin(hits.getY(0));
+        int originZ = origin(hits.getZ(0));
+        return new Mesh(null, instanced.upload(hits, originX, originY, originZ), hits.getModCount(), false,
+                originX, originY, originZ);
+    }
+
+    private Mesh build(HitList hits, boolean merge) {
+        int originX = origin(hits.getX(0));
+        int originY = origin(hits.getY(0));
+        int originZ = origin(hits.getZ(0));
+
+        // Upper bound; culled and merged faces need fewer
+        int vertices = hits.size() * kind.getVerticesPerHit();
+        try (BufferAllocator allocator = new BufferAllocator(vertices * VertexFormats.POSITION_COLOR.getVertexSize())) {
+            BufferBuilder builder = new BufferBuilder(allocator, drawMode, VertexFormats.POSITION_COLOR);
+            ChunkMeshBuilder.build(kind, hits, originX, originY, originZ, merge,
+                    (x, y, z, argb) -> builder.vertex(x, y, z).color(argb));
+
+            VertexBuffer buffer = null;
+            BuiltBuffer built = builder.endNullable();
+            if (built != null) {
+                buffer = new VertexBuffer(GlUsage.STATIC_WRITE);
+                buffer.bind();
+                buffer.upload(built);
+                VertexBuffer.unbind();
+            }
+            return new Mesh(buffer, null, hits.getModCount(), merge, originX, originY, originZ);
+        }
+    }
+
+    // Frees meshes of chunks that left the index or stayed out of range
+    private void sweep() {
+        Iterator<Mesh> iterator = meshes.values().iterator();
+        while (iterator.hasNext()) {
+            Mesh mesh = iterator.next();
+            if (frame - mesh.lastFrame > MAX_IDLE_FRAMES) {
+                mesh.close();
+                iterator.remove();
+            }
+        }
+    }
+
+    public int getMeshCount() {
+        return meshes.size();
+    }
+
+    public void clear() {
+        for (Mesh mesh : meshes.values()) {
+            mesh.close();
+        }
+        meshes.clear();
+        instanced.close();
+    }
+
+    private static final class Mesh {
+        final VertexBuffer buffer;
+        final InstancedBoxes.Instances instances;
+        final int modCount;
+        final boolean merged;
+        final int originX, originY, originZ;
+        int lastFrame;
+
+        Mesh(VertexBuffer buffer, InstancedBoxes.Instances instances, int modCount, boolean merged,
+             int originX, int originY, int originZ) {
+            this.buffer = buffer;
+            this.instances = instances;
+            this.modCount = modCount;
+            this.merged = merged;
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+        }
+
+        boolean isInstanced() {
+            return instances != null;
+        }
+
+        void close() {
+            if (buffer != null) {
+                buffer.close();
+            }
+            if (instances != null) {
+                instances.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.emperium.neoporiumscanner.xray.render;
+
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.util.math.ChunkPos;
+import com.emperium.neoporiumscanner.config.ConfigManager;
+import com.emperium.neoporiumscanner.core.DensityMap;
+
+// Minimap of hit counts per chunk around the player, north up, drawn in the top right corner.
+// Reads the density map only, so it costs one lookup per cell regardless of how many hits there are.
+public class DensityHud {
+    private static final int RADIUS = 7;
+    private static final int CELL = 6;
+    private static final int MARGIN = 4;
+
+    public static void render(DrawContext context) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (!ConfigManager.isDensityHud() || client.player == null || client.options.hudHidden) {
+            return;
+        }
+
+        DensityMap density = DensityMap.getInstance();
+        String blockId = ConfigManager.getDensityBlock();
+        int type = blockId.isEmpty() ? -1 : density.getTypeIndex(blockId);
+        if (!blockId.isEmpty() && type < 0) {
+            type = Integer.MAX_VALUE; // not counted yet, every cell reads as empty
+        }
+
+        ChunkPos center = client.player.getChunkPos();
+        int size = (RADIUS * 2 + 1) * CELL;
+        int left = context.getScaledWindowWidth() - size - MARGIN;
+        int top = MARGIN;
+        int lastBand = density.getBandCount() - 1;
+
+        // Scale colors against the busiest visible chunk
+        int[] counts = new int[(RADIUS * 2 + 1) * (RADIUS * 2 + 1)];
+        int max = 1;
+        for (int dz = -RADIUS; dz <= RADIUS; dz++) {
+            for (int dx = -RADIUS; dx <= RADIUS; dx++) {
+                long chunkPos = ChunkPos.toLong(center.x + dx, center.z + dz);
+                int count = type == Integer.MAX_VALUE ? 0 : density.getCount(chunkPos, type, 0, lastBand);
+                counts[(dz + RADIUS) * (RADIUS * 2 + 1) + dx + RADIUS] = density.isChunkCounted(chunkPos) ? count : -1;
+                max = Math.max(max, count);
+            }
+        }
+
+        context.fill(left - 1, top - 1, left + size + 1, top + size + 1, 0xA0000000);
+        for (int dz = -RADIUS; dz <= RADIUS; dz++) {
+            for (int dx = -RADIUS; dx <= RADIUS; dx++) {
+                int count = counts[(dz + RADIUS) * (RADIUS * 2 + 1) + dx + RADIUS];
+                int x = left + (dx + RADIUS) * CELL;
+                int y = top + (dz + RADIUS) * CELL;
+                context.fill(x, y, x + CELL - 1, y + CELL - 1, cellColor(count, max));
+            }
+        }
+
+        // Player's chunk
+        int px = left + RADIUS * CELL;
+        int py = top + RADIUS * CELL;
+        context.fill(px + CELL / 2 - 1, py + CELL / 2 - 1, px + CELL / 2 + 1, py + CELL / 2 + 1, 0xFFFFFFFF);
+
+        String label = blockId.isEmpty() ? "all targets" : blockId.replace("minecraft:", "");
+        context.drawTextWithShadow(client.textRenderer, label, left, top + size + 3, 0xFFFFFF);
+    }
+
+    // Unscanned chunks are dark, empty ones grey, then blue to red by share of the maximum
+    private static int cellColor(int count, int max) {
+        if (count < 0) {
+            return 0x60202020;
+        }
+        if (count == 0) {
+            return 0x80505050;
+        }
+
+        float heat = Math.min(1.0f, (float) Math.sqrt(count / (double) max));
+        int red = (int) (255 * heat);
+        int blue = (int) (255 * (1 - heat));
+        return 0xE0000000 | red << 16 | 0x30 << 8 | blue;
+    }
+}
@@ -2,25 +2,22 @@ package com.emperium.neoporiumscanner.xray.render;
 
 import com.mojang.blaze3d.systems.RenderSystem;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gl.ShaderProgramKeys;
 import net.minecraft.client.render.*;
-import net.minecraft.client.util.math.MatrixStack;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Box;
 import net.minecraft.util.math.Vec3d;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fStack;
 import com.emperium.neoporiumscanner.config.ConfigManager;
-import com.emperium.neoporiumscanner.xray.BlockPosWithColor;
-import java.util.ArrayList;
-import java.util.List;
+import com.emperium.neoporiumscanner.core.ScanResultIndex;
+import com.emperium.neoporiumscanner.core.Vein;
 
 public class ESPRenderer {
-    private List<BlockPosWithColor> blocks = new ArrayList<>();
+    private final ChunkMeshCache boxMeshes = new ChunkMeshCache(ChunkMeshBuilder.Kind.EDGES);
+    private final ChunkMeshCache wireframeMeshes = new ChunkMeshCache(ChunkMeshBuilder.Kind.CROSSES);
 
-    public void updateBlocks(List<BlockPosWithColor> newBlocks) {
-        this.blocks = new ArrayList<>(newBlocks);
-    }
-
-    public void render(MatrixStack matrices) {
-        if (blocks.isEmpty() || !ConfigManager.isESPEnabled()) return;
+    public void render(Matrix4f viewMatrix, Matrix4f projectionMatrix) {
+        if (ScanResultIndex.getInstance().getBlockCount() == 0 || !ConfigManager.isESPEnabled()) return;
 
         MinecraftClient client = MinecraftClient.getInstance();
         if (client.player == null || client.world == null) return;
@@ -36,11 +33,11 @@ public class ESPRenderer {
         RenderSystem.lineWidth(ConfigManager.getESPThickness());
 
         if (mode.equals("BOX") || mode.equals("BOTH")) {
-            renderBoxes(matrices, cameraPos);
+            renderBoxes(viewMatrix, projectionMatrix, cameraPos);
         }
 
         if (mode.equals("WIREFRAME") || mode.equals("BOTH")) {
-            renderWireframes(matrices, cameraPos);
+            renderWireframes(viewMatrix, projectionMatrix, cameraPos);
         }
 
         // Reset render state
@@ -48,40 +45,60 @@ public class ESPRenderer {
         RenderSystem.disableBlend();
     }
 
-    private void renderBoxes(MatrixStack matrices, Vec3d cameraPos) {
-        Tessellator tessellator = Tessellator.getInstance();
-        BufferBuilder buffer = tessellator.begin(VertexFormat.DrawMode.DEBUG_LINES, VertexFormats.POSITION_COLOR);
-
-        for (BlockPosWithColor block : blocks) {
-            BlockPos pos = block.getPos();
-            if (shouldSkipBlock(pos, cameraPos)) continue;
-
-            Box box = new Box(pos).expand(0.002); // Slight expansion for visibility
-            float[] color = block.getColor().getFloats();
-            float alpha = calculateAlpha(pos, cameraPos);
-
-            renderBoxEdges(buffer, box, color[0], color[1], color[2], alpha);
+    private void renderBoxes(Matrix4f viewMatrix, Matrix4f projectionMatrix, Vec3d cameraPos) {
+        if (ConfigManager.isVeinMode()) {
+            Tessellator tessellator = Tessellator.getInstance();
+            BufferBuilder buffer = tessellator.begin(VertexFormat.DrawMode.DEBUG_LINES, VertexFormats.POSITION_COLOR);
+
+            // One box around each vein instead of one per block
+            for (Vein vein : ScanResultIndex.getInstance().getVeins()) {
+                Vec3d centroid = vein.getCentroid();
+                if (shouldSkip(centroid, cameraPos)) continue;
+
+                float[] color = vein.getColor().getFloats();
+                renderBoxEdges(buffer, vein.getBox().expand(0.002).offset(cameraPos.negate()), color[0], color[1], color[2], calculateAlpha(centroid, cameraPos));
+            }
+            drawVeins(buffer, viewMatrix);
+            return;
         }
 
-        BufferRenderer.drawWithGlobalProgram(buffer.end());
+        // Baked per chunk; only chunks within range are drawn
+        boxMeshes.draw(cameraPos, ConfigManager.getESPDistance(), viewMatrix, projectionMatrix, this::calculateAlpha);
     }
 
-    private void renderWireframes(MatrixStack matrices, Vec3d cameraPos) {
-        Tessellator tessellator = Tessellator.getInstance();
-        BufferBuilder buffer = tessellator.begin(VertexFormat.DrawMode.DEBUG_LINES, VertexFormats.POSITION_COLOR);
+    private void renderWireframes(Matrix4f viewMatrix, Matrix4f projectionMatrix, Vec3d cameraPos) {
+        if (ConfigManager.isVeinMode()) {
+            Tessellator tessellator = Tessellator.getInstance();
+            BufferBuilder buffer = tessellator.begin(VertexFormat.DrawMode.DEBUG_LINES, VertexFormats.POSITION_COLOR);
+
+            for (Vein vein : ScanResultIndex.getInstance().getVeins()) {
+                Vec3d centroid = vein.getCentroid();
+                if (shouldSkip(centroid, cameraPos)) continue;
 
-        for (BlockPosWithColor block : blocks) {
-            BlockPos pos = block.getPos();
-            if (shouldSkipBlock(pos, cameraPos)) continue;
+                float[] color = vein.getColor().getFloats();
+                renderWireframe(buffer, vein.getBox().offset(cameraPos.negate()), color[0], color[1], color[2], calculateAlpha(centroid, cameraPos) * 0.8f);
+            }
+            drawVeins(buffer, viewMatrix);
+            return;
+        }
 
-            Box box = new Box(pos);
-            float[] color = block.getColor().getFloats();
-            float alpha = calculateAlpha(pos, cameraPos);
+        wireframeMeshes.draw(cameraPos, ConfigManager.getESPDistance(), viewMatrix, projectionMatrix, this::calculateAlpha);
+    }
 
-            renderWireframe(buffer, box, color[0], color[1], color[2], alpha * 0.8f);
+    // Vein boxes are camera relative like the chunk meshes, drawn with the frame's view matrix
+    private void drawVeins(BufferBuilder buffer, Matrix4f viewMatrix) {
+        // Veins may not be built yet right after a scan started
+        BuiltBuffer built = buffer.endNullable();
+        if (built == null) {
+            return;
         }
 
-        BufferRenderer.drawWithGlobalProgram(buffer.end());
+        Matrix4fStack modelView = RenderSystem.getModelViewStack();
+        modelView.pushMatrix();
+        modelView.set(viewMatrix);
+        RenderSystem.setShader(ShaderProgramKeys.POSITION_COLOR);
+        BufferRenderer.drawWithGlobalProgram(built);
+        modelView.popMatrix();
     }
 
     private void renderBoxEdges(BufferBuilder buffer, Box box, float r, float g, float b, float a) {
@@ -161,19 +178,24 @@ public class ESPRenderer {
         buffer.vertex(x, y, z).color(r, g, b, a);
     }
 
-    private boolean shouldSkipBlock(BlockPos pos, Vec3d cameraPos) {
-        double distance = Math.sqrt(pos.getSquaredDistance(cameraPos.x, cameraPos.y, cameraPos.z));
-        return distance > ConfigManager.getESPDistance();
+    private boolean shouldSkip(Vec3d pos, Vec3d cameraPos) {
+        return pos.distanceTo(cameraPos) > ConfigManager.getESPDistance();
     }
 
-    private float calculateAlpha(BlockPos pos, Vec3d cameraPos) {
-        if (!ConfigManager.isESPFadeEnabled()) return 1.0f;
-        double distance = Math.sqrt(pos.getSquaredDistance(cameraPos.x, cameraPos.y, cameraPos.z));
-        double maxDist = ConfigManager.getESPDistance();
-        return (float) Math.max(0.2, 1.0 - (distance / (maxDist * 1.2)));
+    private float calculateAlpha(Vec3d pos, Vec3d cameraPos) {
+        return calculateAlpha(pos.squaredDistanceTo(cameraPos));
     }
 
+    // Frees the GPU buffers
     public void clear() {
-        blocks.clear();
+        boxMeshes.clear();
+        wireframeMeshes.clear();
+    }
+
+    private float calculateAlpha(double squaredDistance) {
+        if (!ConfigManager.isESPFadeEnabled()) return 1.0f;
+        double distance = Math.sqrt(squaredDistance);
+        double maxDist = ConfigManager.getESPDistance();
+        return (float) Math.max(0.2, 1.0 - (distance / (maxDist * 1.2)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.emperium.neoporiumscanner.xray.render;
+
+import com.emperium.neoporiumscanner.core.HitList;
+import com.emperium.neoporiumscanner.core.HitPalette;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Packs one chunk's hits into the per-instance layout of the instanced path, 8 bytes per hit:
+// a 32-bit position (x and z above the origin in the low 4 bits each, signed y above the origin
+// in the upper 24) followed by the hit color as R, G, B, A bytes. Needs no GL context, so the
+// packing can be checked without a running game, like VertexBytes.
+public final class InstanceBytes {
+    public static final int INSTANCE_SIZE = 8;
+
+    private InstanceBytes() {
+    }
+
+    // x and z must be 0-15, which holds for hits of one chunk against its corner
+    public static int packPosition(int x, int y, int z) {
+        return (x & 15) | (z & 15) << 4 | y << 8;
+    }
+
+    public static int unpackX(int packed) {
+        return packed & 15;
+    }
+
+    public static int unpackY(int packed) {
+        return packed >> 8;
+    }
+
+    public static int unpackZ(int packed) {
+        return (packed >> 4) & 15;
+    }
+
+    // Writes at the buffer's position, in the buffer's byte order (GL wants native order)
+    public static void pack(HitList hits, int originX, int originY, int originZ, ByteBuffer out) {
+        for (int i = 0; i < hits.size(); i++) {
+            out.putInt(packPosition(hits.getX(i) - originX, hits.getY(i) - originY, hits.getZ(i) - originZ));
+            int rgb = HitPalette.getColor(hits.getType(i)).getRGB();
+            out.put((byte) (rgb >> 16));
+            out.put((byte) (rgb >> 8));
+            out.put((byte) rgb);
+            out.put((byte) 0xFF);
+        }
+    }
+
+    public static byte[] pack(HitList hits, int originX, int originY, int originZ) {
+        byte[] bytes = new byte[hits.size() * INSTANCE_SIZE];
+        pack(hits, originX, originY, originZ, ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder()));
+        return bytes;
+    }
+}
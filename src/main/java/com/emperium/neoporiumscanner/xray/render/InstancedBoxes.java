@@ -0,0 +1,238 @@
+package com.emperium.neoporiumscanner.xray.render;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.gl.VertexBuffer;
+import org.joml.Matrix4f;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL33;
+import org.lwjgl.system.MemoryUtil;
+import com.emperium.neoporiumscanner.core.HitList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Instanced path of ChunkMeshCache: one static unit mesh per kind, drawn once per hit from a
+// per-chunk instance buffer of InstanceBytes.INSTANCE_SIZE bytes per block, so a rebuilt chunk
+// uploads 8 bytes per block instead of its full geometry.
+// Raw GL 3.3 with its own shader program, so it is only used when the context supports it and
+// no shader pack mod replaces the pipeline; otherwise the baked meshes are drawn. BufferRenderer
+// remembers the last vertex buffer it bound and skips binding it again, so after binding our own
+// vertex arrays the binding is released through VertexBuffer.unbind(), which also forgets that
+// buffer; otherwise vanilla's next draw could run on vertex array 0. Render thread only.
+public class InstancedBoxes {
+    private static final int POSITION = 0;
+    private static final int COLOR = 1;
+    private static final int INSTANCE_POS = 2;
+    private static final int INSTANCE_COLOR = 3;
+    private static final String SHADER_PATH = "/assets/neoporiumscanner/shaders/";
+
+    private static Boolean available;
+    private static int program;
+    private static int modelViewLocation;
+    private static int projectionLocation;
+    private static int colorModulatorLocation;
+    private static final float[] matrix = new float[16];
+
+    private final ChunkMeshBuilder.Kind kind;
+    private final int drawMode;
+    private int unitBuffer = 0;
+    private int unitVertices;
+
+    public InstancedBoxes(ChunkMeshBuilder.Kind kind) {
+        this.kind = kind;
+        this.drawMode = kind == ChunkMeshBuilder.Kind.FACES ? GL11.GL_TRIANGLES : GL11.GL_LINES;
+    }
+
+    // Checked once; a failed shader compile disables the path for the session
+    public static boolean isAvailable() {
+        if (available == null) {
+            available = init();
+        }
+        return available;
+    }
+
+    private static boolean init() {
+        FabricLoader loader = FabricLoader.getInstance();
+        if (loader.isModLoaded("iris") || loader.isModLoaded("canvas")) {
+            return false;
+        }
+        if (!GL.getCapabilities().OpenGL33) {
+            return false;
+        }
+
+        try {
+            program = link(load("instanced_box.vsh"), load("instanced_box.fsh"));
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Instanced rendering unavailable: " + e.getMessage());
+            return false;
+        }
+        modelViewLocation = GL20.glGetUniformLocation(program, "ModelViewMat");
+        projectionLocation = GL20.glGetUniformLocation(program, "ProjMat");
+        colorModulatorLocation = GL20.glGetUniformLocation(program, "ColorModulator");
+        return true;
+    }
+
+    private static String load(String name) throws IOException {
+        try (InputStream in = InstancedBoxes.class.getResourceAsStream(SHADER_PATH + name)) {
+            if (in == null) {
+                throw new IOException("missing shader " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int link(String vertexSource, String fragmentSource) {
+        int vertex = compile(GL20.GL_VERTEX_SHADER, vertexSource);
+        int fragment = compile(GL20.GL_FRAGMENT_SHADER, fragmentSource);
+        int id = GL20.glCreateProgram();
+        GL20.glAttachShader(id, vertex);
+        GL20.glAttachShader(id, fragment);
+        GL20.glBindAttribLocation(id, POSITION, "Position");
+        GL20.glBindAttribLocation(id, COLOR, "Color");
+        GL20.glBindAttribLocation(id, INSTANCE_POS, "InstancePos");
+        GL20.glBindAttribLocation(id, INSTANCE_COLOR, "InstanceColor");
+        GL20.glLinkProgram(id);
+        GL20.glDeleteShader(vertex);
+        GL20.glDeleteShader(fragment);
+
+        if (GL20.glGetProgrami(id, GL20.GL_LINK_STATUS) == GL11.GL_FALSE) {
+            String log = GL20.glGetProgramInfoLog(id);
+            GL20.glDeleteProgram(id);
+            throw new IllegalStateException(log);
+        }
+        return id;
+    }
+
+    private static int compile(int type, String source) {
+        int id = GL20.glCreateShader(type);
+        GL20.glShaderSource(id, source);
+        GL20.glCompileShader(id);
+        if (GL20.glGetShaderi(id, GL20.GL_COMPILE_STATUS) == GL11.GL_FALSE) {
+            String log = GL20.glGetShaderInfoLog(id);
+            GL20.glDeleteShader(id);
+            throw new IllegalStateException(log);
+        }
+        return id;
+    }
+
+    // Faces come as quads from the builder; core GL only draws triangles
+    private void createUnitMesh() {
+        VertexBytes bytes = new VertexBytes();
+        if (kind == ChunkMeshBuilder.Kind.FACES) {
+            float[] quad = new float[12];
+            int[] colors = new int[4];
+            int[] corner = {0};
+            ChunkMeshBuilder.unit(kind, (x, y, z, argb) -> {
+                int n = corner[0]++;
+                quad[n * 3] = x;
+                quad[n * 3 + 1] = y;
+                quad[n * 3 + 2] = z;
+                colors[n] = argb;
+                if (n == 3) {
+                    for (int k : new int[]{0, 1, 2, 0, 2, 3}) {
+                        bytes.vertex(quad[k * 3], quad[k * 3 + 1], quad[k * 3 + 2], colors[k]);
+                    }
+                    corner[0] = 0;
+                }
+            });
+        } else {
+            ChunkMeshBuilder.unit(kind, bytes);
+        }
+
+        byte[] data = bytes.toByteArray();
+        ByteBuffer buffer = MemoryUtil.memAlloc(data.length);
+        try {
+            buffer.put(data).flip();
+            unitBuffer = GlStateManager._glGenBuffers();
+            GlStateManager._glBindBuffer(GL15.GL_ARRAY_BUFFER, unitBuffer);
+            GlStateManager._glBufferData(GL15.GL_ARRAY_BUFFER, buffer, GL15.GL_STATIC_DRAW);
+        } finally {
+            MemoryUtil.memFree(buffer);
+        }
+        unitVertices = bytes.getVertexCount();
+    }
+
+    public Instances upload(HitList hits, int originX, int originY, int originZ) {
+        if (unitBuffer == 0) {
+            createUnitMesh();
+        }
+
+        ByteBuffer data = MemoryUtil.memAlloc(hits.size() * InstanceBytes.INSTANCE_SIZE);
+        try {
+            InstanceBytes.pack(hits, originX, originY, originZ, data);
+            data.flip();
+
+            int vao = GlStateManager._glGenVertexArrays();
+            GlStateManager._glBindVertexArray(vao);
+
+            GlStateManager._glBindBuffer(GL15.GL_ARRAY_BUFFER, unitBuffer);
+            GlStateManager._enableVertexAttribArray(POSITION);
+            GlStateManager._vertexAttribPointer(POSITION, 3, GL11.GL_FLOAT, false, VertexBytes.VERTEX_SIZE, 0);
+            GlStateManager._enableVertexAttribArray(COLOR);
+            GlStateManager._vertexAttribPointer(COLOR, 4, GL11.GL_UNSIGNED_BYTE, true, VertexBytes.VERTEX_SIZE, 12);
+
+            int instanceBuffer = GlStateManager._glGenBuffers();
+            GlStateManager._glBindBuffer(GL15.GL_ARRAY_BUFFER, instanceBuffer);
+            GlStateManager._glBufferData(GL15.GL_ARRAY_BUFFER, data, GL15.GL_STATIC_DRAW);
+            GlStateManager._enableVertexAttribArray(INSTANCE_POS);
+            GlStateManager._vertexAttribIPointer(INSTANCE_POS, 1, GL11.GL_INT, InstanceBytes.INSTANCE_SIZE, 0);
+            GL33.glVertexAttribDivisor(INSTANCE_POS, 1);
+            GlStateManager._enableVertexAttribArray(INSTANCE_COLOR);
+            GlStateManager._vertexAttribPointer(INSTANCE_COLOR, 4, GL11.GL_UNSIGNED_BYTE, true, InstanceBytes.INSTANCE_SIZE, 4);
+            GL33.glVertexAttribDivisor(INSTANCE_COLOR, 1);
+
+            VertexBuffer.unbind();
+            return new Instances(vao, instanceBuffer, hits.size());
+        } finally {
+            MemoryUtil.memFree(data);
+        }
+    }
+
+    public void begin(Matrix4f projectionMatrix) {
+        GlStateManager._glUseProgram(program);
+        GL20.glUniformMatrix4fv(projectionLocation, false, projectionMatrix.get(matrix));
+    }
+
+    public void draw(Instances instances, Matrix4f modelView, float alpha) {
+        GL20.glUniformMatrix4fv(modelViewLocation, false, modelView.get(matrix));
+        GL20.glUniform4f(colorModulatorLocation, 1.0f, 1.0f, 1.0f, alpha);
+        GlStateManager._glBindVertexArray(instances.vao);
+        GL31.glDrawArraysInstanced(drawMode, 0, unitVertices, instances.count);
+    }
+
+    public void end() {
+        VertexBuffer.unbind();
+        GlStateManager._glUseProgram(0);
+    }
+
+    public void close() {
+        if (unitBuffer != 0) {
+            GlStateManager._glDeleteBuffers(unitBuffer);
+            unitBuffer = 0;
+        }
+    }
+
+    // GPU side of one chunk: its vertex array and instance buffer
+    public static final class Instances {
+        private final int vao;
+        private final int buffer;
+        private final int count;
+
+        private Instances(int vao, int buffer, int count) {
+            this.vao = vao;
+            this.buffer = buffer;
+            this.count = count;
+        }
+
+        public void close() {
+            GlStateManager._glDeleteBuffers(buffer);
+            GlStateManager._glDeleteVertexArrays(vao);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.emperium.neoporiumscanner.xray.render;
+
+// Receives the vertices of a baked mesh: position relative to the mesh origin, color as ARGB
+@FunctionalInterface
+public interface MeshSink {
+    void vertex(float x, float y, float z, int argb);
+}
@@ -1,30 +1,34 @@
 package com.emperium.neoporiumscanner.xray.render;
 
-import com.emperium.neoporiumscanner.xray.BlockPosWithColor;
+import com.emperium.neoporiumscanner.cache.BlockSearchCache;
+import com.emperium.neoporiumscanner.core.ScanResultIndex;
 import com.emperium.neoporiumscanner.xray.XRayRenderer;
-import net.minecraft.client.util.math.MatrixStack;
-import java.util.List;
+import org.joml.Matrix4f;
 
 public class RenderManager {
     private static final XRayRenderer XRAY_RENDERER = new XRayRenderer();
     private static final ESPRenderer ESP_RENDERER = new ESPRenderer();
 
-    public static void render(MatrixStack matrices) {
+    // Vertices are camera relative, the view matrix only holds the camera rotation
+    public static void render(Matrix4f viewMatrix, Matrix4f projectionMatrix) {
         // Render XRay if enabled
-        XRAY_RENDERER.render(matrices);
+        XRAY_RENDERER.render(viewMatrix, projectionMatrix);
 
         // Render ESP if enabled
-        ESP_RENDERER.render(matrices);
+        ESP_RENDERER.render(viewMatrix, projectionMatrix);
     }
 
-    public static void updateBlocks(List<BlockPosWithColor> blocks) {
-        XRAY_RENDERER.updateBlocks(blocks);
-        ESP_RENDERER.updateBlocks(blocks);
+    // Both renderers draw from the scan result index, so changes only need flagging
+    public static void markDirty() {
+        XRAY_RENDERER.markDirty();
     }
 
     public static void clear() {
+        ScanResultIndex.getInstance().clear();
+        BlockSearchCache.getInstance().clear();
         XRAY_RENDERER.clear();
         ESP_RENDERER.clear();
+        XRAY_RENDERER.markDirty();
     }
 
     public static void onWorldUnload() {
@@ -0,0 +1,45 @@
+package com.emperium.neoporiumscanner.xray.render;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Collects vertices in the POSITION_COLOR layout the GPU buffers use (three floats, then
+// R, G, B, A bytes; 16 bytes per vertex, native order). Needs no GL context, so mesh output
+// can be inspected byte for byte without a running game.
+public class VertexBytes implements MeshSink {
+    public static final int VERTEX_SIZE = 16;
+
+    private byte[] bytes = new byte[VERTEX_SIZE * 64];
+    private ByteBuffer view = wrap(bytes);
+    private int vertexCount = 0;
+
+    private static ByteBuffer wrap(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public void vertex(float x, float y, float z, int argb) {
+        int offset = vertexCount * VERTEX_SIZE;
+        if (offset + VERTEX_SIZE > bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            view = wrap(bytes);
+        }
+        view.putFloat(offset, x);
+        view.putFloat(offset + 4, y);
+        view.putFloat(offset + 8, z);
+        bytes[offset + 12] = (byte) (argb >> 16);
+        bytes[offset + 13] = (byte) (argb >> 8);
+        bytes[offset + 14] = (byte) argb;
+        bytes[offset + 15] = (byte) (argb >>> 24);
+        vertexCount++;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, vertexCount * VERTEX_SIZE);
+    }
+}
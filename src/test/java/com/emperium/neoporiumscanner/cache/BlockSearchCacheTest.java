@@ -0,0 +1,130 @@
+package com.emperium.neoporiumscanner.cache;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.emperium.neoporiumscanner.core.HitList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockSearchCacheTest {
+    private static final ChunkPos CHUNK = new ChunkPos(0, 0);
+    private static final BlockPos A = new BlockPos(1, 12, 3);
+    private static final BlockPos B = new BlockPos(4, 12, 5);
+
+    private final BlockSearchCache cache = BlockSearchCache.getInstance();
+
+    private static HitList hits(BlockPos... positions) {
+        HitList hits = new HitList();
+        for (BlockPos pos : positions) {
+            hits.add(pos.asLong(), (short) 0);
+        }
+        return hits;
+    }
+
+    @BeforeEach
+    void clear() {
+        cache.clear();
+    }
+
+    @Test
+    void freshScanReplacesTheChunk() {
+        cache.putChunk(CHUNK.toLong(), hits(A, B));
+        cache.putChunk(CHUNK.toLong(), hits(B));
+
+        assertFalse(cache.getChunk(CHUNK).contains(A));
+        assertTrue(cache.getChunk(CHUNK).contains(B));
+        assertEquals(1, cache.getCachedBlockCount());
+        assertEquals(1, cache.getChunkCount());
+    }
+
+    @Test
+    void blockChangesMakeNewSnapshots() {
+        cache.putChunk(CHUNK.toLong(), hits(A));
+        BlockSearchCache.CachedChunk before = cache.getChunk(CHUNK);
+
+        cache.onBlockChanged(A, false);
+        cache.onBlockChanged(B, true);
+
+        // What was read earlier doesn't change under the reader
+        assertTrue(before.contains(A));
+        assertFalse(cache.isCurrent(CHUNK, before.getGeneration()));
+        assertFalse(cache.getChunk(CHUNK).contains(A));
+        assertTrue(cache.getChunk(CHUNK).contains(B));
+        assertEquals(1, cache.getCachedBlockCount());
+    }
+
+    @Test
+    void queuedChangesCountRightAway() {
+        cache.putChunk(CHUNK.toLong(), hits(A));
+        long generation = cache.getChunk(CHUNK).getGeneration();
+
+        cache.onBlockChanged(B, true);
+        cache.onBlockChanged(A, false);
+        cache.onBlockChanged(A, true);
+        cache.onBlockChanged(A, true);
+
+        assertEquals(2, cache.getCachedBlockCount());
+        assertFalse(cache.isCurrent(CHUNK, generation));
+
+        BlockSearchCache.CachedChunk chunk = cache.getChunk(CHUNK);
+        assertTrue(chunk.contains(A));
+        assertTrue(chunk.contains(B));
+        assertEquals(2, chunk.size());
+        assertTrue(cache.isCurrent(CHUNK, chunk.getGeneration()));
+        assertEquals(2, cache.getCachedBlockCount());
+    }
+
+    @Test
+    void longRunsOfChangesStayConsistent() {
+        cache.markChunkScanned(CHUNK);
+        for (int i = 0; i < 200; i++) {
+            cache.onBlockChanged(new BlockPos(i % 16, i / 16, 0), true);
+        }
+        assertEquals(200, cache.getCachedBlockCount());
+
+        for (int i = 0; i < 200; i += 2) {
+            cache.onBlockChanged(new BlockPos(i % 16, i / 16, 0), false);
+        }
+        BlockSearchCache.CachedChunk chunk = cache.getChunk(CHUNK);
+        assertEquals(100, chunk.size());
+        assertEquals(100, cache.getCachedBlockCount());
+        assertTrue(chunk.contains(new BlockPos(1, 0, 0)));
+        assertFalse(chunk.contains(new BlockPos(2, 0, 0)));
+    }
+
+    @Test
+    void freshScanDropsQueuedChanges() {
+        cache.putChunk(CHUNK.toLong(), hits(A));
+        cache.onBlockChanged(B, true);
+        cache.putChunk(CHUNK.toLong(), hits(A));
+
+        assertFalse(cache.getChunk(CHUNK).contains(B));
+        assertEquals(1, cache.getCachedBlockCount());
+
+        cache.onBlockChanged(B, true);
+        cache.removeChunk(CHUNK);
+        assertEquals(0, cache.getCachedBlockCount());
+    }
+
+    @Test
+    void unscannedChunksIgnoreChanges() {
+        cache.onBlockChanged(A, true);
+
+        assertNull(cache.getChunk(CHUNK));
+        assertEquals(0, cache.getCachedBlockCount());
+    }
+
+    @Test
+    void removedChunksAreForgotten() {
+        cache.putChunk(CHUNK.toLong(), hits(A, B));
+        cache.removeChunk(CHUNK);
+
+        assertNull(cache.getChunk(CHUNK));
+        assertEquals(0, cache.getCachedBlockCount());
+    }
+}
@@ -0,0 +1,169 @@
+package com.emperium.neoporiumscanner.cache;
+
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.Test;
+import com.emperium.neoporiumscanner.core.HitList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ChunkCacheTest {
+    private static final ChunkCache.Stamp STAMP = new ChunkCache.Stamp(1, -64, 320, false);
+
+    private final long[] now = {0};
+
+    private static HitList hits() {
+        return hits(1);
+    }
+
+    private static HitList hits(int count) {
+        HitList hits = new HitList();
+        for (int i = 0; i < count; i++) {
+            hits.add(BlockPos.asLong(i, 2, 3), (short) 0);
+        }
+        return hits;
+    }
+
+    // Weighs a list by its hit count, on the test's clock
+    private ChunkCache cache(long maxWeight, long ttlMillis) {
+        return new ChunkCache(maxWeight, ttlMillis, HitList::size, () -> now[0]);
+    }
+
+    @Test
+    void equalStampsMatch() {
+        ChunkCache cache = new ChunkCache(1 << 20, 0, HitList::estimateBytes);
+        HitList hits = hits();
+        cache.put(7L, new ChunkCache.Stamp(1, -64, 320, false), hits);
+
+        assertSame(hits, cache.get(7L, new ChunkCache.Stamp(1, -64, 320, false)));
+    }
+
+    @Test
+    void otherSettingsMiss() {
+        ChunkCache cache = new ChunkCache(1 << 20, 0, HitList::estimateBytes);
+        cache.put(7L, new ChunkCache.Stamp(1, -64, 320, false), hits());
+
+        assertNull(cache.get(7L, new ChunkCache.Stamp(2, -64, 320, false)));
+        assertNull(cache.get(7L, new ChunkCache.Stamp(1, -63, 319, false)));
+        assertNull(cache.get(7L, new ChunkCache.Stamp(1, -64, 320, true)));
+    }
+
+    @Test
+    void leastRecentlyUsedIsEvictedFirst() {
+        ChunkCache cache = cache(3, 0);
+        cache.put(1L, STAMP, hits());
+        cache.put(2L, STAMP, hits());
+        cache.put(3L, STAMP, hits());
+        cache.get(1L, STAMP);
+
+        cache.put(4L, STAMP, hits());
+
+        assertNull(cache.get(2L, STAMP));
+        assertNotNull(cache.get(1L, STAMP));
+        assertNotNull(cache.get(3L, STAMP));
+        assertNotNull(cache.get(4L, STAMP));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void weightStaysUnderTheCap() {
+        ChunkCache cache = cache(5, 0);
+        cache.put(1L, STAMP, hits(3));
+        cache.put(2L, STAMP, hits(2));
+        assertEquals(5, cache.getWeight());
+
+        // Needs room for 2, the oldest entry goes
+        cache.put(3L, STAMP, hits(2));
+        assertEquals(4, cache.getWeight());
+        assertNull(cache.get(1L, STAMP));
+
+        // Replacing an entry swaps its weight
+        cache.put(2L, STAMP, hits(1));
+        assertEquals(3, cache.getWeight());
+
+        // Heavier than the whole cache: not cached, nothing evicted for it
+        cache.put(4L, STAMP, hits(6));
+        assertNull(cache.get(4L, STAMP));
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getWeight());
+    }
+
+    @Test
+    void shrinkingEvictsRightAway() {
+        ChunkCache cache = cache(10, 0);
+        cache.put(1L, STAMP, hits(4));
+        cache.put(2L, STAMP, hits(4));
+
+        cache.setLimits(5, 0);
+        assertNull(cache.get(1L, STAMP));
+        assertNotNull(cache.get(2L, STAMP));
+        assertEquals(4, cache.getWeight());
+    }
+
+    @Test
+    void unusedEntriesExpire() {
+        ChunkCache cache = cache(100, 5000);
+        cache.put(1L, STAMP, hits());
+        cache.put(2L, STAMP, hits());
+
+        // A hit restarts the entry's TTL
+        now[0] = 3000;
+        assertNotNull(cache.get(1L, STAMP));
+
+        now[0] = 6000;
+        assertNull(cache.get(2L, STAMP));
+        assertNotNull(cache.get(1L, STAMP));
+        assertEquals(1, cache.getExpirations());
+
+        now[0] = 11_500;
+        assertNull(cache.get(1L, STAMP));
+        assertEquals(2, cache.getExpirations());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    void entriesPastATurnOfTheWheelWait() {
+        // Expires at second 100; its slot comes round at second 36 first
+        ChunkCache cache = cache(100, 100_000);
+        cache.put(1L, STAMP, hits());
+
+        now[0] = 70_000;
+        cache.get(2L, STAMP);
+        assertEquals(1, cache.size());
+
+        now[0] = 101_000;
+        cache.get(2L, STAMP);
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getExpirations());
+    }
+
+    @Test
+    void noTtlNeverExpires() {
+        ChunkCache cache = cache(100, 0);
+        cache.put(1L, STAMP, hits());
+
+        now[0] = 1_000_000;
+        assertNotNull(cache.get(1L, STAMP));
+        assertEquals(0, cache.getExpirations());
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        ChunkCache cache = cache(100, 0);
+        cache.put(1L, STAMP, hits());
+
+        cache.get(1L, STAMP);
+        cache.get(1L, STAMP);
+        cache.get(2L, STAMP);
+        cache.get(1L, new ChunkCache.Stamp(2, -64, 320, false));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        cache.resetStats();
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+}
@@ -0,0 +1,83 @@
+package com.emperium.neoporiumscanner.core;
+
+import com.emperium.neoporiumscanner.xray.BasicColor;
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class HitCursorTest {
+    private static final short GOLD = HitPalette.typeOf("minecraft:gold_ore", new BasicColor(255, 215, 0));
+
+    private static HitList hits(int... xs) {
+        HitList hits = new HitList();
+        for (int x : xs) {
+            hits.add(BlockPos.asLong(x, 0, 0), GOLD);
+        }
+        return hits;
+    }
+
+    private static Set<Integer> walk(HitCursor cursor) {
+        Set<Integer> seen = new HashSet<>();
+        while (cursor.next()) {
+            // Each hit once
+            assertFalse(seen.contains(cursor.getX()));
+            seen.add(cursor.getX());
+        }
+        return seen;
+    }
+
+    @Test
+    void walksEveryListInTurn() {
+        List<HitList> lists = List.of(hits(1, 2), hits(3), hits(4, 5, 6));
+        assertEquals(Set.of(1, 2, 3, 4, 5, 6), walk(new HitCursor().reset(lists)));
+    }
+
+    @Test
+    void walksPastRemovals() {
+        HitList first = hits(1, 2, 3, 4);
+        HitList emptied = hits(5);
+        HitList last = hits(6, 7);
+        first.remove(0);
+        first.remove(first.indexOf(BlockPos.asLong(3, 0, 0)));
+        emptied.remove(0);
+        last.remove(1);
+
+        List<HitList> lists = List.of(new HitList(), first, emptied, new HitList(), last, new HitList());
+        assertEquals(Set.of(2, 4, 6), walk(new HitCursor().reset(lists)));
+    }
+
+    @Test
+    void emptyWalkEndsAtOnce() {
+        HitCursor cursor = new HitCursor().reset(new ArrayList<>());
+        assertFalse(cursor.next());
+        assertFalse(cursor.reset(List.of(new HitList())).next());
+    }
+
+    @Test
+    void rangedWalkStopsOnlyWithinTheRadius() {
+        List<HitList> lists = List.of(hits(0, 1, 2, 3), hits(-3, -2, 10));
+        HitCursor cursor = new HitCursor().reset(lists, 0.5, 0.5, 0.5, 2);
+
+        Set<Integer> seen = new HashSet<>();
+        while (cursor.next()) {
+            double dx = cursor.getX() + 0.5 - 0.5;
+            assertEquals(dx * dx, cursor.getSquaredDistance(), 1e-9);
+            seen.add(cursor.getX());
+        }
+        assertEquals(Set.of(-2, 0, 1, 2), seen);
+    }
+
+    @Test
+    void cursorCanBeReused() {
+        HitCursor cursor = new HitCursor();
+        walk(cursor.reset(List.of(hits(1, 2)), 0, 0, 0, 1));
+        assertEquals(Set.of(7, 8), walk(cursor.reset(List.of(hits(7), hits(8)))));
+    }
+}
@@ -0,0 +1,123 @@
+package com.emperium.neoporiumscanner.core;
+
+import com.emperium.neoporiumscanner.xray.BasicColor;
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitListTest {
+    private static final short IRON = HitPalette.typeOf("minecraft:iron_ore", new BasicColor(216, 175, 147));
+    private static final short COAL = HitPalette.typeOf("minecraft:coal_ore", new BasicColor(40, 40, 40));
+
+    @Test
+    void addKeepsPositionsAndTypes() {
+        // Past the initial capacity, so the arrays have to grow
+        HitList hits = new HitList(2);
+        for (int i = 0; i < 20; i++) {
+            hits.add(BlockPos.asLong(i, -i, i * 3), i % 2 == 0 ? IRON : COAL);
+        }
+
+        assertEquals(20, hits.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, hits.getX(i));
+            assertEquals(-i, hits.getY(i));
+            assertEquals(i * 3, hits.getZ(i));
+            assertEquals(i % 2 == 0 ? IRON : COAL, hits.getType(i));
+        }
+        assertEquals("minecraft:coal_ore", hits.getBlockId(1));
+        assertEquals(19, hits.indexOf(BlockPos.asLong(19, -19, 57)));
+        assertEquals(-1, hits.indexOf(BlockPos.asLong(20, -20, 60)));
+    }
+
+    @Test
+    void removeMovesTheLastHitIntoTheGap() {
+        HitList hits = new HitList();
+        long a = BlockPos.asLong(1, 2, 3);
+        long b = BlockPos.asLong(4, 5, 6);
+        long c = BlockPos.asLong(7, 8, 9);
+        hits.add(a, IRON);
+        hits.add(b, COAL);
+        hits.add(c, IRON);
+
+        hits.remove(0);
+        assertEquals(2, hits.size());
+        assertEquals(c, hits.getPos(0));
+        assertEquals(IRON, hits.getType(0));
+        assertEquals(b, hits.getPos(1));
+        assertEquals(-1, hits.indexOf(a));
+
+        hits.remove(1);
+        hits.remove(0);
+        assertTrue(hits.isEmpty());
+    }
+
+    @Test
+    void everyEditChangesTheModCount() {
+        HitList hits = new HitList();
+        int before = hits.getModCount();
+        hits.add(BlockPos.asLong(0, 0, 0), IRON);
+        int added = hits.getModCount();
+        hits.setType(0, COAL);
+        int retyped = hits.getModCount();
+        hits.remove(0);
+
+        assertTrue(added != before);
+        assertTrue(retyped != added);
+        assertTrue(hits.getModCount() != retyped);
+    }
+
+    @Test
+    void copyIsIndependent() {
+        HitList hits = new HitList(64);
+        hits.add(BlockPos.asLong(1, 2, 3), IRON);
+        hits.add(BlockPos.asLong(4, 5, 6), COAL);
+
+        HitList copy = hits.copy();
+        assertEquals(2, copy.size());
+        assertEquals(hits.getPos(1), copy.getPos(1));
+        assertEquals(COAL, copy.getType(1));
+        assertTrue(copy.estimateBytes() < hits.estimateBytes());
+
+        hits.setType(0, COAL);
+        hits.remove(1);
+        copy.add(BlockPos.asLong(7, 8, 9), IRON);
+        assertEquals(IRON, copy.getType(0));
+        assertEquals(3, copy.size());
+        assertEquals(1, hits.size());
+    }
+
+    @Test
+    void boxBoundsEveryHit() {
+        HitList hits = new HitList();
+        assertEquals(Double.POSITIVE_INFINITY, hits.boxSquaredDistance(0, 0, 0), 0);
+
+        hits.add(BlockPos.asLong(2, 10, -4), IRON);
+        hits.add(BlockPos.asLong(6, 12, 1), IRON);
+        hits.add(BlockPos.asLong(3, 20, -1), IRON);
+
+        // Inside the box, and straight out along one axis past its last block center
+        assertEquals(0, hits.boxSquaredDistance(4, 15, 0), 0);
+        assertEquals(9, hits.boxSquaredDistance(9.5, 15, 0), 1e-9);
+
+        double[][] points = {{0, 0, 0}, {-7.5, 30, 9}, {4.5, 15.5, -2.5}, {100, -64, 100}};
+        for (double[] p : points) {
+            double box = hits.boxSquaredDistance(p[0], p[1], p[2]);
+            for (int i = 0; i < hits.size(); i++) {
+                assertTrue(box <= hits.squaredDistanceTo(i, p[0], p[1], p[2]));
+            }
+        }
+    }
+
+    @Test
+    void copyKeepsTheBox() {
+        HitList hits = new HitList();
+        hits.add(BlockPos.asLong(-3, 0, 5), COAL);
+        hits.add(BlockPos.asLong(8, 40, 9), COAL);
+
+        HitList copy = hits.copy();
+        assertEquals(hits.boxSquaredDistance(50, 50, 50), copy.boxSquaredDistance(50, 50, 50), 0);
+        assertEquals(hits.boxSquaredDistance(-20, -20, 0), copy.boxSquaredDistance(-20, -20, 0), 0);
+    }
+}
@@ -0,0 +1,72 @@
+package com.emperium.neoporiumscanner.core;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReportedHitsTest {
+    private static final long CHUNK = ChunkPos.toLong(0, 0);
+    private static final long A = BlockPos.asLong(1, 12, 3);
+    private static final long B = BlockPos.asLong(4, 12, 5);
+
+    private static HitList hits(long... positions) {
+        HitList hits = new HitList();
+        for (long pos : positions) {
+            hits.add(pos, (short) 0);
+        }
+        return hits;
+    }
+
+    @Test
+    void rescansOnlyReportNewHits() {
+        ReportedHits reported = new ReportedHits();
+
+        assertEquals(1, reported.update(CHUNK, hits(A)).size());
+        assertEquals(0, reported.update(CHUNK, hits(A)).size());
+
+        HitList fresh = reported.update(CHUNK, hits(A, B));
+        assertEquals(1, fresh.size());
+        assertEquals(B, fresh.getPos(0));
+    }
+
+    @Test
+    void minedAndReplacedBlockIsReportedAgain() {
+        ReportedHits reported = new ReportedHits();
+        reported.update(CHUNK, hits(A, B));
+
+        // Mined: the next scan no longer has it
+        assertEquals(0, reported.update(CHUNK, hits(B)).size());
+        // Placed again
+        assertEquals(1, reported.update(CHUNK, hits(A, B)).size());
+    }
+
+    @Test
+    void emptyRescanForgetsTheChunk() {
+        ReportedHits reported = new ReportedHits();
+        reported.update(CHUNK, hits(A, B));
+
+        // Mined out, then the ore comes back
+        assertEquals(0, reported.update(CHUNK, hits()).size());
+        assertEquals(2, reported.update(CHUNK, hits(A, B)).size());
+    }
+
+    @Test
+    void changedBlockIsReportedAgain() {
+        ReportedHits reported = new ReportedHits();
+        reported.update(CHUNK, hits(A));
+
+        reported.removeBlock(A);
+        assertEquals(1, reported.update(CHUNK, hits(A)).size());
+    }
+
+    @Test
+    void unloadedChunkIsForgotten() {
+        ReportedHits reported = new ReportedHits();
+        reported.update(CHUNK, hits(A));
+
+        reported.removeChunk(CHUNK);
+        assertEquals(1, reported.update(CHUNK, hits(A)).size());
+    }
+}
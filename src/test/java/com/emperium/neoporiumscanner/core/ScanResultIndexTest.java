@@ -0,0 +1,180 @@
+package com.emperium.neoporiumscanner.core;
+
+import com.emperium.neoporiumscanner.xray.BasicColor;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Range and nearest answers checked against a brute-force pass over every hit
+class ScanResultIndexTest {
+    private static final short DIAMOND = HitPalette.typeOf("minecraft:diamond_ore", new BasicColor(0, 255, 255));
+    private static final short EMERALD = HitPalette.typeOf("minecraft:emerald_ore", new BasicColor(0, 200, 60));
+    // Same block, other color; nearest matches on the block id
+    private static final short DIAMOND_ALT = HitPalette.typeOf("minecraft:diamond_ore", new BasicColor(0, 120, 255));
+    private static final short[] TYPES = {DIAMOND, EMERALD, DIAMOND_ALT};
+
+    private final Random random = new Random(20);
+    private ScanResultIndex index;
+
+    @BeforeEach
+    void fill() {
+        index = new ScanResultIndex(new DensityMap(() -> null));
+        for (int chunkX = -6; chunkX <= 6; chunkX++) {
+            for (int chunkZ = -6; chunkZ <= 6; chunkZ++) {
+                // Some chunks scanned with nothing found
+                int count = random.nextInt(4) == 0 ? 0 : random.nextInt(12);
+                HitList hits = new HitList();
+                for (int i = 0; i < count; i++) {
+                    int x = (chunkX << 4) + random.nextInt(16);
+                    int z = (chunkZ << 4) + random.nextInt(16);
+                    hits.add(BlockPos.asLong(x, random.nextInt(128) - 64, z), TYPES[random.nextInt(TYPES.length)]);
+                }
+                index.putChunk(ChunkPos.toLong(chunkX, chunkZ), hits);
+            }
+        }
+
+        // Edits after the lists were built, so boxes can be larger than their hits
+        HitList all = index.getAllBlocks();
+        for (int i = 0; i < all.size(); i += 3) {
+            index.removeBlock(all.getPos(i));
+        }
+        index.removeChunk(ChunkPos.toLong(0, 0));
+        index.putBlock(BlockPos.asLong(21, 0, 21), EMERALD);
+    }
+
+    private double[] randomPoint() {
+        return new double[]{random.nextDouble() * 240 - 120, random.nextDouble() * 160 - 80, random.nextDouble() * 240 - 120};
+    }
+
+    private static double distanceSq(long pos, double[] p) {
+        double dx = BlockPos.unpackLongX(pos) + 0.5 - p[0];
+        double dy = BlockPos.unpackLongY(pos) + 0.5 - p[1];
+        double dz = BlockPos.unpackLongZ(pos) + 0.5 - p[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    @Test
+    void rangeMatchesBruteForce() {
+        // Small radii look chunks up around the point, large ones test every box
+        double[] radii = {0.5, 3, 12, 40, 150, 400};
+        for (int round = 0; round < 50; round++) {
+            double[] p = randomPoint();
+            for (double radius : radii) {
+                Set<Long> expected = new HashSet<>();
+                HitList all = index.getAllBlocks();
+                for (int i = 0; i < all.size(); i++) {
+                    if (distanceSq(all.getPos(i), p) <= radius * radius) {
+                        expected.add(all.getPos(i));
+                    }
+                }
+
+                Set<Long> chunks = new HashSet<>();
+                for (HitList chunkBlocks : index.getChunksInRange(p[0], p[1], p[2], radius)) {
+                    if (!chunkBlocks.isEmpty()) {
+                        chunks.add(ChunkPos.toLong(chunkBlocks.getX(0) >> 4, chunkBlocks.getZ(0) >> 4));
+                    }
+                }
+                for (long pos : expected) {
+                    assertTrue(chunks.contains(ChunkPos.toLong(BlockPos.unpackLongX(pos) >> 4, BlockPos.unpackLongZ(pos) >> 4)),
+                            "chunk of a hit in range was pruned");
+                }
+
+                Set<Long> found = new HashSet<>();
+                for (HitCursor cursor = index.cursor(p[0], p[1], p[2], radius); cursor.next(); ) {
+                    assertEquals(distanceSq(cursor.getPos(), p), cursor.getSquaredDistance(), 1e-9);
+                    found.add(cursor.getPos());
+                }
+                assertEquals(expected, found);
+            }
+        }
+    }
+
+    @Test
+    void nearestMatchesBruteForce() {
+        for (int round = 0; round < 50; round++) {
+            double[] p = randomPoint();
+            for (String blockId : new String[]{null, "minecraft:diamond_ore", "minecraft:emerald_ore"}) {
+                for (int count : new int[]{1, 5, 40}) {
+                    HitList all = index.getAllBlocks();
+                    List<Double> expected = new ArrayList<>();
+                    for (int i = 0; i < all.size(); i++) {
+                        if (blockId == null || blockId.equals(all.getBlockId(i))) {
+                            expected.add(distanceSq(all.getPos(i), p));
+                        }
+                    }
+                    expected.sort(null);
+                    expected = expected.subList(0, Math.min(count, expected.size()));
+
+                    // Ties may come back in any order, so compare distances
+                    HitList nearest = index.nearest(p[0], p[1], p[2], count, blockId);
+                    assertEquals(expected.size(), nearest.size());
+                    for (int i = 0; i < nearest.size(); i++) {
+                        assertEquals(expected.get(i), nearest.squaredDistanceTo(i, p[0], p[1], p[2]), 1e-9);
+                        assertTrue(blockId == null || blockId.equals(nearest.getBlockId(i)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void nearestFindsBothColorsOfABlock() {
+        index.clear();
+        HitList hits = new HitList();
+        hits.add(BlockPos.asLong(1, 0, 0), DIAMOND);
+        hits.add(BlockPos.asLong(2, 0, 0), DIAMOND_ALT);
+        hits.add(BlockPos.asLong(0, 0, 1), EMERALD);
+        index.putChunk(ChunkPos.toLong(0, 0), hits);
+
+        HitList nearest = index.nearest(0.5, 0.5, 0.5, 5, "minecraft:diamond_ore");
+        short[] types = {nearest.getType(0), nearest.getType(1)};
+        Arrays.sort(types);
+        assertEquals(2, nearest.size());
+        assertEquals(Math.min(DIAMOND, DIAMOND_ALT), types[0]);
+        assertEquals(Math.max(DIAMOND, DIAMOND_ALT), types[1]);
+    }
+
+    @Test
+    void sameHitsLeaveTheIndexUnchanged() {
+        long chunk = ChunkPos.toLong(1, 1);
+        long pos = BlockPos.asLong(21, 0, 21);
+        HitList hits = index.getChunkBlocks(chunk).copy();
+        long modCount = index.getModCount();
+        List<Vein> veins = index.getVeins();
+
+        // A rescan that finds the same hits, and a block reported with the type it already has
+        index.putChunk(chunk, hits.copy());
+        index.putBlock(pos, EMERALD);
+        assertEquals(modCount, index.getModCount());
+        assertSame(veins, index.getVeins());
+
+        index.putBlock(pos, DIAMOND);
+        assertTrue(index.getModCount() != modCount);
+        modCount = index.getModCount();
+
+        hits.remove(0);
+        index.putChunk(chunk, hits);
+        assertTrue(index.getModCount() != modCount);
+    }
+
+    @Test
+    void emptyIndexFindsNothing() {
+        index.clear();
+        assertTrue(index.nearest(0, 0, 0, 3, null).isEmpty());
+        assertTrue(index.getChunksInRange(0, 0, 0, 100).isEmpty());
+        assertFalse(index.cursor(0, 0, 0, 100).next());
+    }
+}
@@ -0,0 +1,127 @@
+package com.emperium.neoporiumscanner.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+// The vector decoder reports indexes lane by lane, not in block order, so results are compared as sets
+class SectionDecoderTest {
+    private static final int GLOBAL_IDS = 1 << 15;
+
+    private final ScalarSectionDecoder scalar = new ScalarSectionDecoder();
+    private final VectorSectionDecoder vector = new VectorSectionDecoder();
+
+    // Packed the way PalettedContainer stores it: whole values per word, low bits first
+    private static long[] pack(int bits, int[] values) {
+        int perLong = 64 / bits;
+        long[] data = new long[(SectionSnapshot.BLOCKS + perLong - 1) / perLong];
+        for (int i = 0; i < values.length; i++) {
+            data[i / perLong] |= (long) values[i] << (i % perLong * bits);
+        }
+        return data;
+    }
+
+    private static int[] decode(SectionDecoder decoder, int bits, long[] data, boolean[] matches) {
+        List<Integer> found = new ArrayList<>();
+        decoder.forEachMatch(bits, data, data.length, matches, found::add);
+        int[] sorted = found.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int[] expected(int[] values, boolean[] matches) {
+        List<Integer> found = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] < matches.length && matches[values[i]]) {
+                found.add(i);
+            }
+        }
+        return found.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void check(int bits, int[] values, boolean[] matches) {
+        long[] data = pack(bits, values);
+        int[] want = expected(values, matches);
+        assertArrayEquals(want, decode(scalar, bits, data, matches), "scalar, " + bits + " bits");
+        assertArrayEquals(want, decode(vector, bits, data, matches), "vector, " + bits + " bits");
+    }
+
+    // Section palettes: values index a palette of at most 2^bits states, matches has one flag per state
+    @Test
+    void sectionPalettes() {
+        Random random = new Random(42);
+        for (int bits = 1; bits <= 15; bits++) {
+            for (int round = 0; round < 4; round++) {
+                int paletteSize = 1 + random.nextInt(1 << Math.min(bits, 10));
+                int[] values = new int[SectionSnapshot.BLOCKS];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = random.nextInt(paletteSize);
+                }
+                boolean[] matches = new boolean[paletteSize];
+                for (int i = 0; i < matches.length; i++) {
+                    matches[i] = random.nextInt(3) == 0;
+                }
+                check(bits, values, matches);
+            }
+        }
+    }
+
+    // Global palettes: values are raw state ids, matches is the whole id table
+    @Test
+    void globalPalettes() {
+        Random random = new Random(7);
+        for (int bits = 1; bits <= 15; bits++) {
+            int[] values = new int[SectionSnapshot.BLOCKS];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(1 << bits);
+            }
+            boolean[] matches = new boolean[GLOBAL_IDS];
+            for (int i = 0; i < matches.length; i++) {
+                matches[i] = random.nextInt(50) == 0;
+            }
+            // Flag a few ids that occur for sure
+            for (int i = 0; i < 8; i++) {
+                matches[values[random.nextInt(values.length)]] = true;
+            }
+            check(bits, values, matches);
+        }
+    }
+
+    @Test
+    void singleMatchingState() {
+        for (int bits = 1; bits <= 15; bits++) {
+            int[] values = new int[SectionSnapshot.BLOCKS];
+            values[0] = 1;
+            values[SectionSnapshot.BLOCKS - 1] = 1;
+            values[777] = 1;
+            check(bits, values, new boolean[]{false, true});
+        }
+    }
+
+    // Values the palette doesn't cover are ignored, e.g. a matches table shorter than 2^bits
+    @Test
+    void valuesPastTheTable() {
+        Random random = new Random(3);
+        for (int bits = 1; bits <= 15; bits++) {
+            int[] values = new int[SectionSnapshot.BLOCKS];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(1 << bits);
+            }
+            boolean[] matches = new boolean[Math.max(1, (1 << bits) / 2)];
+            Arrays.fill(matches, true);
+            check(bits, values, matches);
+        }
+    }
+
+    @Test
+    void nothingMatches() {
+        for (int bits = 1; bits <= 15; bits++) {
+            check(bits, new int[SectionSnapshot.BLOCKS], new boolean[1 << Math.min(bits, 10)]);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.emperium.neoporiumscanner.xray.render;
+
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.Test;
+import com.emperium.neoporiumscanner.core.HitList;
+import com.emperium.neoporiumscanner.core.HitPalette;
+import com.emperium.neoporiumscanner.xray.BasicColor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Quad counts of the face mesher on synthetic vein shapes, without merging and with it
+class ChunkMeshBuilderTest {
+    private static final short ORE = HitPalette.typeOf("minecraft:diamond_ore", new BasicColor(0, 255, 255));
+    private static final short DEBRIS = HitPalette.typeOf("minecraft:ancient_debris", new BasicColor(139, 69, 19));
+
+    // Corner of the chunk all test hits are in
+    private static final int ORIGIN_X = 32;
+    private static final int ORIGIN_Y = -64;
+    private static final int ORIGIN_Z = -48;
+
+    private static void add(HitList hits, int x, int y, int z, short type) {
+        hits.add(BlockPos.asLong(ORIGIN_X + x, ORIGIN_Y + y, ORIGIN_Z + z), type);
+    }
+
+    // 3x3x3 cube, optionally without its center block
+    private static HitList cube(boolean hollow) {
+        HitList hits = new HitList();
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                for (int z = 0; z < 3; z++) {
+                    if (!hollow || x != 1 || y != 1 || z != 1) {
+                        add(hits, x, y, z, ORE);
+                    }
+                }
+            }
+        }
+        return hits;
+    }
+
+    private static int quads(HitList hits, boolean merge) {
+        VertexBytes sink = new VertexBytes();
+        int vertices = ChunkMeshBuilder.build(ChunkMeshBuilder.Kind.FACES, hits, ORIGIN_X, ORIGIN_Y, ORIGIN_Z, merge, sink);
+        assertEquals(sink.getVertexCount(), vertices, "returned vertex count");
+        assertEquals(0, vertices % 4, "whole quads");
+        return vertices / 4;
+    }
+
+    // Total area of the emitted quads; every quad is an axis aligned rectangle
+    private static double area(HitList hits, boolean merge) {
+        double[] total = {0};
+        float[] corners = new float[12];
+        int[] n = {0};
+        ChunkMeshBuilder.build(ChunkMeshBuilder.Kind.FACES, hits, ORIGIN_X, ORIGIN_Y, ORIGIN_Z, merge, (x, y, z, argb) -> {
+            corners[n[0] * 3] = x;
+            corners[n[0] * 3 + 1] = y;
+            corners[n[0] * 3 + 2] = z;
+            if (++n[0] == 4) {
+                double ax = corners[3] - corners[0], ay = corners[4] - corners[1], az = corners[5] - corners[2];
+                double bx = corners[9] - corners[0], by = corners[10] - corners[1], bz = corners[11] - corners[2];
+                double cx = ay * bz - az * by, cy = az * bx - ax * bz, cz = ax * by - ay * bx;
+                total[0] += Math.sqrt(cx * cx + cy * cy + cz * cz);
+                n[0] = 0;
+            }
+        });
+        return total[0];
+    }
+
+    @Test
+    void loneBlock() {
+        HitList hits = new HitList();
+        add(hits, 5, 10, 7, ORE);
+
+        assertEquals(6, quads(hits, false));
+        assertEquals(6, quads(hits, true));
+    }
+
+    @Test
+    void solidCube() {
+        HitList hits = cube(false);
+
+        assertEquals(162, hits.size() * 6);
+        assertEquals(54, quads(hits, false));
+        assertEquals(6, quads(hits, true));
+    }
+
+    @Test
+    void cubeWithHole() {
+        HitList hits = cube(true);
+
+        // Outer shell plus the 6 faces looking into the hole
+        assertEquals(60, quads(hits, false));
+        assertEquals(12, quads(hits, true));
+    }
+
+    @Test
+    void lShape() {
+        HitList hits = new HitList();
+        add(hits, 0, 0, 0, ORE);
+        add(hits, 1, 0, 0, ORE);
+        add(hits, 0, 1, 0, ORE);
+
+        assertEquals(14, quads(hits, false));
+        // North and south become two quads each, the steps in x and y stay apart
+        assertEquals(10, quads(hits, true));
+    }
+
+    @Test
+    void line() {
+        HitList hits = new HitList();
+        for (int x = 0; x < 5; x++) {
+            add(hits, x, 3, 2, ORE);
+        }
+
+        assertEquals(22, quads(hits, false));
+        assertEquals(6, quads(hits, true));
+    }
+
+    @Test
+    void differentTypesKeepTheirFaces() {
+        HitList hits = new HitList();
+        add(hits, 0, 0, 0, ORE);
+        add(hits, 1, 0, 0, DEBRIS);
+
+        assertEquals(12, quads(hits, false));
+        assertEquals(12, quads(hits, true));
+    }
+
+    @Test
+    void mergingKeepsTheCoveredArea() {
+        for (HitList hits : new HitList[]{cube(false), cube(true)}) {
+            assertEquals(area(hits, false), area(hits, true), 1e-6);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.emperium.neoporiumscanner.xray.render;
+
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.Test;
+import com.emperium.neoporiumscanner.core.HitList;
+import com.emperium.neoporiumscanner.core.HitPalette;
+import com.emperium.neoporiumscanner.xray.BasicColor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Per-instance layout: packed position int, then R, G, B, A bytes; 8 bytes per hit
+class InstanceBytesTest {
+    private static final short GOLD = HitPalette.typeOf("minecraft:gold_ore", new BasicColor(255, 215, 0));
+    private static final short REDSTONE = HitPalette.typeOf("minecraft:redstone_ore", new BasicColor(200, 10, 20));
+
+    @Test
+    void positionRoundTrip() {
+        for (int y : new int[]{-384, -1, 0, 1, 15, 16, 383, 4095}) {
+            for (int x = 0; x < 16; x += 5) {
+                for (int z = 0; z < 16; z += 3) {
+                    int packed = InstanceBytes.packPosition(x, y, z);
+                    assertEquals(x, InstanceBytes.unpackX(packed));
+                    assertEquals(y, InstanceBytes.unpackY(packed));
+                    assertEquals(z, InstanceBytes.unpackZ(packed));
+                }
+            }
+        }
+    }
+
+    @Test
+    void positionBits() {
+        assertEquals(0x000000A5, InstanceBytes.packPosition(5, 0, 10));
+        assertEquals(0x0000030F, InstanceBytes.packPosition(15, 3, 0));
+        assertEquals(0xFFFFFF00, InstanceBytes.packPosition(0, -1, 0));
+    }
+
+    @Test
+    void layoutAndStride() {
+        // Corner of chunk (-2, 2); hits below and above the origin y
+        int originX = -32, originY = 64, originZ = 32;
+        HitList hits = new HitList();
+        hits.add(BlockPos.asLong(-17, -60, 33), GOLD);
+        hits.add(BlockPos.asLong(-32, 300, 47), REDSTONE);
+
+        byte[] data = InstanceBytes.pack(hits, originX, originY, originZ);
+        assertEquals(8, InstanceBytes.INSTANCE_SIZE);
+        assertEquals(2 * InstanceBytes.INSTANCE_SIZE, data.length);
+
+        ByteBuffer view = ByteBuffer.wrap(data).order(ByteOrder.nativeOrder());
+        assertEquals(InstanceBytes.packPosition(15, -124, 1), view.getInt(0));
+        assertEquals((byte) 255, data[4]);
+        assertEquals((byte) 215, data[5]);
+        assertEquals((byte) 0, data[6]);
+        assertEquals((byte) 0xFF, data[7]);
+
+        assertEquals(InstanceBytes.packPosition(0, 236, 15), view.getInt(8));
+        assertEquals((byte) 200, data[12]);
+        assertEquals((byte) 10, data[13]);
+        assertEquals((byte) 20, data[14]);
+        assertEquals((byte) 0xFF, data[15]);
+    }
+
+    @Test
+    void followsTheBufferOrder() {
+        HitList hits = new HitList();
+        hits.add(BlockPos.asLong(3, 5, 9), GOLD);
+        int packed = InstanceBytes.packPosition(3, 5, 9);
+
+        ByteBuffer big = ByteBuffer.allocate(InstanceBytes.INSTANCE_SIZE).order(ByteOrder.BIG_ENDIAN);
+        InstanceBytes.pack(hits, 0, 0, 0, big);
+        assertEquals(InstanceBytes.INSTANCE_SIZE, big.position());
+        assertEquals((byte) (packed >>> 24), big.get(0));
+        assertEquals((byte) packed, big.get(3));
+
+        ByteBuffer little = ByteBuffer.allocate(InstanceBytes.INSTANCE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        InstanceBytes.pack(hits, 0, 0, 0, little);
+        assertEquals((byte) packed, little.get(0));
+        assertEquals((byte) (packed >>> 24), little.get(3));
+
+        // Color bytes are not affected by the order
+        assertEquals(big.get(4), little.get(4));
+        assertEquals(big.get(7), little.get(7));
+    }
+
+    @Test
+    void writesAtTheBufferPosition() {
+        HitList hits = new HitList();
+        hits.add(BlockPos.asLong(1, 2, 3), REDSTONE);
+
+        ByteBuffer out = ByteBuffer.allocate(4 + InstanceBytes.INSTANCE_SIZE).order(ByteOrder.nativeOrder());
+        out.putInt(0x12345678);
+        InstanceBytes.pack(hits, 0, 0, 0, out);
+        assertEquals(0x12345678, out.getInt(0));
+        assertEquals(InstanceBytes.packPosition(1, 2, 3), out.getInt(4));
+    }
+}
@@ -0,0 +1,63 @@
+package com.emperium.neoporiumscanner.xray.render;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// POSITION_COLOR layout: three native-order floats, then R, G, B, A bytes
+class VertexBytesTest {
+    @Test
+    void layoutAndStride() {
+        VertexBytes bytes = new VertexBytes();
+        bytes.vertex(1.5f, -2.25f, 16.0f, 0x80112233);
+        bytes.vertex(0.0f, 384.0f, 0.5f, 0xFFFFFFFF);
+
+        byte[] data = bytes.toByteArray();
+        assertEquals(16, VertexBytes.VERTEX_SIZE);
+        assertEquals(2, bytes.getVertexCount());
+        assertEquals(2 * VertexBytes.VERTEX_SIZE, data.length);
+
+        ByteBuffer view = ByteBuffer.wrap(data).order(ByteOrder.nativeOrder());
+        assertEquals(1.5f, view.getFloat(0));
+        assertEquals(-2.25f, view.getFloat(4));
+        assertEquals(16.0f, view.getFloat(8));
+        assertEquals((byte) 0x11, data[12]);
+        assertEquals((byte) 0x22, data[13]);
+        assertEquals((byte) 0x33, data[14]);
+        assertEquals((byte) 0x80, data[15]);
+
+        assertEquals(384.0f, view.getFloat(VertexBytes.VERTEX_SIZE + 4));
+        assertEquals((byte) 0xFF, data[VertexBytes.VERTEX_SIZE + 15]);
+    }
+
+    @Test
+    void positionsUseNativeOrder() {
+        VertexBytes bytes = new VertexBytes();
+        bytes.vertex(1.0f, 0.0f, 0.0f, 0);
+
+        byte[] data = bytes.toByteArray();
+        byte[] expected = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder()).putFloat(1.0f).array();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(expected[i], data[i]);
+        }
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        VertexBytes bytes = new VertexBytes();
+        for (int i = 0; i < 1000; i++) {
+            bytes.vertex(i, 0, 0, i);
+        }
+
+        byte[] data = bytes.toByteArray();
+        assertEquals(1000, bytes.getVertexCount());
+        assertEquals(1000 * VertexBytes.VERTEX_SIZE, data.length);
+
+        ByteBuffer view = ByteBuffer.wrap(data).order(ByteOrder.nativeOrder());
+        assertEquals(999.0f, view.getFloat(999 * VertexBytes.VERTEX_SIZE));
+        assertEquals((byte) 999, data[999 * VertexBytes.VERTEX_SIZE + 14]);
+    }
+}